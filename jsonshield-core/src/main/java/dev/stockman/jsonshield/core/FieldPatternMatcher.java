@@ -0,0 +1,641 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Matches field names against any number of glob and regular expression patterns with a single deterministic
+ * automaton, so a name is decided in one pass over its characters however many patterns there are.
+ * <p>
+ * All patterns are parsed into one nondeterministic automaton, which is turned into a deterministic one over
+ * classes of characters that no pattern tells apart. A name is rejected as soon as no pattern can match
+ * anymore, and accepted as soon as every continuation matches. Like {@link java.util.regex.Pattern}, the automaton
+ * steps over code points, so {@code .}, {@code ?} and negated classes match a supplementary character as a whole
+ * rather than half of its surrogate pair. Decisions for String names are memoized,
+ * which turns repeated keys into a single hash lookup. ASCII names in UTF-8 buffers are matched without decoding.
+ * <p>
+ * Regular expressions use the {@link java.util.regex.Pattern} syntax with whole-name matching, limited to what
+ * a deterministic automaton can express: literals and escapes, {@code .}, character classes, the predefined
+ * classes {@code \d \w \s} and their negations, groups, alternation, greedy or lazy quantifiers including
+ * bounded repetition, the leading flags {@code (?i)} and {@code (?s)}, and leading {@code ^} or trailing
+ * {@code $}. Globs support {@code *}, {@code ?}, {@code |} between alternatives and {@code \} escapes.
+ */
+final class FieldPatternMatcher {
+    private static final int DEAD = 0;
+    private static final int MAX_STATES = 10_000;
+    private static final int MAX_REPETITION = 100;
+    private static final int MEMO_CAPACITY = 4096;
+
+    // Sorted starts of the character classes; class i spans the code points [boundaries[i], boundaries[i + 1])
+    private final int[] boundaries;
+    private final int[] asciiClasses = new int[128];
+    private final int classCount;
+    private final int start;
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final boolean[] acceptsAll;
+    private final Map<String, Boolean> memo = new ConcurrentHashMap<>();
+
+    FieldPatternMatcher(List<String> globs, List<String> regexes) {
+        Nfa nfa = new Nfa();
+        List<Node> alternatives = new ArrayList<>();
+        for (String glob : globs) {
+            alternatives.add(new Parser(glob, true).parse());
+        }
+        for (String regex : regexes) {
+            alternatives.add(new Parser(regex, false).parse());
+        }
+        int nfaStart = nfa.compile(new Node.Alternation(alternatives));
+
+        TreeSet<Integer> starts = new TreeSet<>(List.of(0));
+        for (int[] ranges : nfa.sets) {
+            for (int i = 0; ranges != null && i < ranges.length; i += 2) {
+                starts.add(ranges[i]);
+                if (ranges[i + 1] < Character.MAX_CODE_POINT) {
+                    starts.add(ranges[i + 1] + 1);
+                }
+            }
+        }
+        this.boundaries = starts.stream().mapToInt(Integer::intValue).toArray();
+        this.classCount = boundaries.length;
+        for (char ch = 0; ch < 128; ch++) {
+            asciiClasses[ch] = classOf(ch);
+        }
+
+        List<BitSet> sets = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        id(new BitSet(), sets, ids, pending);
+        pending.clear();
+        BitSet initial = new BitSet();
+        initial.set(nfaStart);
+        this.start = id(nfa.closure(initial), sets, ids, pending);
+        int[] table = new int[16 * classCount];
+        while (!pending.isEmpty()) {
+            int state = pending.removeFirst();
+            if (table.length < (state + 1) * classCount) {
+                table = Arrays.copyOf(table, Math.max(table.length * 2, (state + 1) * classCount));
+            }
+            for (int cls = 0; cls < classCount; cls++) {
+                table[state * classCount + cls] = id(nfa.step(sets.get(state), boundaries[cls]), sets, ids, pending);
+            }
+        }
+        int size = sets.size();
+        this.transitions = Arrays.copyOf(table, size * classCount);
+        this.accepting = new boolean[size];
+        this.acceptsAll = new boolean[size];
+        for (int state = 0; state < size; state++) {
+            accepting[state] = sets.get(state).get(nfa.accept);
+        }
+        for (int state = 0; state < size; state++) {
+            boolean all = accepting[state];
+            for (int cls = 0; all && cls < classCount; cls++) {
+                all = transitions[state * classCount + cls] == state;
+            }
+            acceptsAll[state] = all;
+        }
+    }
+
+    boolean matches(String name) {
+        Boolean memoized = memo.get(name);
+        if (memoized != null) {
+            return memoized;
+        }
+        int state = start;
+        for (int i = 0; i < name.length() && !acceptsAll[state] && state != DEAD; ) {
+            char ch = name.charAt(i);
+            int cls;
+            if (ch < 128) {
+                cls = asciiClasses[ch];
+                i++;
+            } else {
+                int codePoint = name.codePointAt(i);
+                cls = classOf(codePoint);
+                i += Character.charCount(codePoint);
+            }
+            state = transitions[state * classCount + cls];
+        }
+        boolean match = accepting[state];
+        if (memo.size() < MEMO_CAPACITY) {
+            memo.put(name, match);
+        }
+        return match;
+    }
+
+    /**
+     * Matches a field name held in a UTF-8 buffer, decoding it only if it is not plain ASCII.
+     */
+    boolean matches(byte[] utf8, int offset, int length) {
+        int state = start;
+        for (int i = offset, end = offset + length; i < end && !acceptsAll[state] && state != DEAD; i++) {
+            byte b = utf8[i];
+            if (b < 0) {
+                return matches(new String(utf8, offset, length, StandardCharsets.UTF_8));
+            }
+            state = transitions[state * classCount + asciiClasses[b]];
+        }
+        return accepting[state];
+    }
+
+    /**
+     * Same as {@link #matches(byte[], int, int)}, reading the field name from a memory segment.
+     */
+    boolean matches(MemorySegment utf8, long offset, long length) {
+        int state = start;
+        for (long i = offset, end = offset + length; i < end && !acceptsAll[state] && state != DEAD; i++) {
+            byte b = utf8.get(JAVA_BYTE, i);
+            if (b < 0) {
+                return matches(new String(utf8.asSlice(offset, length).toArray(JAVA_BYTE), StandardCharsets.UTF_8));
+            }
+            state = transitions[state * classCount + asciiClasses[b]];
+        }
+        return accepting[state];
+    }
+
+    private int classOf(int codePoint) {
+        int index = Arrays.binarySearch(boundaries, codePoint);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static int id(BitSet set, List<BitSet> sets, Map<BitSet, Integer> ids, ArrayDeque<Integer> pending) {
+        Integer id = ids.get(set);
+        if (id == null) {
+            if (sets.size() == MAX_STATES) {
+                throw new IllegalArgumentException("Field patterns are too complex, they need more than " + MAX_STATES + " states");
+            }
+            id = sets.size();
+            sets.add(set);
+            ids.put(set, id);
+            pending.addLast(id);
+        }
+        return id;
+    }
+
+    /**
+     * Syntax tree of a pattern. Character sets are sorted, disjoint, inclusive ranges of code points.
+     */
+    private sealed interface Node {
+        record Chars(int[] ranges) implements Node {
+        }
+
+        record Sequence(List<Node> nodes) implements Node {
+        }
+
+        record Alternation(List<Node> nodes) implements Node {
+        }
+
+        record Repeat(Node node, int min, int max) implements Node {
+        }
+    }
+
+    /**
+     * Thompson construction: every state has at most one character set transition and any number of epsilon transitions.
+     */
+    private static final class Nfa {
+        private final List<int[]> sets = new ArrayList<>();
+        private final List<Integer> targets = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+        private int accept;
+
+        int compile(Node root) {
+            int begin = newState();
+            accept = newState();
+            build(root, begin, accept);
+            return begin;
+        }
+
+        private int newState() {
+            sets.add(null);
+            targets.add(-1);
+            epsilons.add(new ArrayList<>());
+            return sets.size() - 1;
+        }
+
+        private void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        private void build(Node node, int from, int to) {
+            switch (node) {
+                case Node.Chars chars -> {
+                    int state = newState();
+                    epsilon(from, state);
+                    sets.set(state, chars.ranges());
+                    targets.set(state, to);
+                }
+                case Node.Sequence sequence -> {
+                    int current = from;
+                    for (Node child : sequence.nodes()) {
+                        int next = newState();
+                        build(child, current, next);
+                        current = next;
+                    }
+                    epsilon(current, to);
+                }
+                case Node.Alternation alternation -> {
+                    for (Node child : alternation.nodes()) {
+                        build(child, from, to);
+                    }
+                }
+                case Node.Repeat repeat -> {
+                    int current = from;
+                    for (int i = 0; i < repeat.min(); i++) {
+                        int next = newState();
+                        build(repeat.node(), current, next);
+                        current = next;
+                    }
+                    if (repeat.max() < 0) {
+                        int loop = newState();
+                        epsilon(current, loop);
+                        build(repeat.node(), loop, loop);
+                        epsilon(loop, to);
+                    } else {
+                        for (int i = repeat.min(); i < repeat.max(); i++) {
+                            epsilon(current, to);
+                            int next = newState();
+                            build(repeat.node(), current, next);
+                            current = next;
+                        }
+                        epsilon(current, to);
+                    }
+                }
+            }
+        }
+
+        BitSet closure(BitSet set) {
+            BitSet closure = (BitSet) set.clone();
+            ArrayDeque<Integer> stack = new ArrayDeque<>();
+            set.stream().forEach(stack::push);
+            while (!stack.isEmpty()) {
+                for (int next : epsilons.get(stack.pop())) {
+                    if (!closure.get(next)) {
+                        closure.set(next);
+                        stack.push(next);
+                    }
+                }
+            }
+            return closure;
+        }
+
+        BitSet step(BitSet set, int codePoint) {
+            BitSet next = new BitSet();
+            for (int state = set.nextSetBit(0); state >= 0; state = set.nextSetBit(state + 1)) {
+                int[] ranges = sets.get(state);
+                if (ranges != null && contains(ranges, codePoint)) {
+                    next.set(targets.get(state));
+                }
+            }
+            return next.isEmpty() ? next : closure(next);
+        }
+
+        private static boolean contains(int[] ranges, int codePoint) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (codePoint >= ranges[i] && codePoint <= ranges[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Recursive descent parser for both pattern syntaxes.
+     */
+    private static final class Parser {
+        private static final int[] ANY = {0, Character.MAX_CODE_POINT};
+        private static final int[] DIGITS = {'0', '9'};
+        private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+        private static final int[] SPACES = {'\t', '\r', ' ', ' '};
+        // Java's '.' excludes line terminators unless (?s) is set
+        private static final int[] LINE_TERMINATORS = {'\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029'};
+
+        private final String pattern;
+        private final boolean glob;
+        private int pos;
+        private int end;
+        private boolean caseInsensitive;
+        private boolean dotAll;
+
+        Parser(String pattern, boolean glob) {
+            this.pattern = pattern;
+            this.glob = glob;
+            this.end = pattern.length();
+        }
+
+        Node parse() {
+            if (!glob) {
+                flags();
+                if (pos < end && pattern.charAt(pos) == '^') {
+                    pos++;
+                }
+                if (end > pos && pattern.charAt(end - 1) == '$' && !escaped(end - 1)) {
+                    end--;
+                }
+            }
+            Node node = alternation();
+            if (pos != end) {
+                throw invalid();
+            }
+            return node;
+        }
+
+        private void flags() {
+            while (pattern.startsWith("(?", pos) && pos + 2 < end && "is".indexOf(pattern.charAt(pos + 2)) >= 0) {
+                int p = pos + 2;
+                while (p < end && "is".indexOf(pattern.charAt(p)) >= 0) {
+                    caseInsensitive |= pattern.charAt(p) == 'i';
+                    dotAll |= pattern.charAt(p) == 's';
+                    p++;
+                }
+                if (p == end || pattern.charAt(p) != ')') {
+                    throw invalid();
+                }
+                pos = p + 1;
+            }
+        }
+
+        private boolean escaped(int index) {
+            int backslashes = 0;
+            while (index - backslashes - 1 >= pos && pattern.charAt(index - backslashes - 1) == '\\') {
+                backslashes++;
+            }
+            return backslashes % 2 == 1;
+        }
+
+        private Node alternation() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(sequence());
+            while (pos < end && pattern.charAt(pos) == '|') {
+                pos++;
+                alternatives.add(sequence());
+            }
+            return alternatives.size() == 1 ? alternatives.getFirst() : new Node.Alternation(alternatives);
+        }
+
+        private Node sequence() {
+            List<Node> nodes = new ArrayList<>();
+            while (pos < end && pattern.charAt(pos) != '|' && (glob || pattern.charAt(pos) != ')')) {
+                nodes.add(glob ? globAtom() : quantified(regexAtom()));
+            }
+            return new Node.Sequence(nodes);
+        }
+
+        private Node globAtom() {
+            int c = next();
+            return switch (c) {
+                case '*' -> new Node.Repeat(new Node.Chars(ANY), 0, -1);
+                case '?' -> new Node.Chars(ANY);
+                case '\\' -> {
+                    if (pos == end) {
+                        throw invalid();
+                    }
+                    int escaped = next();
+                    yield new Node.Chars(new int[] {escaped, escaped});
+                }
+                default -> new Node.Chars(new int[] {c, c});
+            };
+        }
+
+        private Node regexAtom() {
+            int c = next();
+            return switch (c) {
+                case '(' -> {
+                    if (pattern.startsWith("?:", pos)) {
+                        pos += 2;
+                    } else if (pos < end && pattern.charAt(pos) == '?') {
+                        throw invalid();
+                    }
+                    Node group = alternation();
+                    if (pos == end || pattern.charAt(pos) != ')') {
+                        throw invalid();
+                    }
+                    pos++;
+                    yield group;
+                }
+                case '.' -> new Node.Chars(dotAll ? ANY : complement(LINE_TERMINATORS));
+                case '[' -> new Node.Chars(fold(charClass()));
+                case '\\' -> new Node.Chars(fold(escape()));
+                case '*', '+', '?', '{', ')', '^', '$' -> throw invalid();
+                default -> new Node.Chars(fold(new int[] {c, c}));
+            };
+        }
+
+        private Node quantified(Node atom) {
+            if (pos == end) {
+                return atom;
+            }
+            int min;
+            int max;
+            switch (pattern.charAt(pos)) {
+                case '*' -> {
+                    min = 0;
+                    max = -1;
+                }
+                case '+' -> {
+                    min = 1;
+                    max = -1;
+                }
+                case '?' -> {
+                    min = 0;
+                    max = 1;
+                }
+                case '{' -> {
+                    int close = pattern.indexOf('}', pos);
+                    if (close < 0 || close >= end) {
+                        throw invalid();
+                    }
+                    String[] bounds = pattern.substring(pos + 1, close).split(",", -1);
+                    try {
+                        min = Integer.parseInt(bounds[0]);
+                        max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+                    } catch (NumberFormatException e) {
+                        throw invalid();
+                    }
+                    if (bounds.length > 2 || min > MAX_REPETITION || max > MAX_REPETITION || (max >= 0 && max < min)) {
+                        throw invalid();
+                    }
+                    pos = close;
+                }
+                default -> {
+                    return atom;
+                }
+            }
+            pos++;
+            if (pos < end && pattern.charAt(pos) == '?') {
+                // Lazy quantifiers match the same whole names
+                pos++;
+            } else if (pos < end && pattern.charAt(pos) == '+') {
+                throw invalid();
+            }
+            return quantified(new Node.Repeat(atom, min, max));
+        }
+
+        private int[] charClass() {
+            boolean negated = pos < end && pattern.charAt(pos) == '^';
+            if (negated) {
+                pos++;
+            }
+            List<int[]> parts = new ArrayList<>();
+            boolean first = true;
+            while (pos < end && (first || pattern.charAt(pos) != ']')) {
+                first = false;
+                int c = next();
+                if (c == '[' || (c == '&' && pos < end && pattern.charAt(pos) == '&')) {
+                    throw invalid();
+                }
+                int[] low = c == '\\' ? escape() : new int[] {c, c};
+                if (low.length == 2 && low[0] == low[1] && pos + 1 < end && pattern.charAt(pos) == '-' && pattern.charAt(pos + 1) != ']') {
+                    pos++;
+                    int h = next();
+                    int[] high = h == '\\' ? escape() : new int[] {h, h};
+                    if (high.length != 2 || high[0] != high[1] || high[0] < low[0]) {
+                        throw invalid();
+                    }
+                    parts.add(new int[] {low[0], high[0]});
+                } else {
+                    parts.add(low);
+                }
+            }
+            if (pos == end) {
+                throw invalid();
+            }
+            pos++;
+            int[] ranges = normalize(parts);
+            // Java folds case before negating
+            return negated ? complement(fold(ranges)) : ranges;
+        }
+
+        private int[] escape() {
+            if (pos == end) {
+                throw invalid();
+            }
+            int c = next();
+            return switch (c) {
+                case 'd' -> DIGITS;
+                case 'D' -> complement(DIGITS);
+                case 'w' -> WORD;
+                case 'W' -> complement(WORD);
+                case 's' -> SPACES;
+                case 'S' -> complement(SPACES);
+                case 't' -> new int[] {'\t', '\t'};
+                case 'n' -> new int[] {'\n', '\n'};
+                case 'r' -> new int[] {'\r', '\r'};
+                case 'f' -> new int[] {'\f', '\f'};
+                case 'e' -> new int[] {0x1B, 0x1B};
+                case 'x' -> single(hex(2));
+                case 'u' -> single(hex(4));
+                default -> {
+                    if (Character.isLetterOrDigit(c)) {
+                        // Back references, boundaries, property classes and the like
+                        throw invalid();
+                    }
+                    yield new int[] {c, c};
+                }
+            };
+        }
+
+        /**
+         * Reads the next code point of the pattern, so supplementary characters are literals of their own.
+         */
+        private int next() {
+            int c = pattern.codePointAt(pos);
+            pos += Character.charCount(c);
+            return c;
+        }
+
+        private int hex(int digits) {
+            if (pos + digits > end) {
+                throw invalid();
+            }
+            try {
+                int value = Integer.parseInt(pattern.substring(pos, pos + digits), 16);
+                pos += digits;
+                return value;
+            } catch (NumberFormatException e) {
+                throw invalid();
+            }
+        }
+
+        private static int[] single(int c) {
+            return new int[] {c, c};
+        }
+
+        /**
+         * Adds the other case of ASCII letters, matching Java's {@code (?i)} without {@code (?u)}.
+         */
+        private int[] fold(int[] ranges) {
+            if (!caseInsensitive) {
+                return ranges;
+            }
+            List<int[]> parts = new ArrayList<>();
+            parts.add(ranges);
+            for (int i = 0; i < ranges.length; i += 2) {
+                addShifted(parts, ranges[i], ranges[i + 1], 'a', 'z', 'A' - 'a');
+                addShifted(parts, ranges[i], ranges[i + 1], 'A', 'Z', 'a' - 'A');
+            }
+            return normalize(parts);
+        }
+
+        private static void addShifted(List<int[]> parts, int low, int high, int from, int to, int shift) {
+            int l = Math.max(low, from);
+            int h = Math.min(high, to);
+            if (l <= h) {
+                parts.add(new int[] {l + shift, h + shift});
+            }
+        }
+
+        private static int[] normalize(List<int[]> parts) {
+            List<int[]> ranges = new ArrayList<>();
+            for (int[] part : parts) {
+                for (int i = 0; i < part.length; i += 2) {
+                    ranges.add(new int[] {part[i], part[i + 1]});
+                }
+            }
+            ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+            int[] merged = new int[ranges.size() * 2];
+            int size = 0;
+            for (int[] range : ranges) {
+                if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                    merged[size - 1] = Math.max(merged[size - 1], range[1]);
+                } else {
+                    merged[size++] = range[0];
+                    merged[size++] = range[1];
+                }
+            }
+            return Arrays.copyOf(merged, size);
+        }
+
+        private static int[] complement(int[] ranges) {
+            int[] result = new int[ranges.length + 2];
+            int size = 0;
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) {
+                    result[size++] = next;
+                    result[size++] = ranges[i] - 1;
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= Character.MAX_CODE_POINT) {
+                result[size++] = next;
+                result[size++] = Character.MAX_CODE_POINT;
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        private IllegalArgumentException invalid() {
+            return new IllegalArgumentException("Invalid field " + (glob ? "pattern: " : "regex: ") + pattern);
+        }
+    }
+}
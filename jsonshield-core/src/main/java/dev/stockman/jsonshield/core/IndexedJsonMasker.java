@@ -0,0 +1,330 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+
+/**
+ * Stage two of the indexed engine: a single use, validating parser that walks the structural index
+ * produced by a {@link StructuralIndexer} instead of the individual bytes. String bodies and whitespace
+ * are never visited again; only field names are compared and only scalars are validated.
+ * The depth, token and string length limits of the configuration are checked as the index is walked.
+ */
+final class IndexedJsonMasker {
+    private static final byte OBJECT = 1;
+    private static final byte MASKED = 2;
+    private static final int INDEX_SIZE = 4096;
+
+    private final Utf8Masks masks;
+    private final StructuralIndexer indexer;
+    private final byte[] in;
+    private final MemorySegment segment;
+    private final int end;
+    private final Utf8Splicer splicer;
+    private final int maxDepth;
+    private final long maxTokens;
+    private final int maxStringLength;
+    private long tokens;
+
+    private final int[] index = new int[INDEX_SIZE];
+    private int count;
+    private int cursor;
+
+    private byte[] stack = new byte[32];
+    // Path automaton state of each open object, and of the value currently read inside each open container
+    private int[] containerStates = new int[32];
+    private int[] valueStates = new int[32];
+    private int depth;
+
+    IndexedJsonMasker(Utf8Masks masks, StructuralIndexer indexer, byte[] in, int offset, int length) {
+        this.masks = masks;
+        this.indexer = indexer;
+        this.in = in;
+        this.segment = MemorySegment.ofArray(in);
+        this.end = offset + length;
+        this.splicer = new Utf8Splicer(segment, offset, length);
+        this.maxDepth = masks.limits.getMaxDepth();
+        this.maxTokens = masks.limits.getMaxTokens();
+        this.maxStringLength = masks.limits.getMaxStringLength();
+    }
+
+    /**
+     * Masks the input.
+     *
+     * @return the masked document, or null if the input did not require any change
+     * @throws InvalidJsonException if the input is not valid JSON
+     */
+    byte[] mask() {
+        int p = next();
+        if (p == end) {
+            // Empty content is treated as null, matching the other engines
+            return Utf8Masks.NULL.clone();
+        }
+        while (true) {
+            boolean maskValue = depth == 0 ? masks.maskScalarRoot : (stack[depth - 1] & MASKED) != 0;
+            int state = !masks.trackPaths ? JsonPathAutomaton.DEAD : depth == 0 ? masks.paths.root() : valueStates[depth - 1];
+            countToken();
+            switch (in[p]) {
+                case '{' -> {
+                    push(OBJECT, state, JsonPathAutomaton.DEAD);
+                    p = next();
+                    if (p == end || in[p] != '}') {
+                        p = readName(p);
+                        continue;
+                    }
+                    countToken();
+                    depth--;
+                }
+                case '[' -> {
+                    int elementState = masks.paths.element(state);
+                    boolean maskElements = depth == 0 ? masks.maskRootArray : maskValue;
+                    if (masks.trackPaths) {
+                        maskElements = masks.configuration.shouldMaskElement(elementState, maskElements);
+                    }
+                    push(maskElements ? MASKED : 0, state, elementState);
+                    p = checkValue(next());
+                    if (in[p] != ']') {
+                        continue;
+                    }
+                    countToken();
+                    depth--;
+                }
+                case '"' -> {
+                    int stop = next() + 1;
+                    checkStringLength(stop - p - 2);
+                    if (maskValue) {
+                        splicer.replace(p, stop, masks.stringMask(segment, p, stop));
+                    }
+                }
+                case '}', ']', ':', ',' -> throw Utf8Json.unexpected(segment, p);
+                default -> scalar(p, maskValue);
+            }
+            p = afterValue();
+            if (p == end) {
+                return splicer.finish();
+            }
+        }
+    }
+
+    /**
+     * Consumes separators and closing brackets following a value.
+     *
+     * @return the position of the next value, or the end of input if the document is complete
+     */
+    private int afterValue() {
+        while (depth > 0) {
+            int p = next();
+            if (p == end) {
+                throw Utf8Json.endOfInput();
+            }
+            boolean inObject = (stack[depth - 1] & OBJECT) != 0;
+            if (in[p] == ',') {
+                p = next();
+                return inObject ? readName(p) : checkValue(p);
+            } else if (in[p] == (inObject ? '}' : ']')) {
+                countToken();
+                depth--;
+            } else {
+                throw Utf8Json.unexpected(segment, p);
+            }
+        }
+        int p = next();
+        if (p != end) {
+            throw Utf8Json.unexpected(segment, p);
+        }
+        return end;
+    }
+
+    /**
+     * Reads a field name and its colon.
+     *
+     * @param p the position of the opening quote
+     * @return the position of the value
+     */
+    private int readName(int p) {
+        if (p == end) {
+            throw Utf8Json.endOfInput();
+        } else if (in[p] != '"') {
+            throw Utf8Json.unexpected(segment, p);
+        }
+        countToken();
+        int start = p + 1;
+        int stop = next();
+        checkStringLength(stop - start);
+        boolean mask = masks.trackPaths
+                ? shouldMaskPath(start, stop)
+                : isEscaped(start, stop)
+                ? masks.configuration.shouldMask(Utf8Json.decode(segment, start, stop))
+                : masks.configuration.shouldMask(in, start, stop - start);
+        stack[depth - 1] = mask ? OBJECT | MASKED : OBJECT;
+        p = next();
+        if (p == end) {
+            throw Utf8Json.endOfInput();
+        } else if (in[p] != ':') {
+            throw Utf8Json.unexpected(segment, p);
+        }
+        return checkValue(next());
+    }
+
+    /**
+     * Advances the path state of the current object over the field name in [start, stop) and decides its value.
+     */
+    private boolean shouldMaskPath(int start, int stop) {
+        int state;
+        boolean mask;
+        if (isEscaped(start, stop)) {
+            String name = Utf8Json.decode(segment, start, stop);
+            state = masks.paths.field(containerStates[depth - 1], name);
+            mask = masks.configuration.shouldMask(name, state);
+        } else {
+            state = masks.paths.field(containerStates[depth - 1], in, start, stop - start);
+            mask = masks.configuration.shouldMask(in, start, stop - start, state);
+        }
+        valueStates[depth - 1] = state;
+        return mask;
+    }
+
+    private int checkValue(int p) {
+        if (p == end) {
+            throw Utf8Json.endOfInput();
+        }
+        return p;
+    }
+
+    private boolean isEscaped(int start, int stop) {
+        for (int p = start; p < stop; p++) {
+            if (in[p] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validates the literal or number starting at the given position, which ends at the next structural
+     * character minus any whitespace, and masks it if required.
+     */
+    private void scalar(int start, boolean maskValue) {
+        int stop = peek();
+        while (Utf8Json.isWhitespace(in[stop - 1])) {
+            stop--;
+        }
+        byte[] mask;
+        switch (in[start]) {
+            case 't' -> {
+                literal(start, stop, Utf8Masks.TRUE);
+                mask = masks.booleanMask;
+            }
+            case 'f' -> {
+                literal(start, stop, Utf8Masks.FALSE);
+                mask = masks.booleanMask;
+            }
+            case 'n' -> {
+                literal(start, stop, Utf8Masks.NULL);
+                return;
+            }
+            default -> mask = number(start, stop) ? masks.decimalMask : masks.numberMask;
+        }
+        if (maskValue) {
+            splicer.replace(start, stop, mask);
+        }
+    }
+
+    private void literal(int start, int stop, byte[] expected) {
+        if (!Arrays.equals(in, start, stop, expected, 0, expected.length)) {
+            throw Utf8Json.unexpected(segment, start);
+        }
+    }
+
+    /**
+     * Validates a number spanning exactly the given range.
+     *
+     * @return true if the number has a fraction or an exponent
+     */
+    private boolean number(int start, int stop) {
+        int p = start;
+        if (in[p] == '-') {
+            p++;
+        }
+        if (p < stop && in[p] == '0') {
+            p++;
+        } else {
+            p = digits(p, stop);
+        }
+        boolean decimal = false;
+        if (p < stop && in[p] == '.') {
+            p = digits(p + 1, stop);
+            decimal = true;
+        }
+        if (p < stop && (in[p] == 'e' || in[p] == 'E')) {
+            p++;
+            if (p < stop && (in[p] == '+' || in[p] == '-')) {
+                p++;
+            }
+            p = digits(p, stop);
+            decimal = true;
+        }
+        if (p != stop) {
+            throw Utf8Json.unexpected(segment, p);
+        }
+        return decimal;
+    }
+
+    /**
+     * Skips one or more digits.
+     */
+    private int digits(int p, int stop) {
+        int start = p;
+        while (p < stop && in[p] >= '0' && in[p] <= '9') {
+            p++;
+        }
+        if (p == start) {
+            throw p < end ? Utf8Json.unexpected(segment, p) : Utf8Json.endOfInput();
+        }
+        return p;
+    }
+
+    private int next() {
+        int p = peek();
+        if (p != end) {
+            cursor++;
+        }
+        return p;
+    }
+
+    private int peek() {
+        if (cursor == count) {
+            count = indexer.fill(index);
+            cursor = 0;
+            if (count == 0) {
+                return end;
+            }
+        }
+        return index[cursor];
+    }
+
+    private void countToken() {
+        if (++tokens > maxTokens) {
+            throw masks.limits.exceeded(JsonShieldLimits.Limit.TOKENS);
+        }
+    }
+
+    private void checkStringLength(int length) {
+        if (length > maxStringLength) {
+            throw masks.limits.exceeded(JsonShieldLimits.Limit.STRING_LENGTH);
+        }
+    }
+
+    private void push(byte frame, int containerState, int valueState) {
+        if (depth == maxDepth) {
+            throw masks.limits.exceeded(JsonShieldLimits.Limit.DEPTH);
+        }
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            containerStates = Arrays.copyOf(containerStates, depth * 2);
+            valueStates = Arrays.copyOf(valueStates, depth * 2);
+        }
+        containerStates[depth] = containerState;
+        valueStates[depth] = valueState;
+        stack[depth++] = frame;
+    }
+}
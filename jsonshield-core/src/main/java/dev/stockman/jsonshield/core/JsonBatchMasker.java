@@ -0,0 +1,49 @@
+package dev.stockman.jsonshield.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Masks a batch of JSON strings on an executor by splitting it into one contiguous chunk per worker,
+ * so each worker masks its chunk with a single {@link JsonShield#maskAll(List)} call and setup is
+ * shared within the chunk. Results are joined in the order of the input.
+ */
+final class JsonBatchMasker {
+
+    private JsonBatchMasker() {
+    }
+
+    static List<String> mask(JsonShield jsonShield, List<String> jsons, Executor executor) {
+        int size = jsons.size();
+        int chunks = Math.min(size, parallelism(executor));
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            List<String> chunk = jsons.subList((int) ((long) size * i / chunks), (int) ((long) size * (i + 1) / chunks));
+            futures.add(CompletableFuture.supplyAsync(() -> jsonShield.maskAll(chunk), executor));
+        }
+        List<String> masked = new ArrayList<>(size);
+        try {
+            for (CompletableFuture<List<String>> future : futures) {
+                masked.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return masked;
+    }
+
+    /**
+     * Returns the number of tasks the executor runs at once, assuming one per processor if it cannot be told.
+     */
+    static int parallelism(Executor executor) {
+        return executor instanceof ForkJoinPool pool ? pool.getParallelism() : Runtime.getRuntime().availableProcessors();
+    }
+}
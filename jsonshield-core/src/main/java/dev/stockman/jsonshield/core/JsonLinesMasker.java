@@ -0,0 +1,81 @@
+package dev.stockman.jsonshield.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Masks a stream of newline delimited or concatenated JSON values in parallel while keeping their order.
+ * Records are grouped into batches which are masked on the executor; at most a fixed number of batches
+ * are in flight, and they are written in submission order, so memory stays bounded however long the stream is.
+ */
+final class JsonLinesMasker {
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final int BATCH_RECORDS = 1024;
+
+    private final JsonShield jsonShield;
+    private final Executor executor;
+    private final int window;
+
+    JsonLinesMasker(JsonShield jsonShield, Executor executor) {
+        this.jsonShield = jsonShield;
+        this.executor = executor;
+        // Twice the parallelism keeps every worker busy while the oldest batch is written
+        this.window = Math.max(2, JsonBatchMasker.parallelism(executor) * 2);
+    }
+
+    void mask(InputStream in, OutputStream out) throws IOException {
+        JsonRecordReader reader = new JsonRecordReader(in, jsonShield.getLimits());
+        ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>(window);
+        try {
+            List<byte[]> batch;
+            while (!(batch = readBatch(reader)).isEmpty()) {
+                if (pending.size() == window) {
+                    out.write(pending.removeFirst().join());
+                }
+                List<byte[]> records = batch;
+                pending.addLast(CompletableFuture.supplyAsync(() -> maskBatch(records), executor));
+            }
+            while (!pending.isEmpty()) {
+                out.write(pending.removeFirst().join());
+            }
+        } catch (CompletionException e) {
+            pending.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        out.flush();
+    }
+
+    private static List<byte[]> readBatch(JsonRecordReader reader) throws IOException {
+        List<byte[]> batch = new ArrayList<>();
+        int bytes = 0;
+        byte[] record;
+        while (bytes < BATCH_BYTES && batch.size() < BATCH_RECORDS && (record = reader.next()) != null) {
+            batch.add(record);
+            bytes += record.length;
+        }
+        return batch;
+    }
+
+    private byte[] maskBatch(List<byte[]> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] record : records) {
+            out.writeBytes(record == JsonRecordReader.REDACTED ? jsonShield.getLimits().redactedUtf8() : jsonShield.mask(record));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+}
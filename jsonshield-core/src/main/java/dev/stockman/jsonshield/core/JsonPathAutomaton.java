@@ -0,0 +1,376 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic automaton over the path segments of a JSON document, compiled from path rules such as
+ * {@code $.payment.cardNumber}, {@code $.addresses[*].street} or {@code $..cvv}.
+ * <p>
+ * Engines keep one int state per open container instead of the path itself: the state of a value is
+ * {@link #field(int, String)} of its object's state, or {@link #element(int)} of its array's state, starting
+ * from {@link #root()}. Each step is a table lookup, so paths are never built or compared as Strings.
+ * A matched array passes the match on to its elements, the same way array elements inherit the name of their
+ * field; a matched object does not, its fields are decided by their own names and paths.
+ * <p>
+ * Supported segments are {@code .name}, {@code ['name']}, {@code .*}, {@code [*]} and the descendant
+ * forms {@code ..name} and {@code ..*}. Instances are immutable and thread safe.
+ */
+public final class JsonPathAutomaton {
+    /**
+     * State from which no rule can match anymore. Every transition out of it leads back to it.
+     */
+    public static final int DEAD = 0;
+
+    private static final int MAX_STATES = 4096;
+    private static final JsonPathAutomaton EMPTY = new JsonPathAutomaton(List.of());
+
+    private final Map<String, Integer> names;
+    private final Utf8NameTable utf8Names;
+    private final int stride;
+    private final int root;
+    // Per state: stride field transitions, with slot 0 for names that no rule spells out
+    private final int[] fields;
+    private final int[] elements;
+    private final boolean[] accepting;
+    private final boolean[] named;
+
+    private JsonPathAutomaton(List<String> rules) {
+        List<Step[]> compiled = new ArrayList<>(rules.size());
+        Map<String, Integer> names = new LinkedHashMap<>();
+        for (String rule : rules) {
+            Step[] steps = parse(rule);
+            for (Step step : steps) {
+                if (step.name != null) {
+                    names.putIfAbsent(step.name, names.size());
+                }
+            }
+            compiled.add(steps);
+        }
+        this.names = Map.copyOf(names);
+        this.utf8Names = new Utf8NameTable(names.keySet());
+        this.stride = names.size() + 1;
+
+        Nfa nfa = new Nfa(compiled);
+        List<BitSet> sets = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        // The empty set is the dead state
+        id(new BitSet(), sets, ids, pending);
+        pending.clear();
+        this.root = id(nfa.start(), sets, ids, pending);
+
+        int[] fields = new int[16 * stride];
+        int[] elements = new int[16];
+        String[] byId = names.keySet().toArray(String[]::new);
+        while (!pending.isEmpty()) {
+            int state = pending.removeFirst();
+            BitSet set = sets.get(state);
+            if (fields.length < (state + 1) * stride) {
+                fields = Arrays.copyOf(fields, Math.max(fields.length * 2, (state + 1) * stride));
+            }
+            if (elements.length <= state) {
+                elements = Arrays.copyOf(elements, Math.max(elements.length * 2, state + 1));
+            }
+            fields[state * stride] = id(nfa.field(set, null), sets, ids, pending);
+            for (int i = 0; i < byId.length; i++) {
+                fields[state * stride + i + 1] = id(nfa.field(set, byId[i]), sets, ids, pending);
+            }
+            elements[state] = id(nfa.element(set), sets, ids, pending);
+        }
+        int size = sets.size();
+        this.fields = Arrays.copyOf(fields, size * stride);
+        this.elements = Arrays.copyOf(elements, size);
+        this.accepting = new boolean[size];
+        this.named = new boolean[size];
+        for (int state = 0; state < size; state++) {
+            accepting[state] = nfa.accepts(sets.get(state));
+            for (int i = 1; i < stride; i++) {
+                named[state] |= this.fields[state * stride + i] != this.fields[state * stride];
+            }
+        }
+    }
+
+    /**
+     * Compiles path rules into an automaton.
+     *
+     * @param rules the path rules, each starting with {@code $}
+     * @return the automaton matching any of the rules
+     * @throws IllegalArgumentException if a rule is malformed, or the rules together need too many states
+     */
+    static JsonPathAutomaton compile(Collection<String> rules) {
+        return rules.isEmpty() ? EMPTY : new JsonPathAutomaton(List.copyOf(rules));
+    }
+
+    /**
+     * Returns a literal field name that any document matched by the rule must contain.
+     *
+     * @return the name, or null if the rule consists of wildcards only
+     */
+    static String requiredName(String rule) {
+        String name = null;
+        for (Step step : parse(rule)) {
+            name = step.name == null ? name : step.name;
+        }
+        return name;
+    }
+
+    /**
+     * @return true if there are no path rules, in which case every state is {@link #DEAD}
+     */
+    public boolean isEmpty() {
+        return root == DEAD;
+    }
+
+    /**
+     * @return the state of the root value of a document
+     */
+    public int root() {
+        return root;
+    }
+
+    /**
+     * Advances from the state of an object to the state of one of its fields.
+     *
+     * @param state the state of the object
+     * @param fieldName the name of the field
+     * @return the state of the field's value
+     */
+    public int field(int state, String fieldName) {
+        if (!named[state]) {
+            return fields[state * stride];
+        }
+        Integer id = names.get(fieldName);
+        return fields[state * stride + (id == null ? 0 : id + 1)];
+    }
+
+    /**
+     * Advances from the state of an object to the state of one of its fields, reading the field name straight
+     * from a UTF-8 buffer without decoding it. The bytes must hold the unescaped field name.
+     *
+     * @param state the state of the object
+     * @param utf8 the buffer holding the UTF-8 encoded field name
+     * @param offset the offset of the field name in the buffer
+     * @param length the number of bytes of the field name
+     * @return the state of the field's value
+     */
+    public int field(int state, byte[] utf8, int offset, int length) {
+        if (!named[state]) {
+            return fields[state * stride];
+        }
+        return fields[state * stride + utf8Names.indexOf(utf8, offset, length) + 1];
+    }
+
+    /**
+     * Same as {@link #field(int, byte[], int, int)}, reading the field name from a memory segment.
+     */
+    int field(int state, MemorySegment utf8, long offset, long length) {
+        if (!named[state]) {
+            return fields[state * stride];
+        }
+        return fields[state * stride + utf8Names.indexOf(utf8, offset, length) + 1];
+    }
+
+    /**
+     * Advances from the state of an array to the state of its elements.
+     *
+     * @param state the state of the array
+     * @return the state of every element of the array
+     */
+    public int element(int state) {
+        return elements[state];
+    }
+
+    /**
+     * @param state the state of a value
+     * @return true if a path rule matches the value
+     */
+    public boolean matches(int state) {
+        return accepting[state];
+    }
+
+    private static int id(BitSet set, List<BitSet> sets, Map<BitSet, Integer> ids, ArrayDeque<Integer> pending) {
+        Integer id = ids.get(set);
+        if (id == null) {
+            if (sets.size() == MAX_STATES) {
+                throw new IllegalArgumentException("Path rules are too complex, they need more than " + MAX_STATES + " states");
+            }
+            id = sets.size();
+            sets.add(set);
+            ids.put(set, id);
+            pending.addLast(id);
+        }
+        return id;
+    }
+
+    private static Step[] parse(String rule) {
+        if (rule == null || rule.isEmpty() || rule.charAt(0) != '$') {
+            throw invalid(rule);
+        }
+        List<Step> steps = new ArrayList<>();
+        int pos = 1;
+        while (pos < rule.length()) {
+            boolean descendant = false;
+            char c = rule.charAt(pos);
+            if (c == '.') {
+                pos++;
+                if (pos < rule.length() && rule.charAt(pos) == '.') {
+                    descendant = true;
+                    pos++;
+                    if (pos < rule.length() && rule.charAt(pos) == '[') {
+                        pos = bracket(rule, pos, true, steps);
+                        continue;
+                    }
+                }
+                int start = pos;
+                while (pos < rule.length() && rule.charAt(pos) != '.' && rule.charAt(pos) != '[') {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw invalid(rule);
+                }
+                String name = rule.substring(start, pos);
+                steps.add(new Step(false, name.equals("*") ? null : name, descendant));
+            } else if (c == '[') {
+                pos = bracket(rule, pos, false, steps);
+            } else {
+                throw invalid(rule);
+            }
+        }
+        return steps.toArray(Step[]::new);
+    }
+
+    /**
+     * Parses {@code [*]}, {@code ['name']} or {@code ["name"]} starting at the opening bracket.
+     *
+     * @return the position after the closing bracket
+     */
+    private static int bracket(String rule, int pos, boolean descendant, List<Step> steps) {
+        pos++;
+        if (rule.startsWith("*]", pos)) {
+            steps.add(new Step(true, null, descendant));
+            return pos + 2;
+        }
+        if (pos >= rule.length() || (rule.charAt(pos) != '\'' && rule.charAt(pos) != '"')) {
+            throw invalid(rule);
+        }
+        char quote = rule.charAt(pos++);
+        StringBuilder name = new StringBuilder();
+        while (pos < rule.length() && rule.charAt(pos) != quote) {
+            char c = rule.charAt(pos++);
+            if (c == '\\' && pos < rule.length()) {
+                c = rule.charAt(pos++);
+            }
+            name.append(c);
+        }
+        if (pos >= rule.length() || !rule.startsWith("]", pos + 1)) {
+            throw invalid(rule);
+        }
+        steps.add(new Step(false, name.toString(), descendant));
+        return pos + 2;
+    }
+
+    private static IllegalArgumentException invalid(String rule) {
+        return new IllegalArgumentException("Invalid path rule: " + rule);
+    }
+
+    /**
+     * One segment of a rule: an element of an array, or a field with the given name, any field if it is null.
+     * A descendant segment may first skip any number of levels.
+     */
+    private record Step(boolean element, String name, boolean descendant) {
+    }
+
+    /**
+     * Nondeterministic automaton with one state per position in each rule, plus one state for the elements
+     * of matched arrays, which stays matched through nested arrays only.
+     */
+    private static final class Nfa {
+        private final Step[][] rules;
+        private final int[] offsets;
+        private final int inherit;
+
+        Nfa(List<Step[]> rules) {
+            this.rules = rules.toArray(Step[][]::new);
+            this.offsets = new int[this.rules.length];
+            int size = 0;
+            for (int r = 0; r < this.rules.length; r++) {
+                offsets[r] = size;
+                size += this.rules[r].length + 1;
+            }
+            this.inherit = size;
+        }
+
+        BitSet start() {
+            BitSet set = new BitSet();
+            for (int offset : offsets) {
+                set.set(offset);
+            }
+            return set;
+        }
+
+        boolean accepts(BitSet set) {
+            if (set.get(inherit)) {
+                return true;
+            }
+            for (int r = 0; r < rules.length; r++) {
+                if (set.get(offsets[r] + rules[r].length)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @param name the field name, or null for a name that no rule spells out
+         */
+        BitSet field(BitSet set, String name) {
+            BitSet next = new BitSet();
+            for (int r = 0; r < rules.length; r++) {
+                Step[] steps = rules[r];
+                for (int i = 0; i < steps.length; i++) {
+                    if (set.get(offsets[r] + i)) {
+                        Step step = steps[i];
+                        if (!step.element && (step.name == null || step.name.equals(name))) {
+                            next.set(offsets[r] + i + 1);
+                        }
+                        if (step.descendant) {
+                            next.set(offsets[r] + i);
+                        }
+                    }
+                }
+            }
+            return next;
+        }
+
+        BitSet element(BitSet set) {
+            BitSet next = new BitSet();
+            for (int r = 0; r < rules.length; r++) {
+                Step[] steps = rules[r];
+                for (int i = 0; i < steps.length; i++) {
+                    if (set.get(offsets[r] + i)) {
+                        Step step = steps[i];
+                        if (step.element) {
+                            next.set(offsets[r] + i + 1);
+                        }
+                        if (step.descendant) {
+                            next.set(offsets[r] + i);
+                        }
+                    }
+                }
+            }
+            if (accepts(set)) {
+                next.set(inherit);
+            }
+            return next;
+        }
+    }
+}
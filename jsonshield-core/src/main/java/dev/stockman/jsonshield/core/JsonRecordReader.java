@@ -0,0 +1,189 @@
+package dev.stockman.jsonshield.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a UTF-8 stream of newline delimited or concatenated JSON values into one byte array per root value.
+ * Only brackets, quotes and escapes are tracked to find where a value ends; the values themselves are not
+ * validated, so malformed content yields a record that the masking engine rejects.
+ * Whitespace between values, including blank lines, is dropped.
+ * <p>
+ * The input length limit is checked against each record, and a generous bound on the string length limit
+ * against each string in it, as the record is read, so an oversized record is never held in memory.
+ */
+final class JsonRecordReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // An escaped character takes at most six bytes, so longer strings exceed the limit however it is measured
+    private static final int MAX_BYTES_PER_CHAR = 6;
+
+    /**
+     * Returned in place of a record that exceeded a limit when redaction is enabled; the record was skipped.
+     */
+    static final byte[] REDACTED = new byte[0];
+
+    private final InputStream in;
+    private final JsonShieldLimits limits;
+    private final long maxStringBytes;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private byte[] record = new byte[256];
+    private int recordLength;
+
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private long stringBytes;
+    private long longestString;
+
+    JsonRecordReader(InputStream in, JsonShieldLimits limits) {
+        this.in = in;
+        this.limits = limits;
+        this.maxStringBytes = (long) limits.getMaxStringLength() * MAX_BYTES_PER_CHAR;
+    }
+
+    /**
+     * Reads the next root value.
+     *
+     * @return the UTF-8 bytes of the value, {@link #REDACTED} if it exceeded a limit and redaction is enabled,
+     * or null at the end of the stream
+     * @throws JsonShieldLimitExceededException if the value exceeds a limit and redaction is disabled
+     * @throws IOException if reading the stream fails
+     */
+    byte[] next() throws IOException {
+        if (!skipWhitespace()) {
+            return null;
+        }
+        recordLength = 0;
+        depth = 0;
+        inString = false;
+        escaped = false;
+        longestString = 0;
+        boolean scalar = buffer[pos] != '{' && buffer[pos] != '[' && buffer[pos] != '"';
+        boolean redacted = false;
+        while (true) {
+            int start = pos;
+            int stop = scalar ? scanScalar() : scanValue();
+            int length = (stop < 0 ? limit : stop) - start;
+            // Once a limit is exceeded, the rest of the record is only scanned to find where it ends
+            redacted = redacted || exceedsLimits(length);
+            if (!redacted) {
+                append(start, length);
+            }
+            if (stop >= 0) {
+                pos = stop;
+                return redacted ? REDACTED : Arrays.copyOf(record, recordLength);
+            }
+            pos = limit;
+            if (!fill()) {
+                // Incomplete value, left to the masking engine to reject
+                return redacted ? REDACTED : Arrays.copyOf(record, recordLength);
+            }
+        }
+    }
+
+    /**
+     * Checks the record with the given number of bytes appended against the limits.
+     *
+     * @return true if a limit is exceeded and redaction is enabled
+     * @throws JsonShieldLimitExceededException if a limit is exceeded and redaction is disabled
+     */
+    private boolean exceedsLimits(int length) {
+        try {
+            limits.checkInputLength((long) recordLength + length);
+            if (longestString > maxStringBytes) {
+                throw limits.exceeded(JsonShieldLimits.Limit.STRING_LENGTH);
+            }
+            return false;
+        } catch (JsonShieldLimitExceededException e) {
+            if (!limits.isRedacting()) {
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Scans an object, array or string from the current position.
+     *
+     * @return the position right after the value, or -1 if it continues past the buffered bytes
+     */
+    private int scanValue() {
+        for (int p = pos; p < limit; p++) {
+            byte c = buffer[p];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    longestString = Math.max(longestString, stringBytes);
+                    if (depth == 0) {
+                        return p + 1;
+                    }
+                    continue;
+                }
+                stringBytes++;
+            } else if (c == '"') {
+                inString = true;
+                stringBytes = 0;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return p + 1;
+            }
+        }
+        if (inString) {
+            longestString = Math.max(longestString, stringBytes);
+        }
+        return -1;
+    }
+
+    /**
+     * Scans a number or literal, which ends at whitespace or at the start of another value.
+     *
+     * @return the position right after the value, or -1 if it continues past the buffered bytes
+     */
+    private int scanScalar() {
+        for (int p = pos; p < limit; p++) {
+            byte c = buffer[p];
+            if (Utf8Json.isWhitespace(c) || c == '{' || c == '[' || c == '"') {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private boolean skipWhitespace() throws IOException {
+        while (true) {
+            while (pos < limit) {
+                if (!Utf8Json.isWhitespace(buffer[pos])) {
+                    return true;
+                }
+                pos++;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        pos = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    private void append(int offset, int length) {
+        if (recordLength + length > record.length) {
+            record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + length));
+        }
+        System.arraycopy(buffer, offset, record, recordLength, length);
+        recordLength += length;
+    }
+}
@@ -1,5 +1,21 @@
 package dev.stockman.jsonshield.core;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
 public interface JsonShield {
     /**
      * Masks sensitive data in a JSON string by replacing values with predefined masks.
@@ -16,6 +32,8 @@ public interface JsonShield {
      * @return a new JSON string with masked values
      * @throws NullPointerException if the input JSON string is null
      * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldLimitExceededException if the input exceeds a limit of the configuration
+     * and redaction is disabled, see {@link JsonShieldLimits}
      * @throws JsonShieldException if an error occurs during the masking process
      */
     String mask(String json);
@@ -34,7 +52,325 @@ public interface JsonShield {
      * @param obj the object to be masked
      * @return a JSON string with masked values
      * @throws NullPointerException if the input object is null
+     * @throws IllegalArgumentException if the implementation cannot convert objects of this type to JSON
      * @throws JsonShieldException if an error occurs during the masking process
      */
     String mask(Object obj);
+
+    /**
+     * Defers masking a JSON string until its result is first needed, applying the same rules as {@link #mask(String)}.
+     * Meant for log statements, so a suppressed statement never pays for masking.
+     *
+     * @param json the JSON string to be masked
+     * @return a wrapper masking the string on its first {@link LazyMaskedJson#toString()} and keeping the result
+     * @throws NullPointerException if the input JSON string is null
+     */
+    default LazyMaskedJson lazy(String json) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        return new LazyMaskedJson(() -> mask(json));
+    }
+
+    /**
+     * Defers masking a Java object until its result is first needed, applying the same rules as {@link #mask(Object)}.
+     * The object must not be modified until it has been masked.
+     *
+     * @param obj the object to be masked
+     * @return a wrapper masking the object on its first {@link LazyMaskedJson#toString()} and keeping the result
+     * @throws NullPointerException if the input object is null
+     */
+    default LazyMaskedJson lazy(Object obj) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        return new LazyMaskedJson(() -> mask(obj));
+    }
+
+    /**
+     * Masks a JSON string asynchronously on the default {@link VirtualThreadMaskingExecutor}, which runs
+     * every call on its own virtual thread, caps how many calls mask at once and queues a bounded number
+     * of calls over the cap.
+     *
+     * @param json the JSON string to be masked
+     * @return a future completed with the masked JSON string, or exceptionally with the exception
+     * {@link #mask(String)} throws
+     * @throws NullPointerException if the input JSON string is null
+     * @throws java.util.concurrent.RejectedExecutionException if the default executor's queue is full
+     * @see #maskAsync(String, Executor)
+     */
+    default CompletableFuture<String> maskAsync(String json) {
+        return maskAsync(json, VirtualThreadMaskingExecutor.DEFAULT);
+    }
+
+    /**
+     * Masks a JSON string asynchronously on the given executor, applying the same rules as {@link #mask(String)}.
+     * A future cancelled before the executor gets to it is not masked at all. How many calls mask at once
+     * is up to the executor: only a {@link VirtualThreadMaskingExecutor} caps them.
+     *
+     * @param json the JSON string to be masked
+     * @param executor the executor to mask on
+     * @return a future completed with the masked JSON string, or exceptionally with the exception
+     * {@link #mask(String)} throws
+     * @throws NullPointerException if any argument is null
+     * @throws java.util.concurrent.RejectedExecutionException if the executor does not accept the call
+     */
+    default CompletableFuture<String> maskAsync(String json, Executor executor) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        return CompletableFuture.supplyAsync(() -> mask(json), executor);
+    }
+
+    /**
+     * Masks a Java object asynchronously on the default {@link VirtualThreadMaskingExecutor}, which runs
+     * every call on its own virtual thread, caps how many calls mask at once and queues a bounded number
+     * of calls over the cap.
+     * The object must not be modified until the future completes.
+     *
+     * @param obj the object to be masked
+     * @return a future completed with the masked JSON string, or exceptionally with the exception
+     * {@link #mask(Object)} throws
+     * @throws NullPointerException if the input object is null
+     * @throws java.util.concurrent.RejectedExecutionException if the default executor's queue is full
+     * @see #maskAsync(Object, Executor)
+     */
+    default CompletableFuture<String> maskAsync(Object obj) {
+        return maskAsync(obj, VirtualThreadMaskingExecutor.DEFAULT);
+    }
+
+    /**
+     * Masks a Java object asynchronously on the given executor, applying the same rules as {@link #mask(Object)}.
+     * The object must not be modified until the future completes. A future cancelled before the executor
+     * gets to it is not masked at all. How many calls mask at once is up to the executor: only a
+     * {@link VirtualThreadMaskingExecutor} caps them.
+     *
+     * @param obj the object to be masked
+     * @param executor the executor to mask on
+     * @return a future completed with the masked JSON string, or exceptionally with the exception
+     * {@link #mask(Object)} throws
+     * @throws NullPointerException if any argument is null
+     * @throws java.util.concurrent.RejectedExecutionException if the executor does not accept the call
+     */
+    default CompletableFuture<String> maskAsync(Object obj, Executor executor) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        return CompletableFuture.supplyAsync(() -> mask(obj), executor);
+    }
+
+    /**
+     * Masks sensitive data in UTF-8 encoded JSON, applying the same rules as {@link #mask(String)}.
+     * The default implementation decodes the input into a String; implementations override it to
+     * work on the bytes directly.
+     *
+     * @param json the UTF-8 encoded JSON to be masked
+     * @return a new array holding the masked UTF-8 encoded JSON
+     * @throws NullPointerException if the input is null
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldException if an error occurs during the masking process
+     */
+    default byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        return mask(new String(json, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Masks a UTF-8 encoded JSON document read from a stream and writes the result to another stream,
+     * applying the same rules as {@link #mask(String)}. Neither stream is closed; the output is flushed.
+     *
+     * @param in the stream to read a single JSON document from
+     * @param out the stream to write the masked JSON to
+     * @throws NullPointerException if either stream is null
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldLimitExceededException if the input exceeds a limit of the configuration
+     * and redaction is disabled, checked while the input is read
+     * @throws JsonShieldException if reading, writing or masking fails
+     */
+    default void mask(InputStream in, OutputStream out) {
+        Objects.requireNonNull(in, "Input stream cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        JsonShieldLimits limits = getLimits();
+        try {
+            byte[] masked;
+            try {
+                masked = mask(limits.readAllBytes(in));
+            } catch (JsonShieldLimitExceededException e) {
+                masked = limits.redactUtf8(e);
+            }
+            out.write(masked);
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    /**
+     * Masks a JSON document read from a Reader and writes the result to a Writer,
+     * applying the same rules as {@link #mask(String)}. Neither is closed; the Writer is flushed.
+     *
+     * @param in the Reader to read a single JSON document from
+     * @param out the Writer to write the masked JSON to
+     * @throws NullPointerException if either argument is null
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldLimitExceededException if the input exceeds a limit of the configuration
+     * and redaction is disabled, checked while the input is read
+     * @throws JsonShieldException if reading, writing or masking fails
+     */
+    default void mask(Reader in, Writer out) {
+        Objects.requireNonNull(in, "Input Reader cannot be null");
+        Objects.requireNonNull(out, "Output Writer cannot be null");
+        JsonShieldLimits limits = getLimits();
+        try {
+            String masked;
+            try {
+                masked = mask(limits.readAll(in));
+            } catch (JsonShieldLimitExceededException e) {
+                masked = limits.redact(e);
+            }
+            out.write(masked);
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    /**
+     * Masks a batch of JSON strings, applying the same rules as {@link #mask(String)} to each of them.
+     * The default implementation masks the strings one by one; implementations override it to share
+     * parser, generator and output buffer setup across the batch.
+     *
+     * @param jsons the JSON strings to be masked
+     * @return a new list holding the masked JSON strings in the order of the input
+     * @throws NullPointerException if the list or any of its elements is null
+     * @throws InvalidJsonException if any of the strings is not valid JSON
+     * @throws JsonShieldException if an error occurs during the masking process
+     */
+    default List<String> maskAll(List<String> jsons) {
+        Objects.requireNonNull(jsons, "Input JSON list cannot be null");
+        List<String> masked = new ArrayList<>(jsons.size());
+        for (String json : jsons) {
+            masked.add(mask(json));
+        }
+        return masked;
+    }
+
+    /**
+     * Masks a batch of JSON strings on the given executor, applying the same rules as {@link #mask(String)}
+     * to each of them. The list is split into one contiguous chunk per worker of the executor, each chunk is
+     * masked with {@link #maskAll(List)}, and the results are joined in the order of the input.
+     * The list must not be modified while it is being masked.
+     *
+     * @param jsons the JSON strings to be masked
+     * @param executor the executor to mask chunks of the batch on
+     * @return a new list holding the masked JSON strings in the order of the input
+     * @throws NullPointerException if any argument or any element of the list is null
+     * @throws InvalidJsonException if any of the strings is not valid JSON
+     * @throws JsonShieldException if an error occurs during the masking process
+     */
+    default List<String> maskAll(List<String> jsons, Executor executor) {
+        Objects.requireNonNull(jsons, "Input JSON list cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        return JsonBatchMasker.mask(this, jsons, executor);
+    }
+
+    /**
+     * Masks a batch of UTF-8 encoded JSON documents, applying the same rules as {@link #mask(byte[])} to each
+     * of them and passing the results to the consumer in the order of the input. The default implementation
+     * masks the documents one by one; implementations override it to share parser, generator and output
+     * buffer setup across the batch. Every array passed to the consumer is a new array owned by the caller.
+     * <p>
+     * If a document cannot be masked, the documents before it have already been passed to the consumer.
+     *
+     * @param jsons the UTF-8 encoded JSON documents to be masked
+     * @param consumer the consumer receiving the masked documents
+     * @throws NullPointerException if any argument or any element of the batch is null
+     * @throws InvalidJsonException if any of the documents is not valid JSON
+     * @throws JsonShieldException if an error occurs during the masking process
+     */
+    default void maskAll(Iterable<byte[]> jsons, Consumer<byte[]> consumer) {
+        Objects.requireNonNull(jsons, "Input JSON batch cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        for (byte[] json : jsons) {
+            consumer.accept(mask(json));
+        }
+    }
+
+    /**
+     * Masks a UTF-8 encoded JSON file into another file, applying the same rules as {@link #mask(String)}.
+     * The default implementation streams the file through {@link #mask(InputStream, OutputStream)}, so heap
+     * usage is that of the engine: constant for the streaming engines, the size of the tree for tree based ones.
+     * The output file is created or replaced, and left incomplete if the input is not valid JSON.
+     *
+     * @param in the file to read a single JSON document from
+     * @param out the file to write the masked JSON to
+     * @throws NullPointerException if either path is null
+     * @throws IllegalArgumentException if both paths denote the same file
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldException if reading, writing or masking fails
+     */
+    default void maskFile(Path in, Path out) {
+        Objects.requireNonNull(in, "Input path cannot be null");
+        Objects.requireNonNull(out, "Output path cannot be null");
+        try (InputStream input = Files.newInputStream(in)) {
+            if (Files.exists(out) && Files.isSameFile(in, out)) {
+                throw new IllegalArgumentException("Input and output cannot be the same file");
+            }
+            try (OutputStream output = Files.newOutputStream(out)) {
+                mask(input, output);
+            }
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON file", e);
+        }
+    }
+
+    /**
+     * Masks a UTF-8 stream of newline delimited JSON records, or of root values concatenated without
+     * any separator, masking the records in parallel on the common fork/join pool.
+     *
+     * @param in the stream to read the records from
+     * @param out the stream to write the masked records to
+     * @throws NullPointerException if either stream is null
+     * @throws InvalidJsonException if a record is not valid JSON
+     * @throws JsonShieldException if reading, writing or masking fails
+     * @see #maskLines(InputStream, OutputStream, Executor)
+     */
+    default void maskLines(InputStream in, OutputStream out) {
+        maskLines(in, out, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Masks a UTF-8 stream of newline delimited JSON records, or of root values concatenated without
+     * any separator, applying the same rules as {@link #mask(String)} to each record. Records are masked
+     * in batches on the given executor and written in their original order, each followed by a newline,
+     * so concatenated input comes out newline delimited. Only a bounded number of batches is held in
+     * memory at any time. Neither stream is closed; the output is flushed.
+     * <p>
+     * If a record cannot be masked, the records before it may already have been written. The limits of the
+     * configuration apply to each record and are checked while it is read, so an oversized record is
+     * rejected, or skipped and redacted, without being held in memory.
+     *
+     * @param in the stream to read the records from
+     * @param out the stream to write the masked records to
+     * @param executor the executor to mask batches of records on
+     * @throws NullPointerException if any argument is null
+     * @throws InvalidJsonException if a record is not valid JSON
+     * @throws JsonShieldLimitExceededException if a record exceeds a limit of the configuration
+     * and redaction is disabled
+     * @throws JsonShieldException if reading, writing or masking fails
+     */
+    default void maskLines(InputStream in, OutputStream out, Executor executor) {
+        Objects.requireNonNull(in, "Input stream cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        try {
+            new JsonLinesMasker(this, executor).mask(in, out);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    /**
+     * Returns the limits this implementation checks the documents it reads against, which the default
+     * stream methods also apply while reading. Implementations without limits need not override it.
+     *
+     * @return the limits, never null
+     */
+    default JsonShieldLimits getLimits() {
+        return JsonShieldLimits.UNLIMITED;
+    }
 }
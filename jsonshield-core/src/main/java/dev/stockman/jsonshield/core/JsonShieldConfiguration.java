@@ -1,26 +1,69 @@
 package dev.stockman.jsonshield.core;
 
+import java.lang.foreign.MemorySegment;
 import java.util.*;
 
 /**
  * Configuration for field masking strategy and field sets.
  * Supports both whitelist (show only specified fields) and blacklist (mask only specified fields) strategies.
+ * Besides bare field names, glob and regular expression patterns select fields by the shape of their name,
+ * and path rules such as {@code $.payment.id} select values by their position in the document. Both are
+ * compiled into automata when the configuration is built. Optionally, a {@link PiiDetector} scans string values
+ * that would be shown for personal data, such as card numbers, and masks them regardless of their field.
+ * Masked strings are replaced by the string mask, or by deterministic tokens from a {@link ValueTokenizer}.
+ * {@link JsonShieldLimits} bound the size and shape of the documents the engines accept.
  */
 public class JsonShieldConfiguration {
     private final Set<String> fields;
+    private final Utf8NameTable utf8Fields;
+    private final FieldPatternMatcher patterns;
+    private final JsonPathAutomaton paths;
+    private final boolean maskScalarRoot;
+    private final PiiDetector piiDetector;
+    private final QuotedKeyMatcher keyMatcher;
+    private final QuotedKeyMatcher utf8KeyMatcher;
     private final Strategy strategy;
     private final String stringMask;
+    private final ValueTokenizer tokenizer;
     private final Double decimalMask;
     private final Boolean booleanMask;
     private final Integer numberMask;
+    private final JsonShieldLimits limits;
 
     private JsonShieldConfiguration(Builder builder) {
         this.fields = Set.copyOf(builder.fields);
+        this.utf8Fields = new Utf8NameTable(this.fields);
+        this.patterns = builder.patterns.isEmpty() && builder.regexes.isEmpty()
+                ? null
+                : new FieldPatternMatcher(List.copyOf(builder.patterns), List.copyOf(builder.regexes));
+        this.paths = JsonPathAutomaton.compile(builder.paths);
         this.strategy = builder.strategy;
+        this.piiDetector = builder.piiTypes.isEmpty() ? null : new PiiDetector(builder.piiTypes, builder.piiBudget);
+        this.maskScalarRoot = paths.matches(paths.root()) ? strategy == Strategy.BLACKLIST : strategy == Strategy.WHITELIST;
+        // Only a blacklist lets a document without any configured key pass unmasked,
+        // unless the empty name is listed, which masks the elements of root arrays,
+        // or field patterns are configured, which may match any key, or PII detection, which may mask any value
+        Set<String> keys = new HashSet<>(this.fields);
+        boolean prescan = builder.strategy == Strategy.BLACKLIST && !this.fields.contains("") && patterns == null
+                && piiDetector == null;
+        for (String path : builder.paths) {
+            // A path can only match documents holding its last literal name; one without any can match anything
+            String name = JsonPathAutomaton.requiredName(path);
+            if (name == null) {
+                prescan = false;
+            } else {
+                keys.add(name);
+            }
+        }
+        this.keyMatcher = prescan ? new QuotedKeyMatcher(keys, false) : null;
+        this.utf8KeyMatcher = prescan ? new QuotedKeyMatcher(keys, true) : null;
         this.stringMask = builder.stringMask;
+        this.tokenizer = builder.tokenKey == null ? null : new ValueTokenizer(builder.tokenKey, builder.tokenCacheCapacity);
         this.decimalMask = builder.decimalMask;
         this.booleanMask = builder.booleanMask;
         this.numberMask = builder.numberMask;
+        this.limits = new JsonShieldLimits(builder.maxInputLength, builder.maxDepth, builder.maxTokens,
+                builder.maxStringLength, builder.limitRedaction, builder.stringMask);
     }
 
     /**
@@ -32,15 +75,121 @@ public class JsonShieldConfiguration {
      * @return true if the field's value should be masked, false if it should be unmasked
      */
     public boolean shouldMask(String fieldName) {
-        return (strategy == Strategy.WHITELIST) != fields.contains(fieldName);
+        return (strategy == Strategy.WHITELIST) != (fields.contains(fieldName) || patterns != null && patterns.matches(fieldName));
+    }
+
+    /**
+     * Determines if a field's value should be masked based on the masking strategy,
+     * reading the field name straight from a UTF-8 buffer without decoding it.
+     * The bytes must hold the unescaped field name.
+     *
+     * @param utf8 the buffer holding the UTF-8 encoded field name
+     * @param offset the offset of the field name in the buffer
+     * @param length the number of bytes of the field name
+     * @return true if the field's value should be masked, false if it should be unmasked
+     */
+    public boolean shouldMask(byte[] utf8, int offset, int length) {
+        return (strategy == Strategy.WHITELIST) != (utf8Fields.contains(utf8, offset, length)
+                || patterns != null && patterns.matches(utf8, offset, length));
+    }
+
+    /**
+     * Same as {@link #shouldMask(byte[], int, int)}, reading the field name from a memory segment.
+     */
+    boolean shouldMask(MemorySegment utf8, long offset, long length) {
+        return (strategy == Strategy.WHITELIST) != (utf8Fields.contains(utf8, offset, length)
+                || patterns != null && patterns.matches(utf8, offset, length));
+    }
+
+    /**
+     * Determines if a value should be masked, taking path rules into account. A value matched by a path rule
+     * is masked under the blacklist strategy and shown under the whitelist strategy; any other value is
+     * decided by {@link #shouldMask(String)}.
+     *
+     * @param fieldName the name of the field holding the value, inherited by array elements
+     * @param pathState the state of the value in {@link #getPathAutomaton()}
+     * @return true if the value should be masked, false if it should be unmasked
+     */
+    public boolean shouldMask(String fieldName, int pathState) {
+        return paths.matches(pathState) ? strategy == Strategy.BLACKLIST : shouldMask(fieldName);
+    }
+
+    /**
+     * Same as {@link #shouldMask(String, int)}, reading the field name straight from a UTF-8 buffer
+     * like {@link #shouldMask(byte[], int, int)}.
+     */
+    public boolean shouldMask(byte[] utf8, int offset, int length, int pathState) {
+        return paths.matches(pathState) ? strategy == Strategy.BLACKLIST : shouldMask(utf8, offset, length);
     }
 
     /**
-     * Determines if the root of a JSON object should be masked based on the masking strategy.
+     * Same as {@link #shouldMask(String, int)}, reading the field name from a memory segment.
+     */
+    boolean shouldMask(MemorySegment utf8, long offset, long length, int pathState) {
+        return paths.matches(pathState) ? strategy == Strategy.BLACKLIST : shouldMask(utf8, offset, length);
+    }
+
+    /**
+     * Determines if an array element should be masked from the decision of its array, taking path rules into account.
+     */
+    boolean shouldMaskElement(int pathState, boolean arrayMasked) {
+        return paths.matches(pathState) ? strategy == Strategy.BLACKLIST : arrayMasked;
+    }
+
+    /**
+     * Retrieves the automaton compiled from the path rules. Engines track one state of it per open container
+     * to apply path rules; without path rules every state is {@link JsonPathAutomaton#DEAD}.
+     *
+     * @return the path automaton, never null
+     */
+    public JsonPathAutomaton getPathAutomaton() {
+        return paths;
+    }
+
+    /**
+     * Retrieves the detector scanning string values that would be shown for personal data. Engines that
+     * support detection start a {@link PiiDetector#newScan()} per document and mask the values it reports.
+     *
+     * @return the PII detector, or null if detection is disabled
+     */
+    public PiiDetector getPiiDetector() {
+        return piiDetector;
+    }
+
+    /**
+     * Quickly checks whether a JSON document may hold any value to be masked, scanning the raw text once
+     * for the quoted form of the configured fields. This allows engines to skip masking documents that
+     * cannot contain sensitive data. Text containing escape sequences is always reported as requiring
+     * masking, since an escaped field name may spell a configured one. Unquoted and single quoted names
+     * are not found, so engines must only rely on this check for documents their parser reads strictly.
+     *
+     * @param json the JSON text to check
+     * @return false if no value of the document can be masked, true if it may have to be
+     */
+    public boolean requiresMasking(CharSequence json) {
+        return keyMatcher == null || keyMatcher.find(json);
+    }
+
+    /**
+     * Quickly checks whether UTF-8 encoded JSON may hold any value to be masked,
+     * like {@link #requiresMasking(CharSequence)}.
+     *
+     * @param utf8 the buffer holding the UTF-8 encoded JSON
+     * @param offset the offset of the JSON in the buffer
+     * @param length the number of bytes of the JSON
+     * @return false if no value of the document can be masked, true if it may have to be
+     */
+    public boolean requiresMasking(byte[] utf8, int offset, int length) {
+        return utf8KeyMatcher == null || utf8KeyMatcher.find(utf8, offset, length);
+    }
+
+    /**
+     * Determines if the root of a JSON object should be masked based on the masking strategy,
+     * or on the path rule {@code $} if there is one.
      * @return true if the root should be masked, false if it should be unmasked
      */
     public boolean shouldMaskScalarRoot() {
-        return strategy == Strategy.WHITELIST;
+        return maskScalarRoot;
     }
 
     /**
@@ -52,6 +201,25 @@ public class JsonShieldConfiguration {
         return stringMask;
     }
 
+    /**
+     * Retrieves the mask of a string value: its token if tokenization is enabled, the string mask otherwise.
+     *
+     * @param value the raw string value to be masked
+     * @return the token or string mask replacing the value, null if the value is to be replaced by null
+     */
+    public String getStringMask(String value) {
+        return tokenizer == null ? stringMask : tokenizer.tokenize(value);
+    }
+
+    /**
+     * Retrieves the tokenizer replacing masked string values with deterministic tokens.
+     *
+     * @return the tokenizer, or null if tokenization is disabled
+     */
+    public ValueTokenizer getTokenizer() {
+        return tokenizer;
+    }
+
     /**
      * Retrieves the decimal value used for masking fields with decimal values.
      * This value is applied to fields of type Double during the masking process.
@@ -80,6 +248,15 @@ public class JsonShieldConfiguration {
         return numberMask;
     }
 
+    /**
+     * Retrieves the limits on the documents the engines accept.
+     *
+     * @return the limits, never null
+     */
+    public JsonShieldLimits getLimits() {
+        return limits;
+    }
+
     /**
      * Creates a builder for whitelist strategy where only specified fields will be shown unmasked.
      * @return a new builder instance configured for whitelist strategy
@@ -101,11 +278,23 @@ public class JsonShieldConfiguration {
      */
     public static class Builder {
         private final Set<String> fields = new HashSet<>();
+        private final Set<String> patterns = new LinkedHashSet<>();
+        private final Set<String> regexes = new LinkedHashSet<>();
+        private final Set<String> paths = new LinkedHashSet<>();
+        private final Set<PiiType> piiTypes = EnumSet.noneOf(PiiType.class);
+        private int piiBudget = MaskConstants.DEFAULT_PII_BUDGET;
         private final Strategy strategy;
         private String stringMask = MaskConstants.DEFAULT_STRING_MASK;
+        private byte[] tokenKey;
+        private int tokenCacheCapacity;
         private Integer numberMask = MaskConstants.DEFAULT_NUMBER_MASK;
         private Boolean booleanMask = MaskConstants.DEFAULT_BOOLEAN_MASK;
         private Double decimalMask = MaskConstants.DEFAULT_DECIMAL_MASK;
+        private long maxInputLength = Long.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private long maxTokens = Long.MAX_VALUE;
+        private int maxStringLength = Integer.MAX_VALUE;
+        private boolean limitRedaction;
 
         Builder(Strategy strategy) {
             this.strategy = strategy;
@@ -141,6 +330,113 @@ public class JsonShieldConfiguration {
             return this;
         }
 
+        /**
+         * Adds a glob pattern matching field names, such as {@code *Token}, {@code card*} or {@code ssn|tin|ein}.
+         * {@code *} matches any run of characters, {@code ?} any single character, {@code |} separates
+         * alternatives and {@code \} escapes the next character. Fields whose whole name matches are treated
+         * like configured fields.
+         * @param pattern the glob pattern
+         * @return the current builder instance, for method chaining
+         */
+        public Builder addFieldPattern(String pattern) {
+            patterns.add(pattern);
+            return this;
+        }
+
+        /**
+         * Adds a set of glob patterns matching field names, see {@link #addFieldPattern(String)}.
+         * @param patterns the glob patterns to be added
+         * @return the current builder instance, for method chaining
+         */
+        public Builder addFieldPatterns(String... patterns) {
+            this.patterns.addAll(Arrays.asList(patterns));
+            return this;
+        }
+
+        /**
+         * Adds a regular expression matching field names, such as {@code (?i).*password.*}. Fields whose whole
+         * name matches are treated like configured fields. The {@link java.util.regex.Pattern} syntax is
+         * supported except for constructs a finite automaton cannot express, such as back references and
+         * lookaround; inline flags are limited to a leading {@code (?i)} or {@code (?s)}.
+         * @param regex the regular expression
+         * @return the current builder instance, for method chaining
+         */
+        public Builder addFieldRegex(String regex) {
+            regexes.add(regex);
+            return this;
+        }
+
+        /**
+         * Adds a set of regular expressions matching field names, see {@link #addFieldRegex(String)}.
+         * @param regexes the regular expressions to be added
+         * @return the current builder instance, for method chaining
+         */
+        public Builder addFieldRegexes(String... regexes) {
+            this.regexes.addAll(Arrays.asList(regexes));
+            return this;
+        }
+
+        /**
+         * Adds a path rule, such as {@code $.payment.cardNumber}, {@code $.addresses[*].street} or {@code $..cvv}.
+         * Values matched by a path rule are treated like values of a configured field.
+         * @param path the path rule, starting with {@code $}
+         * @return the current builder instance, for method chaining
+         * @see JsonPathAutomaton
+         */
+        public Builder addPath(String path) {
+            paths.add(path);
+            return this;
+        }
+
+        /**
+         * Adds a set of path rules, see {@link #addPath(String)}.
+         * @param paths the path rules to be added
+         * @return the current builder instance, for method chaining
+         */
+        public Builder addPaths(String... paths) {
+            this.paths.addAll(Arrays.asList(paths));
+            return this;
+        }
+
+        /**
+         * Adds a set of path rules, see {@link #addPath(String)}.
+         * @param paths the path rules to be added
+         * @return the current builder instance, for method chaining
+         */
+        public Builder addPaths(Collection<String> paths) {
+            this.paths.addAll(paths);
+            return this;
+        }
+
+        /**
+         * Enables detection of personal data in string values that would otherwise be shown, masking a value
+         * that contains any of the given kinds with the string mask. Detection is supported by the Jackson and
+         * Gson tree engines and by their {@code mask(Object)}; the other engines reject a configuration that
+         * enables it with an {@link IllegalArgumentException}.
+         * @param types the kinds of personal data to detect
+         * @return the current builder instance, for method chaining
+         * @see PiiDetector
+         */
+        public Builder withPiiDetection(PiiType... types) {
+            piiTypes.addAll(Arrays.asList(types));
+            return this;
+        }
+
+        /**
+         * Sets how many characters PII detection scans at most per document, defaults to 65536.
+         * String values beyond the budget are not scanned.
+         * @param maxChars the maximum number of characters to scan per document
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the budget is less than 1
+         */
+        public Builder withPiiDetectionBudget(int maxChars) {
+            if (maxChars < 1) {
+                throw new IllegalArgumentException("PII detection budget must be at least 1");
+            }
+            this.piiBudget = maxChars;
+            return this;
+        }
+
         /**
          * Sets the String to be used when masking a textual field
          * @param stringMask the string to use
@@ -151,6 +447,38 @@ public class JsonShieldConfiguration {
             return this;
         }
 
+        /**
+         * Replaces masked string values with deterministic tokens instead of the string mask, so equal values
+         * can still be correlated across documents, caching the tokens of up to 10000 values.
+         * @param key the secret key of the HMAC-SHA256 the tokens are derived from
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the key is empty
+         * @see ValueTokenizer
+         */
+        public Builder withStringTokenization(byte[] key) {
+            return withStringTokenization(key, MaskConstants.DEFAULT_TOKEN_CACHE_CAPACITY);
+        }
+
+        /**
+         * Replaces masked string values with deterministic tokens, see {@link #withStringTokenization(byte[])}.
+         * @param key the secret key of the HMAC-SHA256 the tokens are derived from
+         * @param cacheCapacity the number of values whose tokens are cached, 0 to disable the cache
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the key is empty, or the capacity is negative or above 2^24
+         */
+        public Builder withStringTokenization(byte[] key, int cacheCapacity) {
+            Objects.requireNonNull(key, "Tokenization key cannot be null");
+            if (key.length == 0) {
+                throw new IllegalArgumentException("Tokenization key cannot be empty");
+            }
+            if (cacheCapacity < 0 || cacheCapacity > 1 << 24) {
+                throw new IllegalArgumentException("Token cache capacity must be between 0 and " + (1 << 24));
+            }
+            this.tokenKey = key.clone();
+            this.tokenCacheCapacity = cacheCapacity;
+            return this;
+        }
+
         /**
          * Sets the number to be used when masking an integer field
          * @param numberMask the number to use
@@ -181,9 +509,86 @@ public class JsonShieldConfiguration {
             return this;
         }
 
+        /**
+         * Limits the length of a document, in bytes for UTF-8 input and in characters for text input.
+         * Longer documents are rejected before they are parsed, or, when read from a stream, as soon as
+         * the limit is crossed. Unlimited by default.
+         * @param maxLength the maximum length of a document
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the maximum is less than 1
+         * @see JsonShieldLimits
+         */
+        public Builder withMaxInputLength(long maxLength) {
+            if (maxLength < 1) {
+                throw new IllegalArgumentException("Maximum input length must be at least 1");
+            }
+            this.maxInputLength = maxLength;
+            return this;
+        }
+
+        /**
+         * Limits how deeply arrays and objects may be nested, where a root array or object has depth 1.
+         * Unlimited by default, though the parser of an engine may impose its own limit.
+         * @param maxDepth the maximum nesting depth
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the maximum is less than 1
+         * @see JsonShieldLimits
+         */
+        public Builder withMaxDepth(int maxDepth) {
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("Maximum depth must be at least 1");
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * Limits the number of tokens of a document: field names, scalar values, and starts and ends of arrays
+         * and objects. Unlimited by default.
+         * @param maxTokens the maximum number of tokens
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the maximum is less than 1
+         * @see JsonShieldLimits
+         */
+        public Builder withMaxTokens(long maxTokens) {
+            if (maxTokens < 1) {
+                throw new IllegalArgumentException("Maximum token count must be at least 1");
+            }
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        /**
+         * Limits the length of a single string value or field name. Unlimited by default, though the parser
+         * of an engine may impose its own limit.
+         * @param maxLength the maximum length of a string
+         * @return the current builder instance, for method chaining
+         * @throws IllegalArgumentException if the maximum is less than 1
+         * @see JsonShieldLimits
+         */
+        public Builder withMaxStringLength(int maxLength) {
+            if (maxLength < 1) {
+                throw new IllegalArgumentException("Maximum string length must be at least 1");
+            }
+            this.maxStringLength = maxLength;
+            return this;
+        }
+
+        /**
+         * Sets whether a document exceeding a limit is redacted as a whole instead of rejected with a
+         * {@link JsonShieldLimitExceededException}, see {@link JsonShieldLimits#isRedacting()}. Disabled by default.
+         * @param redact true to redact documents exceeding a limit
+         * @return the current builder instance, for method chaining
+         */
+        public Builder withLimitRedaction(boolean redact) {
+            this.limitRedaction = redact;
+            return this;
+        }
+
         /**
          * Creates a MaskingConfiguration instance from the current builder state.
          * @return a new MaskingConfiguration instance with the configured strategy and fields
+         * @throws IllegalArgumentException if a field pattern or path rule is malformed or too complex
          */
         public JsonShieldConfiguration build() {
             return new JsonShieldConfiguration(this);
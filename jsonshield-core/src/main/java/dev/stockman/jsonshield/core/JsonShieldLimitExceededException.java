@@ -0,0 +1,40 @@
+package dev.stockman.jsonshield.core;
+
+/**
+ * Thrown when a JSON document exceeds one of the {@link JsonShieldLimits} of the configuration.
+ * It is thrown as soon as the limit is crossed, and without a stack trace, so rejecting an abusive
+ * payload costs as little as possible.
+ */
+public class JsonShieldLimitExceededException extends JsonShieldException {
+    private final JsonShieldLimits.Limit limit;
+    private final long maximum;
+
+    /**
+     * @param limit the limit that was exceeded
+     * @param maximum the maximum allowed by the limit
+     */
+    public JsonShieldLimitExceededException(JsonShieldLimits.Limit limit, long maximum) {
+        super("JSON exceeds the maximum " + limit.description() + " of " + maximum, null);
+        this.limit = limit;
+        this.maximum = maximum;
+    }
+
+    /**
+     * @return the limit that was exceeded
+     */
+    public JsonShieldLimits.Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the maximum allowed by the limit
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,242 @@
+package dev.stockman.jsonshield.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Resource limits for the JSON documents an engine reads, so a single oversized or deeply nested payload
+ * is rejected early instead of tying up a worker. Engines check the limits as they read, and throw a
+ * {@link JsonShieldLimitExceededException} as soon as one is crossed. Optionally, the methods that return
+ * the masked document return the whole document redacted instead, see {@link #isRedacting()}.
+ * <p>
+ * A token is a field name, a scalar value, or the start or end of an array or object, so {@code {"a":[1]}}
+ * holds six tokens. The input length is measured in bytes for UTF-8 input and in characters for text input,
+ * though engines decoding UTF-8 streams into text count characters, and string lengths in characters, except
+ * for the byte level engines, which measure the raw UTF-8 bytes between the quotes. Objects and trees handed
+ * to an engine directly are not checked.
+ * Instances are immutable and thread safe.
+ */
+public final class JsonShieldLimits {
+    static final JsonShieldLimits UNLIMITED = new JsonShieldLimits(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE,
+            Integer.MAX_VALUE, false, null);
+    // Largest array the JVM reliably allocates
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * The kinds of limits.
+     */
+    public enum Limit {
+        /**
+         * The length of the whole document
+         */
+        INPUT_LENGTH("input length"),
+
+        /**
+         * The number of arrays and objects open at once
+         */
+        DEPTH("nesting depth"),
+
+        /**
+         * The number of tokens of the whole document
+         */
+        TOKENS("token count"),
+
+        /**
+         * The length of a single string value or field name
+         */
+        STRING_LENGTH("string length");
+
+        private final String description;
+
+        Limit(String description) {
+            this.description = description;
+        }
+
+        String description() {
+            return description;
+        }
+    }
+
+    private final long maxInputLength;
+    private final int maxDepth;
+    private final long maxTokens;
+    private final int maxStringLength;
+    private final boolean redacting;
+    private final String redacted;
+    private final byte[] redactedUtf8;
+
+    JsonShieldLimits(long maxInputLength, int maxDepth, long maxTokens, int maxStringLength, boolean redacting, String stringMask) {
+        this.maxInputLength = maxInputLength;
+        this.maxDepth = maxDepth;
+        this.maxTokens = maxTokens;
+        this.maxStringLength = maxStringLength;
+        this.redacting = redacting;
+        this.redactedUtf8 = stringMask == null ? Utf8Masks.NULL : Utf8Masks.quote(stringMask);
+        this.redacted = new String(redactedUtf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the maximum length of a document, {@link Long#MAX_VALUE} if unlimited
+     */
+    public long getMaxInputLength() {
+        return maxInputLength;
+    }
+
+    /**
+     * @return the maximum nesting depth of arrays and objects, where a root array or object has depth 1,
+     * {@link Integer#MAX_VALUE} if unlimited
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the maximum number of tokens of a document, {@link Long#MAX_VALUE} if unlimited
+     */
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * @return the maximum length of a string value or field name, {@link Integer#MAX_VALUE} if unlimited
+     */
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * @return true if no limit is set
+     */
+    public boolean isUnlimited() {
+        return maxInputLength == Long.MAX_VALUE && maxDepth == Integer.MAX_VALUE
+                && maxTokens == Long.MAX_VALUE && maxStringLength == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Tells whether a document exceeding a limit is redacted as a whole rather than rejected. Redaction applies
+     * to the methods returning the masked document, such as {@code mask(String)}, {@code mask(byte[])} and
+     * {@code maskAll}, which then return the string mask as a JSON string, or {@code null} if the string mask
+     * is null. Methods writing to a stream, file or buffer throw instead wherever part of the output may
+     * already have been written, which depends on whether the engine buffers the whole document.
+     *
+     * @return true if documents exceeding a limit are redacted
+     */
+    public boolean isRedacting() {
+        return redacting;
+    }
+
+    /**
+     * @throws JsonShieldLimitExceededException if the length exceeds the maximum input length
+     */
+    public void checkInputLength(long length) {
+        if (length > maxInputLength) {
+            throw exceeded(Limit.INPUT_LENGTH);
+        }
+    }
+
+    /**
+     * @throws JsonShieldLimitExceededException if the depth exceeds the maximum depth
+     */
+    public void checkDepth(int depth) {
+        if (depth > maxDepth) {
+            throw exceeded(Limit.DEPTH);
+        }
+    }
+
+    /**
+     * @throws JsonShieldLimitExceededException if the number of tokens exceeds the maximum
+     */
+    public void checkTokens(long tokens) {
+        if (tokens > maxTokens) {
+            throw exceeded(Limit.TOKENS);
+        }
+    }
+
+    /**
+     * @throws JsonShieldLimitExceededException if the length exceeds the maximum string length
+     */
+    public void checkStringLength(long length) {
+        if (length > maxStringLength) {
+            throw exceeded(Limit.STRING_LENGTH);
+        }
+    }
+
+    /**
+     * Reads a whole document from a stream, reading at most one byte past the maximum input length.
+     *
+     * @throws JsonShieldLimitExceededException if the stream holds more than the maximum input length
+     */
+    byte[] readAllBytes(InputStream in) throws IOException {
+        if (maxInputLength >= MAX_ARRAY_LENGTH) {
+            return in.readAllBytes();
+        }
+        byte[] json = in.readNBytes((int) maxInputLength + 1);
+        checkInputLength(json.length);
+        return json;
+    }
+
+    /**
+     * Reads a whole document from a Reader, reading at most one buffer past the maximum input length.
+     *
+     * @throws JsonShieldLimitExceededException if the Reader holds more than the maximum input length
+     */
+    String readAll(Reader in) throws IOException {
+        StringBuilder json = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            checkInputLength((long) json.length() + read);
+            json.append(buffer, 0, read);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Returns the redacted document as UTF-8 encoded JSON, which callers must not modify.
+     */
+    byte[] redactedUtf8() {
+        return redactedUtf8;
+    }
+
+    /**
+     * Creates the exception reporting that a limit is exceeded.
+     *
+     * @param limit the exceeded limit
+     * @return a new exception holding the configured maximum of the limit
+     */
+    public JsonShieldLimitExceededException exceeded(Limit limit) {
+        return new JsonShieldLimitExceededException(limit, switch (limit) {
+            case INPUT_LENGTH -> maxInputLength;
+            case DEPTH -> maxDepth;
+            case TOKENS -> maxTokens;
+            case STRING_LENGTH -> maxStringLength;
+        });
+    }
+
+    /**
+     * Returns the redacted document in place of one that exceeded a limit, if redaction is enabled.
+     *
+     * @param e the exception reporting the exceeded limit
+     * @return the redacted JSON document
+     * @throws JsonShieldLimitExceededException the given exception, if redaction is disabled
+     */
+    public String redact(JsonShieldLimitExceededException e) {
+        if (!redacting) {
+            throw e;
+        }
+        return redacted;
+    }
+
+    /**
+     * Same as {@link #redact(JsonShieldLimitExceededException)}, returning the redacted document
+     * as a new array of UTF-8 encoded JSON.
+     */
+    public byte[] redactUtf8(JsonShieldLimitExceededException e) {
+        if (!redacting) {
+            throw e;
+        }
+        return redactedUtf8.clone();
+    }
+}
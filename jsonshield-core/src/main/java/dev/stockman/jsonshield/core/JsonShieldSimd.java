@@ -0,0 +1,145 @@
+package dev.stockman.jsonshield.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Dependency free implementation of {@link JsonShield} for large documents, masking UTF-8 encoded JSON in two stages
+ * in the spirit of simdjson. The first stage scans the input 64 bytes at a time and indexes the positions of quotes,
+ * operators and scalar values; the second stage walks that index to match field names and splice in masks, skipping
+ * over string bodies and whitespace entirely. Output and masking rules are identical to {@link JsonShieldUtf8}.
+ * <p>
+ * The first stage uses the incubating Vector API when the {@code jdk.incubator.vector} module is available, which
+ * requires the JVM to be started with {@code --add-modules jdk.incubator.vector}. Otherwise it falls back to a scalar
+ * scanner that produces the same index.
+ */
+public class JsonShieldSimd implements JsonShield {
+
+    private static final boolean VECTOR_API_AVAILABLE = probeVectorApi();
+
+    private final Utf8Masks masks;
+    private final boolean vectorized;
+
+    /**
+     * Constructs a new JsonShield instance, using the Vector API if it is available.
+     *
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     */
+    public JsonShieldSimd(JsonShieldConfiguration jsonShieldConfiguration) {
+        this(jsonShieldConfiguration, VECTOR_API_AVAILABLE);
+    }
+
+    /**
+     * Constructs a new JsonShield instance.
+     *
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @param vectorized whether to scan with the Vector API rather than the scalar fallback
+     * @throws NullPointerException if jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     * @throws IllegalStateException if vectorized is requested but the Vector API is not available
+     */
+    public JsonShieldSimd(JsonShieldConfiguration jsonShieldConfiguration, boolean vectorized) {
+        Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (jsonShieldConfiguration.getPiiDetector() != null) {
+            throw new IllegalArgumentException("PII detection is not supported by JsonShieldSimd");
+        }
+        this.masks = new Utf8Masks(jsonShieldConfiguration);
+        if (vectorized && !VECTOR_API_AVAILABLE) {
+            throw new IllegalStateException("Vector API is not available, start the JVM with --add-modules jdk.incubator.vector");
+        }
+        this.vectorized = vectorized;
+    }
+
+    /**
+     * Returns whether the jdk.incubator.vector module is available to this JVM.
+     *
+     * @return true if the vectorized scanner can be used
+     */
+    public static boolean isVectorApiAvailable() {
+        return VECTOR_API_AVAILABLE;
+    }
+
+    /**
+     * Returns whether this instance scans with the Vector API.
+     *
+     * @return true if vectorized, false if the scalar fallback is used
+     */
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    @Override
+    public String mask(String json) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        try {
+            masks.limits.checkInputLength(json.length());
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            byte[] masked = mask(utf8, 0, utf8.length);
+            return masked == null ? json : new String(masked, StandardCharsets.UTF_8);
+        } catch (JsonShieldLimitExceededException e) {
+            return masks.limits.redact(e);
+        }
+    }
+
+    /**
+     * Converts a scalar to JSON and masks it. Having no object mapper, this engine only converts char
+     * sequences and Base64 encoded byte arrays to JSON strings, and booleans and numbers to literals;
+     * the text of a char sequence is never read as JSON, use {@link #mask(String)} for that.
+     *
+     * @param obj a {@link CharSequence}, {@code byte[]}, {@link Boolean} or number
+     * @return a JSON string with masked values
+     * @throws NullPointerException if the input object is null
+     * @throws IllegalArgumentException if the input is of any other type, or a non-finite floating point number
+     */
+    @Override
+    public String mask(Object obj) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        return new String(mask(Utf8Json.scalar(obj, "JsonShieldSimd")), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return masks.limits;
+    }
+
+    /**
+     * Masks sensitive data in UTF-8 encoded JSON.
+     *
+     * @param json the UTF-8 encoded JSON to be masked
+     * @return a new array holding the masked UTF-8 encoded JSON
+     * @throws NullPointerException if the input is null
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldLimitExceededException if the input exceeds a limit and redaction is disabled
+     */
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            masks.limits.checkInputLength(json.length);
+            byte[] masked = mask(json, 0, json.length);
+            return masked == null ? json.clone() : masked;
+        } catch (JsonShieldLimitExceededException e) {
+            return masks.limits.redactUtf8(e);
+        }
+    }
+
+    private byte[] mask(byte[] json, int offset, int length) {
+        StructuralIndexer indexer = vectorized
+                ? new VectorStructuralIndexer(json, offset, length)
+                : new ScalarStructuralIndexer(json, offset, length);
+        return new IndexedJsonMasker(masks, indexer, json, offset, length).mask();
+    }
+
+    private static boolean probeVectorApi() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorStructuralIndexer.lanes() > 0;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package dev.stockman.jsonshield.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Dependency free implementation of {@link JsonShield} that scans UTF-8 encoded JSON with a
+ * hand-written state machine. Untouched ranges of the input are copied to the output as they are,
+ * so the original formatting is preserved, and mask bytes are written only where
+ * {@link JsonShieldConfiguration#shouldMask(String)} says so. Strings are not decoded and numbers
+ * are not parsed, which makes this the fastest engine when no third-party parser is required.
+ * <p>
+ * Numbers with a fraction or an exponent are masked with the decimal mask, all others with the number mask.
+ * Because there is no object mapper, {@link #mask(Object)} only accepts JSON text, either as a
+ * {@link CharSequence} or as UTF-8 encoded {@code byte[]}.
+ * <p>
+ * {@link #mask(ByteBuffer, ByteBuffer)} and {@link #mask(MemorySegment, MemorySegment)} mask between
+ * direct buffers or native memory without copying the document onto the heap, and
+ * {@link #maskFile(Path, Path)} masks memory-mapped files of any size.
+ */
+public class JsonShieldUtf8 implements JsonShield {
+
+    private final Utf8Masks masks;
+
+    /**
+     * Constructs a new JsonShield instance.
+     *
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     */
+    public JsonShieldUtf8(JsonShieldConfiguration jsonShieldConfiguration) {
+        Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (jsonShieldConfiguration.getPiiDetector() != null) {
+            throw new IllegalArgumentException("PII detection is not supported by JsonShieldUtf8");
+        }
+        this.masks = new Utf8Masks(jsonShieldConfiguration);
+    }
+
+    @Override
+    public String mask(String json) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        try {
+            masks.limits.checkInputLength(json.length());
+            byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+            byte[] masked = new Utf8JsonMasker(masks, utf8).mask();
+            return masked == null ? json : new String(masked, StandardCharsets.UTF_8);
+        } catch (JsonShieldLimitExceededException e) {
+            return masks.limits.redact(e);
+        }
+    }
+
+    /**
+     * Converts a scalar to JSON and masks it. Having no object mapper, this engine only converts char
+     * sequences and Base64 encoded byte arrays to JSON strings, and booleans and numbers to literals;
+     * the text of a char sequence is never read as JSON, use {@link #mask(String)} for that.
+     *
+     * @param obj a {@link CharSequence}, {@code byte[]}, {@link Boolean} or number
+     * @return a JSON string with masked values
+     * @throws NullPointerException if the input object is null
+     * @throws IllegalArgumentException if the input is of any other type, or a non-finite floating point number
+     */
+    @Override
+    public String mask(Object obj) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        return new String(mask(Utf8Json.scalar(obj, "JsonShieldUtf8")), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return masks.limits;
+    }
+
+    /**
+     * Masks sensitive data in UTF-8 encoded JSON.
+     *
+     * @param json the UTF-8 encoded JSON to be masked
+     * @return a new array holding the masked UTF-8 encoded JSON
+     * @throws NullPointerException if the input is null
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldLimitExceededException if the input exceeds a limit and redaction is disabled
+     */
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            masks.limits.checkInputLength(json.length);
+            byte[] masked = new Utf8JsonMasker(masks, json).mask();
+            return masked == null ? json.clone() : masked;
+        } catch (JsonShieldLimitExceededException e) {
+            return masks.limits.redactUtf8(e);
+        }
+    }
+
+    /**
+     * Masks a UTF-8 encoded JSON file into another file without loading it onto the heap. The input is
+     * memory-mapped, whatever its size, and the output is written through a bounded buffer,
+     * so heap usage stays constant regardless of the size of the file.
+     *
+     * @param in the file to read a single JSON document from
+     * @param out the file to write the masked JSON to, created or replaced, and left incomplete if the input is not valid JSON
+     * @throws NullPointerException if either path is null
+     * @throws IllegalArgumentException if both paths denote the same file
+     * @throws InvalidJsonException if the input is not valid JSON
+     * @throws JsonShieldException if reading or writing fails
+     */
+    @Override
+    public void maskFile(Path in, Path out) {
+        Objects.requireNonNull(in, "Input path cannot be null");
+        Objects.requireNonNull(out, "Output path cannot be null");
+        try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ); Arena arena = Arena.ofConfined()) {
+            if (Files.exists(out) && Files.isSameFile(in, out)) {
+                throw new IllegalArgumentException("Input and output cannot be the same file");
+            }
+            masks.limits.checkInputLength(source.size());
+            MemorySegment json = source.map(FileChannel.MapMode.READ_ONLY, 0, source.size(), arena);
+            try (FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                new Utf8JsonMasker(masks, json).maskInto(target);
+            }
+        } catch (UncheckedIOException e) {
+            throw new JsonShieldException("Error masking JSON file", e.getCause());
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON file", e);
+        }
+    }
+
+    /**
+     * Masks UTF-8 encoded JSON from one buffer into another, reading and writing heap or direct buffers
+     * in place without copying the document onto the heap. The remaining bytes of {@code src} are read as
+     * a single document and the masked document is written to {@code dst} from its position on.
+     * <p>
+     * On success both positions advance by the bytes consumed and produced. If {@code dst} has too little
+     * room, neither position moves, its remaining bytes are unspecified and {@link MaskResult#required()}
+     * tells how much room is needed.
+     *
+     * @param src the buffer holding the UTF-8 encoded JSON to be masked
+     * @param dst the buffer to write the masked UTF-8 encoded JSON to, not overlapping {@code src}
+     * @return the number of bytes consumed and produced
+     * @throws NullPointerException if either buffer is null
+     * @throws ReadOnlyBufferException if dst is read-only
+     * @throws IllegalArgumentException if the buffers overlap
+     * @throws InvalidJsonException if the input is not valid JSON, in which case neither position moves
+     */
+    public MaskResult mask(ByteBuffer src, ByteBuffer dst) {
+        Objects.requireNonNull(src, "Source buffer cannot be null");
+        Objects.requireNonNull(dst, "Destination buffer cannot be null");
+        if (dst.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        MaskResult result = mask(MemorySegment.ofBuffer(src), MemorySegment.ofBuffer(dst));
+        src.position(src.position() + (int) result.consumed());
+        dst.position(dst.position() + (int) result.produced());
+        return result;
+    }
+
+    /**
+     * Masks UTF-8 encoded JSON from one memory segment into another, reading and writing heap or native
+     * memory in place. The whole of {@code src} is read as a single document and the masked document is
+     * written to the start of {@code dst}. If {@code dst} is too small, nothing is reported as consumed or
+     * produced, its content is unspecified and {@link MaskResult#required()} tells how much room is needed.
+     *
+     * @param src the segment holding the UTF-8 encoded JSON to be masked
+     * @param dst the segment to write the masked UTF-8 encoded JSON to, not overlapping {@code src}
+     * @return the number of bytes consumed and produced
+     * @throws NullPointerException if either segment is null
+     * @throws IllegalArgumentException if dst is read-only or the segments overlap
+     * @throws InvalidJsonException if the input is not valid JSON
+     */
+    public MaskResult mask(MemorySegment src, MemorySegment dst) {
+        Objects.requireNonNull(src, "Source segment cannot be null");
+        Objects.requireNonNull(dst, "Destination segment cannot be null");
+        if (dst.isReadOnly()) {
+            throw new IllegalArgumentException("Destination segment cannot be read-only");
+        } else if (src.asOverlappingSlice(dst).isPresent()) {
+            throw new IllegalArgumentException("Source and destination segments cannot overlap");
+        }
+        masks.limits.checkInputLength(src.byteSize());
+        long required = new Utf8JsonMasker(masks, src).maskInto(dst);
+        return required > dst.byteSize() ? new MaskResult(0, 0, required) : new MaskResult(src.byteSize(), required, required);
+    }
+}
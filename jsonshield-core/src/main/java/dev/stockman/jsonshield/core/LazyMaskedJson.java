@@ -0,0 +1,75 @@
+package dev.stockman.jsonshield.core;
+
+import java.util.function.Supplier;
+
+/**
+ * Masked JSON that is only masked when it is first needed, returned by {@link JsonShield#lazy(String)}
+ * and {@link JsonShield#lazy(Object)}. Pass it as an argument of a log statement, and a logging framework
+ * that formats arguments lazily only pays for masking if the statement is actually logged:
+ * <pre>{@code
+ * log.debug("Request body: {}", jsonShield.lazy(body));
+ * }</pre>
+ * The document is masked by the first call to {@link #toString()}, or to any other method, and the result
+ * is kept for all later calls, on any thread. If masking fails, the exception is thrown from that call and
+ * the next call masks again. The source is held until masking succeeds and must not be modified until then.
+ */
+public final class LazyMaskedJson implements CharSequence, Supplier<String> {
+    private Supplier<String> masking;
+    private volatile String masked;
+
+    LazyMaskedJson(Supplier<String> masking) {
+        this.masking = masking;
+    }
+
+    /**
+     * @return the masked JSON, masking the source on the first call
+     * @throws InvalidJsonException if the source is not valid JSON
+     * @throws JsonShieldException if an error occurs during the masking process
+     */
+    @Override
+    public String toString() {
+        String result = masked;
+        if (result == null) {
+            synchronized (this) {
+                result = masked;
+                if (result == null) {
+                    result = masking.get();
+                    masked = result;
+                    // The source is no longer needed
+                    masking = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #toString()}, for APIs that accept a {@link Supplier}.
+     */
+    @Override
+    public String get() {
+        return toString();
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * @return true if the source has already been masked
+     */
+    public boolean isMasked() {
+        return masked != null;
+    }
+}
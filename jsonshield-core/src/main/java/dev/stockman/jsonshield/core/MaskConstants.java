@@ -7,5 +7,7 @@ final class MaskConstants {
     public static final int DEFAULT_NUMBER_MASK = 0;
     public static final boolean DEFAULT_BOOLEAN_MASK = false;
     public static final double DEFAULT_DECIMAL_MASK = 0.0;
+    public static final int DEFAULT_PII_BUDGET = 65_536;
+    public static final int DEFAULT_TOKEN_CACHE_CAPACITY = 10_000;
 
 }
@@ -0,0 +1,22 @@
+package dev.stockman.jsonshield.core;
+
+/**
+ * Outcome of masking a document from a source buffer into a destination buffer.
+ * When the destination is too small nothing is consumed or produced, and {@link #required()}
+ * tells how much room the masked document needs, so the call can be retried with a larger buffer.
+ *
+ * @param consumed the number of bytes read from the source
+ * @param produced the number of bytes written to the destination
+ * @param required the size of the masked document
+ */
+public record MaskResult(long consumed, long produced, long required) {
+
+    /**
+     * Determines whether the destination was too small to hold the masked document.
+     *
+     * @return true if nothing was written because the masked document did not fit
+     */
+    public boolean overflow() {
+        return produced < required;
+    }
+}
@@ -0,0 +1,288 @@
+package dev.stockman.jsonshield.core;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects personal data, such as payment card numbers and email addresses, inside string values whose field
+ * is not configured to be masked, so that values under new or unexpected field names do not leak.
+ * <p>
+ * Values are scanned in a single pass without regular expressions: digit runs are checked for card numbers
+ * and social security numbers as they are read, with the Luhn sum kept for both parities, an {@code @} starts
+ * an email check of the domain that follows, and an upper case letter at the start of a word an IBAN check.
+ * Every scanner only looks ahead from its trigger, so the cost of a value is linear in its length.
+ * <p>
+ * To bound the cost per document, a {@link Scan} scans at most {@link #getBudget()} characters in total.
+ * Values beyond the budget are not scanned. Instances are immutable and thread safe.
+ */
+public final class PiiDetector {
+    private static final int[] LUHN_DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+    private final Set<PiiType> types;
+    private final int budget;
+    private final boolean cards;
+    private final boolean emails;
+    private final boolean ssns;
+    private final boolean ibans;
+    private final int minLength;
+
+    PiiDetector(Set<PiiType> types, int budget) {
+        this.types = Collections.unmodifiableSet(EnumSet.copyOf(types));
+        this.budget = budget;
+        this.cards = types.contains(PiiType.PAYMENT_CARD);
+        this.emails = types.contains(PiiType.EMAIL);
+        this.ssns = types.contains(PiiType.SSN);
+        this.ibans = types.contains(PiiType.IBAN);
+        // The shortest value each scanner can match: a@b.co, 123-45-6789, 13 card digits and 15 IBAN characters
+        this.minLength = emails ? 6 : ssns ? 11 : cards ? 13 : 15;
+    }
+
+    /**
+     * @return the kinds of personal data detected
+     */
+    public Set<PiiType> getTypes() {
+        return types;
+    }
+
+    /**
+     * @return the number of characters scanned at most per document
+     */
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Starts scanning a document, sharing the budget across all of its values.
+     *
+     * @return a new scan, which may be used by several threads masking the same document
+     */
+    public Scan newScan() {
+        return new Scan();
+    }
+
+    /**
+     * Scans a single value, regardless of the budget.
+     *
+     * @param value the string value
+     * @return true if the value contains personal data of any detected kind
+     */
+    public boolean containsPii(CharSequence value) {
+        return scan(value, value.length());
+    }
+
+    private boolean scan(CharSequence value, int end) {
+        if (end < minLength) {
+            return false;
+        }
+        int i = 0;
+        while (i < end) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (cards || ssns) {
+                    i = digitRun(value, i, end);
+                    if (i < 0) {
+                        return true;
+                    }
+                    continue;
+                }
+            } else if (c == '@') {
+                if (emails && isEmail(value, i, end)) {
+                    return true;
+                }
+            } else if (c >= 'A' && c <= 'Z') {
+                if (ibans && (i == 0 || !isWordChar(value.charAt(i - 1))) && isIban(value, i, end)) {
+                    return true;
+                }
+            }
+            i++;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a run of digits, where single spaces or hyphens may separate groups, and checks it for a card
+     * number or social security number.
+     *
+     * @return the position after the run, or -1 if the run holds personal data
+     */
+    private int digitRun(CharSequence value, int start, int end) {
+        int count = 0;
+        // Luhn sums doubling the digits at even and at odd positions, the right one is known once the run ends
+        int evenSum = 0;
+        int oddSum = 0;
+        int groups = 0;
+        int groupLength = 0;
+        int groupValue = 0;
+        boolean hyphens = true;
+        // Lengths and values of the first three groups, enough to recognize 123-45-6789
+        int lengths = 0;
+        int area = 0;
+        int group = 0;
+        int i = start;
+        while (true) {
+            int digit = value.charAt(i) - '0';
+            if ((count & 1) == 0) {
+                evenSum += LUHN_DOUBLED[digit];
+                oddSum += digit;
+            } else {
+                evenSum += digit;
+                oddSum += LUHN_DOUBLED[digit];
+            }
+            count++;
+            groupLength++;
+            groupValue = groupValue * 10 + digit;
+            i++;
+            if (i < end && isDigit(value.charAt(i))) {
+                continue;
+            }
+            if (groups < 3) {
+                lengths = lengths * 10 + Math.min(groupLength, 9);
+                if (groups == 0) {
+                    area = groupValue;
+                } else if (groups == 1) {
+                    group = groupValue;
+                }
+            }
+            groups++;
+            if (i + 1 < end && (value.charAt(i) == ' ' || value.charAt(i) == '-') && isDigit(value.charAt(i + 1))) {
+                hyphens &= value.charAt(i) == '-';
+                i++;
+                groupLength = 0;
+                groupValue = 0;
+                continue;
+            }
+            break;
+        }
+        if (cards && count >= 13 && count <= 19) {
+            char first = value.charAt(start);
+            if (first >= '2' && first <= '6' && ((count & 1) == 0 ? evenSum : oddSum) % 10 == 0) {
+                return -1;
+            }
+        }
+        if (ssns && groups == 3 && lengths == 324 && hyphens
+                && area != 0 && area != 666 && area < 900 && group != 0 && groupValue != 0) {
+            return -1;
+        }
+        return i;
+    }
+
+    /**
+     * Checks for an email address around the {@code @} at the given position: a local part character before
+     * it, and a domain of at least two labels after it, ending in a top-level domain of two or more letters.
+     */
+    private static boolean isEmail(CharSequence value, int at, int end) {
+        if (at == 0 || !isLocalChar(value.charAt(at - 1))) {
+            return false;
+        }
+        int i = at + 1;
+        int labels = 0;
+        while (true) {
+            int start = i;
+            boolean letters = true;
+            while (i < end && isDomainChar(value.charAt(i))) {
+                letters &= isLetter(value.charAt(i));
+                i++;
+            }
+            if (i == start || value.charAt(start) == '-') {
+                return false;
+            }
+            labels++;
+            if (i + 1 < end && value.charAt(i) == '.' && isDomainChar(value.charAt(i + 1))) {
+                i++;
+                continue;
+            }
+            return labels >= 2 && letters && i - start >= 2;
+        }
+    }
+
+    /**
+     * Checks for an IBAN starting at the given position: a country code, two check digits and the account
+     * number, optionally grouped by four with single spaces, whose mod 97 remainder is 1.
+     */
+    private static boolean isIban(CharSequence value, int start, int end) {
+        if (start + 4 > end || !isIbanChar(value.charAt(start + 1)) || isDigit(value.charAt(start + 1))
+                || !isDigit(value.charAt(start + 2)) || !isDigit(value.charAt(start + 3))) {
+            return false;
+        }
+        // The country code and check digits count last, so the remainder starts after them
+        int remainder = 0;
+        int length = 4;
+        int i = start + 4;
+        while (i < end && length < 35) {
+            char c = value.charAt(i);
+            if (isDigit(c)) {
+                remainder = (remainder * 10 + c - '0') % 97;
+            } else if (c >= 'A' && c <= 'Z') {
+                remainder = (remainder * 100 + c - 'A' + 10) % 97;
+            } else if (c == ' ' && (length & 3) == 0 && i + 1 < end && isIbanChar(value.charAt(i + 1))) {
+                i++;
+                continue;
+            } else {
+                break;
+            }
+            length++;
+            i++;
+        }
+        if (length < 15 || length > 34 || (i < end && isWordChar(value.charAt(i)))) {
+            return false;
+        }
+        for (int j = start; j < start + 4; j++) {
+            char c = value.charAt(j);
+            remainder = isDigit(c) ? (remainder * 10 + c - '0') % 97 : (remainder * 100 + c - 'A' + 10) % 97;
+        }
+        return remainder == 1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c | 0x20) >= 'a' && (c | 0x20) <= 'z';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isDigit(c) || isLetter(c);
+    }
+
+    private static boolean isIbanChar(char c) {
+        return isDigit(c) || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isWordChar(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isWordChar(c) || c == '-';
+    }
+
+    /**
+     * Scans the string values of one document within the detector's budget. The remaining budget is shared
+     * atomically, so the values of a document masked in parallel are scanned within one budget as well.
+     */
+    public final class Scan {
+        private final AtomicLong remaining = new AtomicLong(budget);
+
+        private Scan() {
+        }
+
+        /**
+         * Scans a value, charging its length to the budget. Once the budget runs out, values are not scanned,
+         * and a value crossing the limit is only scanned up to it.
+         *
+         * @param value the string value
+         * @return true if the scanned part of the value contains personal data of any detected kind
+         */
+        public boolean containsPii(CharSequence value) {
+            int length = value.length();
+            if (length < minLength || remaining.get() <= 0) {
+                return false;
+            }
+            long available = remaining.getAndAdd(-length);
+            return available > 0 && scan(value, (int) Math.min(length, available));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.stockman.jsonshield.core;
+
+/**
+ * Kinds of personal data that {@link PiiDetector} recognizes inside string values.
+ */
+public enum PiiType {
+    /**
+     * Payment card numbers: 13 to 19 digits, optionally grouped by single spaces or hyphens,
+     * starting with 2 to 6 and passing the Luhn check
+     */
+    PAYMENT_CARD,
+
+    /**
+     * Email addresses: a local part, {@code @} and a domain of at least two labels ending in a
+     * top-level domain of two or more letters
+     */
+    EMAIL,
+
+    /**
+     * US social security numbers written as {@code 123-45-6789}, excluding area numbers 000, 666 and 900
+     * and above, group 00 and serial 0000
+     */
+    SSN,
+
+    /**
+     * International bank account numbers of 15 to 34 upper case letters and digits, optionally grouped by
+     * four, starting with a country code and check digits and passing the mod 97 check
+     */
+    IBAN
+}
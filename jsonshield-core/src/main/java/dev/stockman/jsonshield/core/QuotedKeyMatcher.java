@@ -0,0 +1,177 @@
+package dev.stockman.jsonshield.core;
+
+import java.util.ArrayDeque;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton finding any of a set of field names, in their quoted form, within JSON text.
+ * The automaton is compiled into a dense transition table over the symbols that occur in the names,
+ * either UTF-16 chars or UTF-8 bytes, so text is scanned in a single pass with one table lookup per symbol.
+ * <p>
+ * A backslash anywhere in the text counts as a match, since an escaped field name may spell a configured
+ * name without containing it literally.
+ */
+final class QuotedKeyMatcher {
+    private static final int BACKSLASH = -1;
+
+    private static final int DIRECT = 256;
+
+    private final int[] directClasses = new int[DIRECT];
+    private final char[] otherChars;
+    private final int classes;
+    private final int[] transitions;
+    private final boolean[] accepting;
+
+    /**
+     * Compiles the automaton.
+     *
+     * @param fieldNames the names to find
+     * @param utf8 whether text is scanned as UTF-8 bytes rather than UTF-16 chars
+     */
+    QuotedKeyMatcher(Collection<String> fieldNames, boolean utf8) {
+        // Names with characters that must be escaped never occur literally, the backslash rule covers them
+        List<char[]> names = fieldNames.stream()
+                .filter(QuotedKeyMatcher::isLiteral)
+                .map(name -> symbols('"' + name + '"', utf8))
+                .toList();
+        TreeSet<Character> alphabet = new TreeSet<>();
+        int maxStates = 1;
+        for (char[] quoted : names) {
+            maxStates += quoted.length;
+            for (char c : quoted) {
+                alphabet.add(c);
+            }
+        }
+        // Class 0 holds every character that does not occur in any name
+        StringBuilder others = new StringBuilder();
+        int next = 1;
+        for (char c : alphabet) {
+            if (c < DIRECT) {
+                directClasses[c] = next++;
+            } else {
+                others.append(c);
+            }
+        }
+        this.otherChars = others.toString().toCharArray();
+        this.classes = next + otherChars.length;
+
+        int[] trie = new int[maxStates * classes];
+        Arrays.fill(trie, -1);
+        boolean[] accept = new boolean[maxStates];
+        int states = 1;
+        for (char[] quoted : names) {
+            int state = 0;
+            for (char c : quoted) {
+                int index = state * classes + classOf(c);
+                if (trie[index] < 0) {
+                    trie[index] = states++;
+                }
+                state = trie[index];
+            }
+            accept[state] = true;
+        }
+
+        // Breadth first construction of the failure links, folded into the transition table
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classes; c++) {
+            int target = trie[c];
+            if (target < 0) {
+                trie[c] = 0;
+            } else {
+                failure[target] = 0;
+                queue.add(target);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accept[state] |= accept[failure[state]];
+            for (int c = 0; c < classes; c++) {
+                int index = state * classes + c;
+                int target = trie[index];
+                if (target < 0) {
+                    trie[index] = trie[failure[state] * classes + c];
+                } else {
+                    failure[target] = trie[failure[state] * classes + c];
+                    queue.add(target);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(trie, states * classes);
+        this.accepting = Arrays.copyOf(accept, states);
+        directClasses['\\'] = BACKSLASH;
+    }
+
+    private static char[] symbols(String quoted, boolean utf8) {
+        if (!utf8) {
+            return quoted.toCharArray();
+        }
+        byte[] bytes = quoted.getBytes(StandardCharsets.UTF_8);
+        char[] symbols = new char[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            symbols[i] = (char) (bytes[i] & 0xFF);
+        }
+        return symbols;
+    }
+
+    private static boolean isLiteral(String name) {
+        return name.chars().allMatch(c -> c >= 0x20 && c != '"' && c != '\\');
+    }
+
+    /**
+     * Scans the text for any of the quoted names.
+     *
+     * @param text the JSON text to scan
+     * @return true if a quoted name or a backslash was found
+     */
+    boolean find(CharSequence text) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            int c = classOf(text.charAt(i));
+            if (c == BACKSLASH) {
+                return true;
+            }
+            state = transitions[state * classes + c];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans UTF-8 encoded text for any of the quoted names, requires the matcher to be compiled for UTF-8.
+     *
+     * @param utf8 the buffer holding the UTF-8 encoded JSON text
+     * @param offset the offset of the text in the buffer
+     * @param length the number of bytes of the text
+     * @return true if a quoted name or a backslash was found
+     */
+    boolean find(byte[] utf8, int offset, int length) {
+        int state = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int c = directClasses[utf8[i] & 0xFF];
+            if (c == BACKSLASH) {
+                return true;
+            }
+            state = transitions[state * classes + c];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int classOf(char c) {
+        if (c < DIRECT) {
+            return directClasses[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? 0 : classes - otherChars.length + index;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Portable {@link StructuralIndexer} classifying eight bytes at a time with SWAR arithmetic on longs.
+ */
+final class ScalarStructuralIndexer extends StructuralIndexer {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+    ScalarStructuralIndexer(byte[] in, int offset, int length) {
+        super(in, offset, length);
+    }
+
+    @Override
+    void classify(byte[] buffer, int offset) {
+        long q = 0, bs = 0, op = 0, ws = 0, ctrl = 0;
+        for (int i = 0; i < BLOCK; i += Long.BYTES) {
+            long v = (long) LONGS.get(buffer, offset + i);
+            // Setting bit 5 folds '[' and ']' onto '{' and '}'
+            long folded = v | ONES * 0x20;
+            q |= gather(eq(v, '"')) << i;
+            bs |= gather(eq(v, '\\')) << i;
+            op |= gather(eq(folded, '{') | eq(folded, '}') | eq(v, ':') | eq(v, ',')) << i;
+            ws |= gather(eq(v, ' ') | eq(v, '\n') | eq(v, '\r') | eq(v, '\t')) << i;
+            // Bytes below 0x20: no bit set among 0xE0, and not a byte >= 0x80
+            ctrl |= gather(eq(v & ONES * 0xE0, 0)) << i;
+        }
+        quotes = q;
+        backslashes = bs;
+        operators = op;
+        whitespace = ws;
+        controls = ctrl;
+    }
+
+    /**
+     * Sets the high bit of every byte of {@code v} equal to {@code c}.
+     */
+    private static long eq(long v, int c) {
+        long t = v ^ ONES * c;
+        return ~((t & LOW7) + LOW7 | t | LOW7);
+    }
+
+    /**
+     * Collects the high bit of each byte into the low eight bits.
+     */
+    private static long gather(long highBits) {
+        return (highBits >>> 7) * 0x0102040810204080L >>> 56;
+    }
+}
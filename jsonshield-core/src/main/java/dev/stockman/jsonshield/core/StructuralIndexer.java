@@ -0,0 +1,130 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+
+/**
+ * Stage one of the indexed engine: finds the positions of structural characters in UTF-8 encoded JSON,
+ * 64 bytes at a time, in the spirit of simdjson.
+ * <p>
+ * Subclasses only classify the raw bytes of a block into bit masks. Everything derived from them is
+ * computed here with plain 64-bit arithmetic, so the vectorized and scalar indexers produce identical
+ * indexes: escaped characters, string regions, and the start of every scalar token.
+ * The index holds the position of every unescaped quote, every operator outside of strings and the first
+ * byte of every literal or number. It is produced incrementally into a bounded buffer, so memory use does
+ * not grow with the size of the document.
+ */
+abstract class StructuralIndexer {
+    static final int BLOCK = 64;
+
+    private final byte[] in;
+    private final MemorySegment segment;
+    private final int end;
+    private final byte[] tail = new byte[BLOCK];
+    private int block;
+
+    private boolean inStringCarry;
+    private boolean escapeCarry;
+    private boolean scalarCarry;
+
+    // Raw classification of the current block, one bit per byte
+    long quotes;
+    long backslashes;
+    long operators;
+    long whitespace;
+    long controls;
+
+    StructuralIndexer(byte[] in, int offset, int length) {
+        this.in = in;
+        this.segment = MemorySegment.ofArray(in);
+        this.block = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Classifies the 64 bytes of {@code buffer} starting at {@code offset} into the raw bit masks.
+     */
+    abstract void classify(byte[] buffer, int offset);
+
+    /**
+     * Appends the positions of the following structural characters to the index.
+     *
+     * @param index the buffer to fill, at least {@value #BLOCK} entries long
+     * @return the number of positions written, zero once the whole input has been indexed
+     * @throws InvalidJsonException if a string is unterminated, holds control characters or invalid escapes
+     */
+    final int fill(int[] index) {
+        int count = 0;
+        while (block < end && count <= index.length - BLOCK) {
+            int base = block;
+            int length = Math.min(BLOCK, end - base);
+            if (length == BLOCK) {
+                classify(in, base);
+            } else {
+                // Pad the last block with whitespace so that it can be classified like the others
+                System.arraycopy(in, base, tail, 0, length);
+                Arrays.fill(tail, length, BLOCK, (byte) ' ');
+                classify(tail, 0);
+            }
+            count = index(index, count, base, length == BLOCK ? -1L : (1L << length) - 1);
+            block += length;
+        }
+        if (block == end && inStringCarry) {
+            throw Utf8Json.endOfInput();
+        }
+        return count;
+    }
+
+    private int index(int[] index, int count, int base, long valid) {
+        long escaped = escapeCarry ? 1L : 0L;
+        escapeCarry = false;
+        long escapes = backslashes & ~escaped;
+        while (escapes != 0) {
+            int bit = Long.numberOfTrailingZeros(escapes);
+            if (bit == BLOCK - 1) {
+                escapeCarry = true;
+                break;
+            }
+            escaped |= 1L << (bit + 1);
+            escapes &= ~(3L << bit);
+        }
+
+        long unescapedQuotes = quotes & ~escaped;
+        long inString = prefixXor(unescapedQuotes) ^ (inStringCarry ? -1L : 0L);
+        inStringCarry = inString < 0;
+
+        long stringControls = controls & inString & valid;
+        if (stringControls != 0) {
+            throw Utf8Json.unexpected(segment, base + Long.numberOfTrailingZeros(stringControls));
+        }
+        long stringEscapes = backslashes & ~escaped & inString & valid;
+        while (stringEscapes != 0) {
+            Utf8Json.skipEscape(segment, base + Long.numberOfTrailingZeros(stringEscapes) + 1, end);
+            stringEscapes &= stringEscapes - 1;
+        }
+
+        long scalars = ~(operators | whitespace | quotes) & ~inString & valid;
+        long scalarStarts = scalars & ~(scalars << 1 | (scalarCarry ? 1L : 0L));
+        scalarCarry = scalars < 0;
+
+        long structurals = (operators & ~inString | unescapedQuotes | scalarStarts) & valid;
+        while (structurals != 0) {
+            index[count++] = base + Long.numberOfTrailingZeros(structurals);
+            structurals &= structurals - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Sets every bit that is preceded by an odd number of set bits, counting the bit itself.
+     */
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+}
@@ -0,0 +1,178 @@
+package dev.stockman.jsonshield.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, concurrent cache from raw values to their tokens.
+ * <p>
+ * Entries live in a set associative table of 8-way buckets, so a lookup reads at most 8 slots without
+ * locking, and a hit allocates nothing. When the bucket of a new entry is full, a TinyLFU frequency sketch
+ * decides admission: the new entry only replaces the least frequently used entry of its bucket if its value
+ * has been looked up more often, which keeps hot values cached while one-off values pass through. The sketch
+ * halves all counts periodically, so values that cool down are eventually replaced.
+ * <p>
+ * Racing writers may lose an insertion or a count, which only costs a later recomputation.
+ */
+final class TokenCache {
+    private static final int WAYS = 8;
+
+    private final AtomicReferenceArray<Entry> table;
+    private final int bucketMask;
+    private final FrequencySketch sketch;
+
+    /**
+     * @param capacity the minimum number of entries, rounded up to a power of two number of buckets
+     */
+    TokenCache(int capacity) {
+        int needed = (capacity + WAYS - 1) / WAYS;
+        int buckets = needed <= 1 ? 1 : Integer.highestOneBit(needed - 1) << 1;
+        this.table = new AtomicReferenceArray<>(buckets * WAYS);
+        this.bucketMask = buckets - 1;
+        this.sketch = new FrequencySketch(buckets * WAYS);
+    }
+
+    /**
+     * @return the maximum number of entries held at once
+     */
+    int capacity() {
+        return table.length();
+    }
+
+    /**
+     * Looks up the entry of a value, counting the access.
+     *
+     * @return the cached entry, or null if the value is not cached
+     */
+    Entry get(String value) {
+        int hash = value.hashCode();
+        sketch.increment(hash);
+        int base = bucket(hash);
+        for (int i = base; i < base + WAYS; i++) {
+            Entry entry = table.get(i);
+            if (entry != null && entry.hash == hash && entry.value.equals(value)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Offers an entry to the cache, which takes a free slot of its bucket, or replaces the least frequently
+     * used entry if the new value has been looked up more often.
+     */
+    void put(Entry entry) {
+        int base = bucket(entry.hash);
+        int victim = -1;
+        Entry victimEntry = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = base; i < base + WAYS; i++) {
+            Entry current = table.get(i);
+            if (current == null) {
+                if (table.compareAndSet(i, null, entry)) {
+                    return;
+                }
+                current = table.get(i);
+            }
+            if (current.hash == entry.hash && current.value.equals(entry.value)) {
+                return;
+            }
+            int frequency = sketch.frequency(current.hash);
+            if (frequency < victimFrequency) {
+                victim = i;
+                victimEntry = current;
+                victimFrequency = frequency;
+            }
+        }
+        if (sketch.frequency(entry.hash) > victimFrequency) {
+            table.compareAndSet(victim, victimEntry, entry);
+        }
+    }
+
+    private int bucket(int hash) {
+        // Spread the String hash, whose low bits are weak for short keys
+        int h = hash * 0x9E3779B9;
+        return ((h ^ h >>> 16) & bucketMask) * WAYS;
+    }
+
+    /**
+     * A value and its token, encoded both as a String and as a quoted UTF-8 JSON string.
+     */
+    static final class Entry {
+        final String value;
+        final int hash;
+        final String token;
+        final byte[] quotedToken;
+
+        Entry(String value, String token, byte[] quotedToken) {
+            this.value = value;
+            this.hash = value.hashCode();
+            this.token = token;
+            this.quotedToken = quotedToken;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per value, packed sixteen to a long.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final AtomicLongArray table;
+        private final int tableMask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int capacity) {
+            this.table = new AtomicLongArray(capacity);
+            this.tableMask = capacity - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        void increment(int hash) {
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = (start + i) << 2;
+                long mask = 0xfL << offset;
+                long word = table.get(index);
+                if ((word & mask) != mask) {
+                    added |= table.weakCompareAndSetPlain(index, word, word + (1L << offset));
+                }
+            }
+            if (added && additions.incrementAndGet() == sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                long word = table.get(indexOf(hash, i));
+                frequency = Math.min(frequency, (int) (word >>> ((start + i) << 2)) & 0xf);
+            }
+            return frequency;
+        }
+
+        /**
+         * Halves every counter, so the sketch keeps following the recent popularity of values.
+         */
+        private void reset() {
+            for (int i = 0; i < table.length(); i++) {
+                long word = table.get(i);
+                table.compareAndSet(i, word, (word >>> 1) & RESET_MASK);
+            }
+            additions.addAndGet(-sampleSize / 2);
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Helpers shared by the byte level engines for reading UTF-8 encoded JSON.
+ */
+final class Utf8Json {
+    private Utf8Json() { }
+
+    static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    static int hexValue(byte c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks the escape sequence following a backslash.
+     *
+     * @param p the position right after the backslash
+     * @return the position right after the escape sequence
+     */
+    static long skipEscape(MemorySegment in, long p, long end) {
+        if (p >= end) {
+            throw endOfInput();
+        }
+        switch (in.get(JAVA_BYTE, p)) {
+            case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> {
+                return p + 1;
+            }
+            case 'u' -> {
+                for (long i = p + 1; i <= p + 4; i++) {
+                    if (i >= end) {
+                        throw endOfInput();
+                    } else if (hexValue(in.get(JAVA_BYTE, i)) < 0) {
+                        throw unexpected(in, i);
+                    }
+                }
+                return p + 5;
+            }
+            default -> throw unexpected(in, p);
+        }
+    }
+
+    /**
+     * Decodes the body of a valid string, resolving its escape sequences.
+     */
+    static String decode(MemorySegment in, long start, long stop) {
+        StringBuilder sb = new StringBuilder((int) (stop - start));
+        long run = start;
+        for (long p = start; p < stop; p++) {
+            if (in.get(JAVA_BYTE, p) != '\\') {
+                continue;
+            }
+            sb.append(string(in, run, p));
+            byte c = in.get(JAVA_BYTE, ++p);
+            switch (c) {
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    sb.append((char) (hexValue(in.get(JAVA_BYTE, p + 1)) << 12 | hexValue(in.get(JAVA_BYTE, p + 2)) << 8
+                            | hexValue(in.get(JAVA_BYTE, p + 3)) << 4 | hexValue(in.get(JAVA_BYTE, p + 4))));
+                    p += 4;
+                }
+                default -> sb.append((char) c);
+            }
+            run = p + 1;
+        }
+        sb.append(string(in, run, stop));
+        return sb.toString();
+    }
+
+    private static String string(MemorySegment in, long start, long stop) {
+        return new String(in.asSlice(start, stop - start).toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts a scalar Java value to UTF-8 encoded JSON, for the engines that have no object mapper.
+     * Char sequences become strings, byte arrays Base64 encoded strings as Jackson writes them, and
+     * booleans and the standard number types literals.
+     *
+     * @param engine the name of the engine, for the error message
+     * @throws IllegalArgumentException if the value is of any other type, or a non-finite floating point number
+     */
+    static byte[] scalar(Object obj, String engine) {
+        if (obj instanceof CharSequence text) {
+            return Utf8Masks.quote(text.toString());
+        } else if (obj instanceof byte[] bytes) {
+            return Utf8Masks.quote(Base64.getEncoder().encodeToString(bytes));
+        }
+        String literal = switch (obj) {
+            case Boolean bool -> bool.toString();
+            case Double d when Double.isFinite(d) -> d.toString();
+            case Float f when Float.isFinite(f) -> f.toString();
+            case Byte b -> b.toString();
+            case Short s -> s.toString();
+            case Integer i -> i.toString();
+            case Long l -> l.toString();
+            case BigInteger i -> i.toString();
+            case BigDecimal d -> d.toString();
+            default -> throw new IllegalArgumentException(engine + " can only convert strings, numbers, booleans and byte arrays to JSON, not "
+                    + obj.getClass().getName() + ", use the Jackson or GSON implementation instead");
+        };
+        return literal.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static InvalidJsonException unexpected(MemorySegment in, long p) {
+        return new InvalidJsonException("Invalid JSON: unexpected character '" + (char) (in.get(JAVA_BYTE, p) & 0xFF) + "' at offset " + p);
+    }
+
+    static InvalidJsonException endOfInput() {
+        return new InvalidJsonException("Invalid JSON: unexpected end of input");
+    }
+}
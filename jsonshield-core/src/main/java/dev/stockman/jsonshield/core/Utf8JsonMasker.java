@@ -0,0 +1,393 @@
+package dev.stockman.jsonshield.core;
+
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Single use, validating state machine that masks a UTF-8 encoded JSON document held in a memory segment,
+ * which may be backed by a heap array, a direct buffer or native memory.
+ * Untouched ranges of the input are copied to the output as they are; only values that
+ * need masking are replaced. Strings are never decoded and numbers are never parsed,
+ * except for field names containing escape sequences, which are decoded before matching,
+ * and masked strings when tokenization is enabled.
+ * UTF-8 sequences inside strings are copied without being validated.
+ * The depth, token and string length limits of the configuration are checked as the input is read;
+ * the input length is left to the caller, which knows whether it is measured in bytes or characters.
+ */
+final class Utf8JsonMasker {
+    private static final byte OBJECT = 1;
+    private static final byte MASKED = 2;
+    // Empty content is treated as null, matching the other engines
+    private static final MemorySegment EMPTY_DOCUMENT = MemorySegment.ofArray(Utf8Masks.NULL);
+
+    private final Utf8Masks masks;
+    private final MemorySegment in;
+    private final byte[] array;
+    private final long end;
+    private final int maxDepth;
+    private final long maxTokens;
+    private final int maxStringLength;
+    private long pos;
+    private long tokens;
+
+    private byte[] stack = new byte[32];
+    // Path automaton state of each open object, and of the value currently read inside each open container
+    private int[] containerStates = new int[32];
+    private int[] valueStates = new int[32];
+    private int depth;
+
+    private Utf8Splicer splicer;
+
+    private boolean escaped;
+
+    Utf8JsonMasker(Utf8Masks masks, byte[] in) {
+        this.masks = masks;
+        this.in = MemorySegment.ofArray(in);
+        this.array = in;
+        this.end = in.length;
+        this.maxDepth = masks.limits.getMaxDepth();
+        this.maxTokens = masks.limits.getMaxTokens();
+        this.maxStringLength = masks.limits.getMaxStringLength();
+    }
+
+    /**
+     * @param in the segment holding exactly one document
+     */
+    Utf8JsonMasker(Utf8Masks masks, MemorySegment in) {
+        this.masks = masks;
+        this.in = in;
+        this.array = null;
+        this.end = in.byteSize();
+        this.maxDepth = masks.limits.getMaxDepth();
+        this.maxTokens = masks.limits.getMaxTokens();
+        this.maxStringLength = masks.limits.getMaxStringLength();
+    }
+
+    /**
+     * Masks the input into a new heap array.
+     *
+     * @return the masked document, or null if the input did not require any change
+     * @throws InvalidJsonException if the input is not valid JSON
+     */
+    byte[] mask() {
+        splicer = new Utf8Splicer(in, 0, end);
+        pos = skipWhitespace(0);
+        if (pos == end) {
+            // Empty content is treated as null, matching the other engines
+            return Utf8Masks.NULL.clone();
+        }
+        scan();
+        return splicer.finish();
+    }
+
+    /**
+     * Masks the input into the given segment, writing from its start. The whole input is validated
+     * even if the output turns out not to fit.
+     *
+     * @return the size of the masked document; if it exceeds the size of the target,
+     * the content of the target is unspecified
+     * @throws InvalidJsonException if the input is not valid JSON
+     */
+    long maskInto(MemorySegment target) {
+        pos = skipWhitespace(0);
+        return pos == end
+                ? new Utf8Splicer(EMPTY_DOCUMENT, 0, EMPTY_DOCUMENT.byteSize(), target).finishInto()
+                : scanInto(new Utf8Splicer(in, 0, end, target));
+    }
+
+    /**
+     * Masks the input into the given channel through a bounded buffer.
+     *
+     * @return the size of the masked document
+     * @throws InvalidJsonException if the input is not valid JSON, in which case part of the output may have been written
+     * @throws UncheckedIOException if writing to the channel fails
+     */
+    long maskInto(WritableByteChannel channel) {
+        pos = skipWhitespace(0);
+        return pos == end
+                ? new Utf8Splicer(EMPTY_DOCUMENT, 0, EMPTY_DOCUMENT.byteSize(), channel).finishInto()
+                : scanInto(new Utf8Splicer(in, 0, end, channel));
+    }
+
+    private long scanInto(Utf8Splicer splicer) {
+        this.splicer = splicer;
+        scan();
+        return splicer.finishInto();
+    }
+
+    private void scan() {
+        while (true) {
+            boolean maskValue = depth == 0 ? masks.maskScalarRoot : (stack[depth - 1] & MASKED) != 0;
+            int state = !masks.trackPaths ? JsonPathAutomaton.DEAD : depth == 0 ? masks.paths.root() : valueStates[depth - 1];
+            byte c = at(pos);
+            countToken();
+            switch (c) {
+                case '{' -> {
+                    push(OBJECT, state, JsonPathAutomaton.DEAD);
+                    pos = skipWhitespace(pos + 1);
+                    if (at(pos) != '}') {
+                        readName();
+                        continue;
+                    }
+                    countToken();
+                    pos++;
+                    depth--;
+                }
+                case '[' -> {
+                    int elementState = masks.paths.element(state);
+                    boolean maskElements = depth == 0 ? masks.maskRootArray : maskValue;
+                    if (masks.trackPaths) {
+                        maskElements = masks.configuration.shouldMaskElement(elementState, maskElements);
+                    }
+                    push(maskElements ? MASKED : 0, state, elementState);
+                    pos = skipWhitespace(pos + 1);
+                    if (at(pos) != ']') {
+                        continue;
+                    }
+                    countToken();
+                    pos++;
+                    depth--;
+                }
+                case '"' -> {
+                    long start = pos;
+                    pos = skipString(pos + 1);
+                    if (maskValue) {
+                        splicer.replace(start, pos, masks.stringMask(in, start, pos));
+                    }
+                }
+                case 't' -> {
+                    long start = pos;
+                    pos = literal(Utf8Masks.TRUE);
+                    if (maskValue) {
+                        splicer.replace(start, pos, masks.booleanMask);
+                    }
+                }
+                case 'f' -> {
+                    long start = pos;
+                    pos = literal(Utf8Masks.FALSE);
+                    if (maskValue) {
+                        splicer.replace(start, pos, masks.booleanMask);
+                    }
+                }
+                case 'n' -> pos = literal(Utf8Masks.NULL);
+                default -> {
+                    long start = pos;
+                    boolean decimal = number();
+                    if (maskValue) {
+                        splicer.replace(start, pos, decimal ? masks.decimalMask : masks.numberMask);
+                    }
+                }
+            }
+            if (!afterValue()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Consumes separators and closing brackets following a value.
+     *
+     * @return true if another value follows, false if the document is complete
+     */
+    private boolean afterValue() {
+        while (depth > 0) {
+            pos = skipWhitespace(pos);
+            byte c = at(pos);
+            boolean inObject = (stack[depth - 1] & OBJECT) != 0;
+            if (c == ',') {
+                pos = skipWhitespace(pos + 1);
+                if (inObject) {
+                    readName();
+                }
+                return true;
+            } else if (c == (inObject ? '}' : ']')) {
+                countToken();
+                pos++;
+                depth--;
+            } else {
+                throw unexpected();
+            }
+        }
+        pos = skipWhitespace(pos);
+        if (pos != end) {
+            throw unexpected();
+        }
+        return false;
+    }
+
+    private void readName() {
+        if (at(pos) != '"') {
+            throw unexpected();
+        }
+        countToken();
+        long start = pos + 1;
+        long stop = skipString(start);
+        boolean mask = masks.trackPaths
+                ? shouldMaskPath(start, stop - 1)
+                : escaped
+                ? masks.configuration.shouldMask(Utf8Json.decode(in, start, stop - 1))
+                : array != null
+                ? masks.configuration.shouldMask(array, (int) start, (int) (stop - 1 - start))
+                : masks.configuration.shouldMask(in, start, stop - 1 - start);
+        stack[depth - 1] = mask ? OBJECT | MASKED : OBJECT;
+        pos = skipWhitespace(stop);
+        if (at(pos) != ':') {
+            throw unexpected();
+        }
+        pos = skipWhitespace(pos + 1);
+    }
+
+    /**
+     * Advances the path state of the current object over the field name in [start, stop) and decides its value.
+     */
+    private boolean shouldMaskPath(long start, long stop) {
+        int objectState = containerStates[depth - 1];
+        int state;
+        boolean mask;
+        if (escaped) {
+            String name = Utf8Json.decode(in, start, stop);
+            state = masks.paths.field(objectState, name);
+            mask = masks.configuration.shouldMask(name, state);
+        } else if (array != null) {
+            state = masks.paths.field(objectState, array, (int) start, (int) (stop - start));
+            mask = masks.configuration.shouldMask(array, (int) start, (int) (stop - start), state);
+        } else {
+            state = masks.paths.field(objectState, in, start, stop - start);
+            mask = masks.configuration.shouldMask(in, start, stop - start, state);
+        }
+        valueStates[depth - 1] = state;
+        return mask;
+    }
+
+    /**
+     * Skips the body of a string starting right after its opening quote.
+     *
+     * @return the position right after the closing quote
+     */
+    private long skipString(long p) {
+        long start = p;
+        escaped = false;
+        while (p < end) {
+            byte c = byteAt(p);
+            if (c == '"') {
+                if (p - start > maxStringLength) {
+                    throw masks.limits.exceeded(JsonShieldLimits.Limit.STRING_LENGTH);
+                }
+                return p + 1;
+            } else if (c == '\\') {
+                escaped = true;
+                p = Utf8Json.skipEscape(in, p + 1, end);
+            } else if (c >= 0 && c < 0x20) {
+                throw Utf8Json.unexpected(in, p);
+            } else {
+                p++;
+            }
+        }
+        throw Utf8Json.endOfInput();
+    }
+
+    private boolean number() {
+        boolean decimal = false;
+        if (byteAt(pos) == '-') {
+            pos++;
+        }
+        byte c = at(pos);
+        if (c == '0') {
+            pos++;
+        } else if (c >= '1' && c <= '9') {
+            pos = skipDigits(pos + 1);
+        } else {
+            throw unexpected();
+        }
+        if (pos < end && byteAt(pos) == '.') {
+            pos = requireDigits(pos + 1);
+            decimal = true;
+        }
+        if (pos < end && (byteAt(pos) == 'e' || byteAt(pos) == 'E')) {
+            pos++;
+            if (pos < end && (byteAt(pos) == '+' || byteAt(pos) == '-')) {
+                pos++;
+            }
+            pos = requireDigits(pos);
+            decimal = true;
+        }
+        return decimal;
+    }
+
+    private long requireDigits(long p) {
+        byte c = at(p);
+        if (c < '0' || c > '9') {
+            throw Utf8Json.unexpected(in, p);
+        }
+        return skipDigits(p + 1);
+    }
+
+    private long skipDigits(long p) {
+        while (p < end && byteAt(p) >= '0' && byteAt(p) <= '9') {
+            p++;
+        }
+        return p;
+    }
+
+    private long literal(byte[] expected) {
+        if (end - pos < expected.length) {
+            throw unexpected();
+        }
+        for (int i = 1; i < expected.length; i++) {
+            if (byteAt(pos + i) != expected[i]) {
+                throw unexpected();
+            }
+        }
+        return pos + expected.length;
+    }
+
+    private long skipWhitespace(long p) {
+        while (p < end) {
+            if (!Utf8Json.isWhitespace(byteAt(p))) {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    private byte byteAt(long p) {
+        // Arrays are read directly, which the JIT still optimizes better than segment access
+        return array != null ? array[(int) p] : in.get(JAVA_BYTE, p);
+    }
+
+    private byte at(long p) {
+        if (p >= end) {
+            throw Utf8Json.endOfInput();
+        }
+        return byteAt(p);
+    }
+
+    private void countToken() {
+        if (++tokens > maxTokens) {
+            throw masks.limits.exceeded(JsonShieldLimits.Limit.TOKENS);
+        }
+    }
+
+    private void push(byte frame, int containerState, int valueState) {
+        if (depth == maxDepth) {
+            throw masks.limits.exceeded(JsonShieldLimits.Limit.DEPTH);
+        }
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            containerStates = Arrays.copyOf(containerStates, depth * 2);
+            valueStates = Arrays.copyOf(valueStates, depth * 2);
+        }
+        containerStates[depth] = containerState;
+        valueStates[depth] = valueState;
+        stack[depth++] = frame;
+    }
+
+    private InvalidJsonException unexpected() {
+        return Utf8Json.unexpected(in, pos);
+    }
+}
@@ -0,0 +1,78 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Masking rules of a {@link JsonShieldConfiguration} pre-encoded as UTF-8 JSON literals,
+ * shared by the byte level engines.
+ */
+final class Utf8Masks {
+    static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    final JsonShieldConfiguration configuration;
+    final JsonPathAutomaton paths;
+    // Without path rules every state is dead, so the engines skip tracking them
+    final boolean trackPaths;
+    final boolean maskScalarRoot;
+    final boolean maskRootArray;
+    final byte[] stringMask;
+    final ValueTokenizer tokenizer;
+    final byte[] numberMask;
+    final byte[] decimalMask;
+    final byte[] booleanMask;
+    final JsonShieldLimits limits;
+
+    Utf8Masks(JsonShieldConfiguration configuration) {
+        this.configuration = configuration;
+        this.paths = configuration.getPathAutomaton();
+        this.trackPaths = !paths.isEmpty();
+        this.maskScalarRoot = configuration.shouldMaskScalarRoot();
+        this.maskRootArray = configuration.shouldMask("");
+        this.stringMask = configuration.getStringMask() == null ? NULL : quote(configuration.getStringMask());
+        this.tokenizer = configuration.getTokenizer();
+        this.numberMask = configuration.getNumberMask() == null ? NULL : ascii(configuration.getNumberMask().toString());
+        this.decimalMask = configuration.getDecimalMask() == null ? NULL : ascii(BigDecimal.valueOf(configuration.getDecimalMask()).toString());
+        this.booleanMask = configuration.getBooleanMask() == null ? NULL : configuration.getBooleanMask() ? TRUE : FALSE;
+        this.limits = configuration.getLimits();
+    }
+
+    /**
+     * Returns the mask of a valid string, decoding it to derive its token if tokenization is enabled.
+     *
+     * @param start the position of the opening quote
+     * @param stop the position after the closing quote
+     */
+    byte[] stringMask(MemorySegment in, long start, long stop) {
+        return tokenizer == null ? stringMask : tokenizer.quotedToken(Utf8Json.decode(in, start + 1, stop - 1));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
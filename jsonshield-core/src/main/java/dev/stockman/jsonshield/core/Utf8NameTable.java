@@ -0,0 +1,99 @@
+package dev.stockman.jsonshield.core;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Immutable open addressing hash set of field names stored as UTF-8 bytes, each tagged with its position in
+ * the collection it was built from. Allows field names to be looked up straight from a UTF-8 buffer or memory
+ * segment without decoding them into Strings.
+ */
+final class Utf8NameTable {
+    private final byte[][] keys;
+    private final int[] indexes;
+    private final int mask;
+
+    Utf8NameTable(Collection<String> names) {
+        int capacity = Integer.highestOneBit(Math.max(2, names.size() * 2 + 1)) << 1;
+        this.keys = new byte[capacity][];
+        this.indexes = new int[capacity];
+        this.mask = capacity - 1;
+        int index = 0;
+        for (String name : names) {
+            byte[] key = name.getBytes(StandardCharsets.UTF_8);
+            int slot = hash(key, 0, key.length) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            indexes[slot] = index++;
+        }
+    }
+
+    boolean contains(byte[] buffer, int offset, int length) {
+        return indexOf(buffer, offset, length) >= 0;
+    }
+
+    boolean contains(MemorySegment buffer, long offset, long length) {
+        return indexOf(buffer, offset, length) >= 0;
+    }
+
+    /**
+     * @return the position of the name in the collection the table was built from, or -1 if it is not in the table
+     */
+    int indexOf(byte[] buffer, int offset, int length) {
+        int slot = hash(buffer, offset, length) & mask;
+        byte[] key;
+        while ((key = keys[slot]) != null) {
+            if (key.length == length && Arrays.equals(key, 0, length, buffer, offset, offset + length)) {
+                return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #indexOf(byte[], int, int)}, reading the name from a memory segment.
+     */
+    int indexOf(MemorySegment buffer, long offset, long length) {
+        int slot = hash(buffer, offset, length) & mask;
+        byte[] key;
+        while ((key = keys[slot]) != null) {
+            if (key.length == length && equals(key, buffer, offset)) {
+                return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean equals(byte[] key, MemorySegment buffer, long offset) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(JAVA_BYTE, offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hash(byte[] buffer, int offset, int length) {
+        int h = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(MemorySegment buffer, long offset, long length) {
+        int h = 1;
+        for (long i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + buffer.get(JAVA_BYTE, i);
+        }
+        return h ^ (h >>> 16);
+    }
+}
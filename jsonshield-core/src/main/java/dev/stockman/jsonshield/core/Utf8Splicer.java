@@ -0,0 +1,157 @@
+package dev.stockman.jsonshield.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Builds masked output by copying the untouched spans of a UTF-8 input around replacement masks.
+ * The output goes to one of
+ * <ul>
+ *     <li>a heap array, which is not allocated until the first replacement,</li>
+ *     <li>a target segment, in which case spans are only written while they fit,</li>
+ *     <li>a channel, through a bounded buffer, so the output is never held in memory as a whole.</li>
+ * </ul>
+ */
+final class Utf8Splicer {
+    static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+    private final MemorySegment in;
+    private final long end;
+    private final MemorySegment target;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long copyFrom;
+    private byte[] out;
+    private long outLength;
+    private int buffered;
+    private boolean overflow;
+
+    Utf8Splicer(MemorySegment in, long offset, long length) {
+        this(in, offset, length, null, null, null);
+    }
+
+    Utf8Splicer(MemorySegment in, long offset, long length, MemorySegment target) {
+        this(in, offset, length, target, null, null);
+    }
+
+    Utf8Splicer(MemorySegment in, long offset, long length, WritableByteChannel channel) {
+        this(in, offset, length, null, channel, ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE));
+    }
+
+    private Utf8Splicer(MemorySegment in, long offset, long length, MemorySegment target, WritableByteChannel channel, ByteBuffer buffer) {
+        this.in = in;
+        this.copyFrom = offset;
+        this.end = offset + length;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.target = buffer == null ? target : MemorySegment.ofBuffer(buffer);
+    }
+
+    /**
+     * Replaces the input range [start, stop) with the given mask.
+     *
+     * @throws UncheckedIOException if writing to the channel fails
+     */
+    void replace(long start, long stop, byte[] mask) {
+        if (target == null && out == null) {
+            out = new byte[(int) Math.max(64, end - copyFrom + 16)];
+        }
+        append(copyFrom, start - copyFrom);
+        append(mask);
+        copyFrom = stop;
+    }
+
+    /**
+     * Completes the output in the heap array.
+     *
+     * @return the spliced output, or null if no replacement was made
+     */
+    byte[] finish() {
+        if (out == null) {
+            return null;
+        }
+        append(copyFrom, end - copyFrom);
+        return Arrays.copyOf(out, (int) outLength);
+    }
+
+    /**
+     * Completes the output in the target segment or the channel.
+     *
+     * @return the size of the spliced output, which exceeds the size of the target segment if it did not fit
+     * @throws UncheckedIOException if writing to the channel fails
+     */
+    long finishInto() {
+        append(copyFrom, end - copyFrom);
+        if (channel != null) {
+            flush();
+        }
+        return outLength;
+    }
+
+    private void append(long offset, long length) {
+        if (target == null) {
+            ensureCapacity(length);
+            MemorySegment.copy(in, JAVA_BYTE, offset, out, (int) outLength, (int) length);
+        } else if (channel != null) {
+            write(in, offset, length);
+        } else if (fits(length)) {
+            MemorySegment.copy(in, offset, target, outLength, length);
+        }
+        outLength += length;
+    }
+
+    private void append(byte[] mask) {
+        if (target == null) {
+            ensureCapacity(mask.length);
+            System.arraycopy(mask, 0, out, (int) outLength, mask.length);
+        } else if (channel != null) {
+            write(MemorySegment.ofArray(mask), 0, mask.length);
+        } else if (fits(mask.length)) {
+            MemorySegment.copy(mask, 0, target, JAVA_BYTE, outLength, mask.length);
+        }
+        outLength += mask.length;
+    }
+
+    private void ensureCapacity(long length) {
+        if (outLength + length > out.length) {
+            out = Arrays.copyOf(out, (int) Math.max(out.length * 2L, outLength + length));
+        }
+    }
+
+    private boolean fits(long length) {
+        // Once the target overflows, keep counting so the caller learns how much room the output needs
+        overflow = overflow || outLength + length > target.byteSize();
+        return !overflow;
+    }
+
+    private void write(MemorySegment source, long offset, long length) {
+        while (length > 0) {
+            if (buffered == CHANNEL_BUFFER_SIZE) {
+                flush();
+            }
+            int chunk = (int) Math.min(length, CHANNEL_BUFFER_SIZE - buffered);
+            MemorySegment.copy(source, offset, target, buffered, chunk);
+            buffered += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    private void flush() {
+        buffer.limit(buffered).position(0);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffered = 0;
+    }
+}
@@ -0,0 +1,114 @@
+package dev.stockman.jsonshield.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Replaces string values with deterministic tokens, so masked values can still be joined across documents.
+ * A token is {@code tok_} followed by the first 96 bits of the HMAC-SHA256 of the value under a secret key,
+ * encoded as 16 characters of URL safe Base64; equal values under the same key always yield the same token.
+ * <p>
+ * Both HMAC pads are hashed once up front and every token starts from a copy of those digests, so no
+ * {@code Mac} instance is created or shared per call. Tokens of hot values are kept in a bounded concurrent
+ * cache, see {@link #getCacheCapacity()}. Instances are thread safe.
+ */
+public final class ValueTokenizer {
+    /**
+     * Prefix of every token.
+     */
+    public static final String PREFIX = "tok_";
+
+    private static final int BLOCK_SIZE = 64;
+    private static final int TOKEN_BYTES = 12;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final MessageDigest inner;
+    private final MessageDigest outer;
+    private final TokenCache cache;
+
+    /**
+     * @param key the secret key
+     * @param cacheCapacity the number of cached tokens, 0 to disable the cache
+     */
+    ValueTokenizer(byte[] key, int cacheCapacity) {
+        MessageDigest inner = sha256();
+        MessageDigest outer = sha256();
+        byte[] block = Arrays.copyOf(key.length > BLOCK_SIZE ? sha256().digest(key) : key, BLOCK_SIZE);
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            inner.update((byte) (block[i] ^ 0x36));
+            outer.update((byte) (block[i] ^ 0x5c));
+        }
+        Arrays.fill(block, (byte) 0);
+        this.inner = inner;
+        this.outer = outer;
+        this.cache = cacheCapacity == 0 ? null : new TokenCache(cacheCapacity);
+        // Fail on construction rather than while masking if the digest cannot be copied
+        copy(inner);
+    }
+
+    /**
+     * @return the maximum number of tokens cached at once, which may be rounded up from the configured
+     * capacity, or 0 if tokens are not cached
+     */
+    public int getCacheCapacity() {
+        return cache == null ? 0 : cache.capacity();
+    }
+
+    /**
+     * Computes the token of a value, or returns it from the cache.
+     *
+     * @param value the raw string value
+     * @return the token, {@link #PREFIX} followed by 16 URL safe Base64 characters
+     */
+    public String tokenize(String value) {
+        return entry(value).token;
+    }
+
+    /**
+     * Same as {@link #tokenize(String)}, returning the token as a quoted UTF-8 JSON string.
+     */
+    byte[] quotedToken(String value) {
+        return entry(value).quotedToken;
+    }
+
+    private TokenCache.Entry entry(String value) {
+        if (cache == null) {
+            return newEntry(value);
+        }
+        TokenCache.Entry entry = cache.get(value);
+        if (entry == null) {
+            entry = newEntry(value);
+            cache.put(entry);
+        }
+        return entry;
+    }
+
+    private TokenCache.Entry newEntry(String value) {
+        MessageDigest inner = copy(this.inner);
+        MessageDigest outer = copy(this.outer);
+        outer.update(inner.digest(value.getBytes(StandardCharsets.UTF_8)));
+        String token = PREFIX + ENCODER.encodeToString(Arrays.copyOf(outer.digest(), TOKEN_BYTES));
+        // Tokens are plain ASCII, so quoting needs no escaping
+        byte[] quoted = ('"' + token + '"').getBytes(StandardCharsets.US_ASCII);
+        return new TokenCache.Entry(value, token, quoted);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static MessageDigest copy(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be copied", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.stockman.jsonshield.core;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link StructuralIndexer} classifying a block with the incubating Vector API, 16 to 64 bytes per
+ * instruction depending on the hardware. Requires the {@code jdk.incubator.vector} module to be resolved.
+ */
+final class VectorStructuralIndexer extends StructuralIndexer {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() > BLOCK
+            ? ByteVector.SPECIES_512
+            : ByteVector.SPECIES_PREFERRED;
+
+    VectorStructuralIndexer(byte[] in, int offset, int length) {
+        super(in, offset, length);
+    }
+
+    /**
+     * Returns the number of bytes classified per vector, failing if the Vector API cannot be linked.
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    void classify(byte[] buffer, int offset) {
+        long q = 0, bs = 0, op = 0, ws = 0, ctrl = 0;
+        for (int i = 0; i < BLOCK; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromArray(SPECIES, buffer, offset + i);
+            // Setting bit 5 folds '[' and ']' onto '{' and '}'
+            ByteVector folded = v.or((byte) 0x20);
+            q |= v.eq((byte) '"').toLong() << i;
+            bs |= v.eq((byte) '\\').toLong() << i;
+            op |= folded.eq((byte) '{').or(folded.eq((byte) '}')).or(v.eq((byte) ':')).or(v.eq((byte) ',')).toLong() << i;
+            ws |= v.eq((byte) ' ').or(v.eq((byte) '\n')).or(v.eq((byte) '\r')).or(v.eq((byte) '\t')).toLong() << i;
+            ctrl |= v.compare(VectorOperators.GE, (byte) 0).and(v.compare(VectorOperators.LT, (byte) 0x20)).toLong() << i;
+        }
+        quotes = q;
+        backslashes = bs;
+        operators = op;
+        whitespace = ws;
+        controls = ctrl;
+    }
+}
@@ -0,0 +1,153 @@
+package dev.stockman.jsonshield.core;
+
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executor that masks every task on a new virtual thread while capping how many of them run at once.
+ * Masking is CPU bound, so without a cap a burst of large payloads would occupy every carrier thread
+ * and starve the virtual threads doing I/O. Tasks over the cap wait in a bounded queue, without a thread,
+ * and start in submission order as running tasks finish. Tasks arriving while the queue is full are rejected,
+ * so a burst cannot pin an unbounded number of payloads either.
+ * <p>
+ * This is the default executor of {@link JsonShield#maskAsync(String)} and {@link JsonShield#maskAsync(Object)},
+ * with a cap of one less than the number of processors, or the value of the {@value #MAX_CONCURRENCY_PROPERTY}
+ * system property if set, and a queue of {@value #DEFAULT_MAX_QUEUED} tasks, or the value of the
+ * {@value #MAX_QUEUED_PROPERTY} system property if set.
+ */
+public final class VirtualThreadMaskingExecutor implements Executor {
+    /**
+     * System property holding the cap of the default executor.
+     */
+    public static final String MAX_CONCURRENCY_PROPERTY = "jsonshield.async.maxConcurrency";
+    /**
+     * System property holding the queue size of the default executor.
+     */
+    public static final String MAX_QUEUED_PROPERTY = "jsonshield.async.maxQueued";
+    /**
+     * Number of tasks that may wait for a running task to finish, unless given otherwise.
+     */
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+
+    static final VirtualThreadMaskingExecutor DEFAULT = new VirtualThreadMaskingExecutor(
+            Math.max(1, Integer.getInteger(MAX_CONCURRENCY_PROPERTY, Runtime.getRuntime().availableProcessors() - 1)),
+            Math.max(0, Integer.getInteger(MAX_QUEUED_PROPERTY, DEFAULT_MAX_QUEUED)));
+
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final Semaphore permits;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("jsonshield-mask-", 0).factory();
+
+    /**
+     * Constructs a new executor queueing up to {@value #DEFAULT_MAX_QUEUED} tasks over the cap.
+     *
+     * @param maxConcurrency the maximum number of tasks running at once
+     * @throws IllegalArgumentException if maxConcurrency is less than 1
+     */
+    public VirtualThreadMaskingExecutor(int maxConcurrency) {
+        this(maxConcurrency, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Constructs a new executor.
+     *
+     * @param maxConcurrency the maximum number of tasks running at once
+     * @param maxQueued the maximum number of tasks waiting for a running task to finish
+     * @throws IllegalArgumentException if maxConcurrency is less than 1 or maxQueued is negative
+     */
+    public VirtualThreadMaskingExecutor(int maxConcurrency, int maxQueued) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be at least 1");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Max queued tasks cannot be negative");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrency);
+        this.queue = maxQueued == 0 ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(maxQueued);
+    }
+
+    /**
+     * Runs the task on a new virtual thread if fewer than the maximum number of tasks are running,
+     * or queues it until one of them finishes.
+     *
+     * @param command the task to run
+     * @throws NullPointerException if command is null
+     * @throws RejectedExecutionException if the maximum number of tasks are running and the queue is full
+     */
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command, "Task cannot be null");
+        if (permits.tryAcquire()) {
+            start(command);
+            return;
+        }
+        if (!queue.offer(command)) {
+            throw new RejectedExecutionException("Masking queue is full, " + maxConcurrency + " tasks running and "
+                    + maxQueued + " waiting");
+        }
+        // The running tasks may all have finished between tryAcquire and offer
+        drain();
+    }
+
+    /**
+     * Starts the task on a thread holding one of the permits, and hands that permit on to the next queued task.
+     */
+    private void start(Runnable command) {
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    command.run();
+                } finally {
+                    Runnable next = queue.poll();
+                    if (next != null) {
+                        start(next);
+                    } else {
+                        permits.release();
+                        drain();
+                    }
+                }
+            }).start();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void drain() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queue.poll();
+            if (next == null) {
+                permits.release();
+            } else {
+                start(next);
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of tasks running at once.
+     *
+     * @return the cap on concurrent tasks
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the maximum number of tasks waiting for a running task to finish.
+     *
+     * @return the cap on queued tasks
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Helpers for documents that turned out not to need any masking.
+ */
+final class JsonDocuments {
+
+    private JsonDocuments() {
+    }
+
+    /**
+     * Tells whether a document in which the prescan found no configured key can be returned as it is.
+     * The prescan only finds names in double quotes, so the document is read strictly: one that needs
+     * leniency, such as for unquoted or single quoted names, is left to the regular masking path,
+     * which reads it leniently and also reports it if it is not valid JSON at all.
+     *
+     * @param reader a reader positioned before the document
+     * @return true if the reader holds exactly one strictly valid value, false otherwise
+     * @throws IOException if reading from the underlying source fails
+     */
+    static boolean isStrictDocument(JsonReader reader) throws IOException {
+        reader.setStrictness(Strictness.STRICT);
+        try {
+            return skipDocument(reader);
+        } catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Validates a document by reading through its tokens without building or writing anything,
+     * applying the same end of document check as {@link com.google.gson.JsonParser}.
+     *
+     * @param reader a reader positioned before the document
+     * @return true if the reader holds exactly one value, false if it is empty or a null literal,
+     * which is left to the regular masking path to deal with
+     * @throws IOException if the document is not valid JSON
+     */
+    static boolean skipDocument(JsonReader reader) throws IOException {
+        JsonToken rootToken = peekRoot(reader);
+        if (rootToken == JsonToken.END_DOCUMENT || rootToken == JsonToken.NULL) {
+            return false;
+        }
+        reader.skipValue();
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Did not consume the entire document.");
+        }
+        return true;
+    }
+
+    /**
+     * Peeks at the root token of a document. Gson reports empty content as an end of input
+     * instead of {@link JsonToken#END_DOCUMENT}, which is translated here the same way
+     * {@link com.google.gson.JsonParser} treats it.
+     *
+     * @param reader a reader positioned before the document
+     * @return the root token, or END_DOCUMENT if the content is empty
+     * @throws IOException if the document is not valid JSON
+     */
+    static JsonToken peekRoot(JsonReader reader) throws IOException {
+        try {
+            return reader.peek();
+        } catch (EOFException e) {
+            return JsonToken.END_DOCUMENT;
+        }
+    }
+}
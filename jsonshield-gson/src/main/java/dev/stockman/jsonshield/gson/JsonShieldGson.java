@@ -1,21 +1,54 @@
 package dev.stockman.jsonshield.gson;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import dev.stockman.jsonshield.core.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Utility class for masking sensitive data in JSON content using GSON dependencies.
  * Provides methods to mask both JSON strings and JsonElement objects,
  * replacing values with predefined masks while preserving the JSON structure.
+ * JsonElement trees can be masked in place with {@link #maskInPlace(JsonElement)}
+ * or as a copy with {@link #maskTree(JsonElement)}.
+ * Very large arrays and objects can optionally be masked in parallel, see
+ * {@link #JsonShieldGson(Gson, JsonShieldConfiguration, int)}.
+ * The {@link JsonShieldLimits} of the configuration are enforced by the reader the tree is parsed from.
  */
 public class JsonShieldGson implements JsonShield {
 
     private final Gson gson;
     private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final int parallelThreshold;
+    private final JsonShieldLimits limits;
     private static final String MASK = "*****";
+    // Levels of nesting masked by recursion before continuing on an explicit stack
+    private static final int RECURSION_DEPTH = 32;
 
     /**
      * Constructs a new JsonShield instance.
@@ -27,51 +60,281 @@ public class JsonShieldGson implements JsonShield {
     public JsonShieldGson(Gson gson, JsonShieldConfiguration jsonShieldConfiguration) {
         this.gson = Objects.requireNonNull(gson, "Gson cannot be null");
         this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        this.parallelThreshold = Integer.MAX_VALUE;
+        this.limits = jsonShieldConfiguration.getLimits();
+    }
+
+    /**
+     * Constructs a new JsonShield instance that masks large arrays and objects in parallel.
+     * An array or object with more elements or fields than the threshold is split into fork/join tasks,
+     * halving its range of children until each task holds at most the threshold, so a single huge document
+     * is masked on all workers of the fork/join pool it is masked from, or else the common pool.
+     * Children are masked in place, so the result keeps their order. Arrays and objects nested more than
+     * 32 levels deep are masked sequentially, so that nesting depth never costs thread stack.
+     *
+     * @param gson the Gson instance to be used for JSON processing
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @param parallelThreshold the number of children above which an array or object is masked in parallel
+     * @throws NullPointerException if gson or jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if parallelThreshold is less than 1
+     */
+    public JsonShieldGson(Gson gson, JsonShieldConfiguration jsonShieldConfiguration, int parallelThreshold) {
+        this.gson = Objects.requireNonNull(gson, "Gson cannot be null");
+        this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1");
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.limits = jsonShieldConfiguration.getLimits();
     }
 
     @Override
     public String mask(String json) {
         Objects.requireNonNull(json, "Input JSON string cannot be null");
-        JsonElement rootElement = validate(json);
-        JsonElement maskedElement = mask(rootElement);
-        return gson.toJson(maskedElement);
+        try {
+            limits.checkInputLength(json.length());
+            if (!jsonShieldConfiguration.requiresMasking(json) && isStrictDocument(json)) {
+                // Nothing to mask, skip building and serializing the tree
+                return json;
+            }
+            JsonElement rootElement = validate(json);
+            JsonElement maskedElement = maskInPlace(rootElement);
+            return gson.toJson(maskedElement);
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redact(e);
+        }
+    }
+
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            limits.checkInputLength(json.length);
+            if (!jsonShieldConfiguration.requiresMasking(json, 0, json.length)
+                    && isStrictDocument(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+                // Nothing to mask, skip building and serializing the tree
+                return json.clone();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+            mask(new ByteArrayInputStream(json), out);
+            return out.toByteArray();
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redactUtf8(e);
+        }
     }
 
+    @Override
+    public void mask(InputStream in, OutputStream out) {
+        Objects.requireNonNull(in, "Input stream cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        mask(new InputStreamReader(in, StandardCharsets.UTF_8), new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void mask(Reader in, Writer out) {
+        Objects.requireNonNull(in, "Input Reader cannot be null");
+        Objects.requireNonNull(out, "Output Writer cannot be null");
+        JsonElement rootElement;
+        try {
+            rootElement = parse(in);
+        } catch (JsonShieldLimitExceededException e) {
+            throw e;
+        } catch (JsonIOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        } catch (Exception e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        }
+        try {
+            gson.toJson(maskInPlace(rootElement), out);
+            out.flush();
+        } catch (IOException | JsonIOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    /**
+     * Masks a batch of JSON strings into a single output buffer, which is reused across the whole batch.
+     */
+    @Override
+    public List<String> maskAll(List<String> jsons) {
+        Objects.requireNonNull(jsons, "Input JSON list cannot be null");
+        List<String> masked = new ArrayList<>(jsons.size());
+        StringWriter writer = new StringWriter();
+        for (String json : jsons) {
+            Objects.requireNonNull(json, "Input JSON string cannot be null");
+            try {
+                limits.checkInputLength(json.length());
+                if (!jsonShieldConfiguration.requiresMasking(json) && isStrictDocument(new StringReader(json))) {
+                    masked.add(json);
+                    continue;
+                }
+                mask(new StringReader(json), writer);
+            } catch (JsonShieldLimitExceededException e) {
+                // Limits are checked while parsing, before anything is written
+                masked.add(limits.redact(e));
+                continue;
+            }
+            masked.add(writer.toString());
+            writer.getBuffer().setLength(0);
+        }
+        return masked;
+    }
+
+    /**
+     * Masks a batch of UTF-8 encoded JSON documents into a single output buffer and encoder,
+     * which are reused across the whole batch.
+     */
+    @Override
+    public void maskAll(Iterable<byte[]> jsons, Consumer<byte[]> consumer) {
+        Objects.requireNonNull(jsons, "Input JSON batch cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        for (byte[] json : jsons) {
+            Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+            try {
+                limits.checkInputLength(json.length);
+                if (!jsonShieldConfiguration.requiresMasking(json, 0, json.length)
+                        && isStrictDocument(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+                    consumer.accept(json.clone());
+                    continue;
+                }
+                // The writer is flushed after every document, so the buffer holds exactly this one
+                mask(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8), writer);
+            } catch (JsonShieldLimitExceededException e) {
+                // Limits are checked while parsing, before anything is written
+                consumer.accept(limits.redactUtf8(e));
+                continue;
+            }
+            consumer.accept(out.toByteArray());
+            out.reset();
+        }
+    }
+
+    /**
+     * Masks sensitive data while serializing the given object, writing masks in place of sensitive values
+     * as the object is written, so no intermediate JsonElement tree is built.
+     *
+     * @param obj the object to be serialized and masked
+     * @return a JSON string with masked values
+     * @throws NullPointerException if the input object is null
+     * @throws JsonShieldException if there is an error during serialization
+     */
     @Override
     public String mask(Object obj) {
         Objects.requireNonNull(obj, "Input Object cannot be null");
-        JsonElement rootElement = gson.toJsonTree(obj);
-        JsonElement maskedElement = !rootElement.isJsonPrimitive() ?
-                mask(rootElement) :
-                jsonShieldConfiguration.shouldMaskScalarRoot() ? mask(rootElement) : rootElement;
-        return gson.toJson(maskedElement);
+        StringWriter writer = new StringWriter();
+        try {
+            JsonWriter jsonWriter = gson.newJsonWriter(writer);
+            // Same leniency as Gson.toJson(JsonElement)
+            if (jsonWriter.getStrictness() == Strictness.LEGACY_STRICT) {
+                jsonWriter.setStrictness(Strictness.LENIENT);
+            }
+            gson.toJson(obj, obj.getClass(), new MaskingJsonWriter(jsonWriter, jsonShieldConfiguration));
+        } catch (IOException | JsonIOException e) {
+            throw new JsonShieldException("Error masking Object", e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return limits;
     }
 
     private JsonElement validate(String json) {
         try {
-            return JsonParser.parseString(json);
+            return parse(new StringReader(json));
+        } catch (JsonShieldLimitExceededException e) {
+            throw e;
         } catch (Exception e) {
             throw new InvalidJsonException("Invalid JSON", e);
         }
     }
 
-    private JsonElement mask(JsonElement element) {
+    /**
+     * Same as {@link JsonParser#parseReader(Reader)}, reading through a reader that enforces the limits.
+     */
+    private JsonElement parse(Reader in) {
+        JsonReader reader = LimitingJsonReader.create(in, limits);
+        JsonElement element = JsonParser.parseReader(reader);
+        try {
+            if (!element.isJsonNull() && reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return element;
+    }
+
+    private boolean isStrictDocument(String json) {
+        return isStrictDocument(new StringReader(json));
+    }
+
+    private boolean isStrictDocument(Reader json) {
+        try {
+            return JsonDocuments.isStrictDocument(LimitingJsonReader.create(json, limits));
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    /**
+     * Masks sensitive data in a JsonElement tree by replacing values within its objects and arrays,
+     * avoiding the serialize and parse round trip for callers that already hold a parsed tree.
+     * Scalar values cannot be modified in place, so a masked scalar root is returned as a new element.
+     *
+     * @param element the JsonElement to be masked
+     * @return the given element with masked values, or the masked replacement of a scalar root
+     * @throws NullPointerException if the input element is null
+     * @throws JsonShieldException if there is an error during masking
+     */
+    public JsonElement maskInPlace(JsonElement element) {
         Objects.requireNonNull(element, "Input JsonElement cannot be null");
         try {
-            return maskNode(element, "");
+            return maskNode(element, "", paths().root(), newPiiScan());
         } catch (Exception e) {
             throw new JsonShieldException("Error masking JsonElement", e);
         }
     }
 
-    private JsonElement maskNode(JsonElement element, String parentNodeName) {
+    /**
+     * Masks sensitive data in a copy of a JsonElement tree, leaving the given tree untouched.
+     *
+     * @param element the JsonElement to be masked
+     * @return a new JsonElement with masked values
+     * @throws NullPointerException if the input element is null
+     * @throws JsonShieldException if there is an error during masking
+     */
+    public JsonElement maskTree(JsonElement element) {
+        Objects.requireNonNull(element, "Input JsonElement cannot be null");
+        return maskInPlace(element.deepCopy());
+    }
+
+    private JsonPathAutomaton paths() {
+        return jsonShieldConfiguration.getPathAutomaton();
+    }
+
+    private PiiDetector.Scan newPiiScan() {
+        PiiDetector piiDetector = jsonShieldConfiguration.getPiiDetector();
+        return piiDetector == null ? null : piiDetector.newScan();
+    }
+
+    private static boolean containsPii(JsonElement element, PiiDetector.Scan pii) {
+        return pii != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString()
+                && pii.containsPii(element.getAsString());
+    }
+
+    private JsonElement maskNode(JsonElement element, String parentNodeName, int pathState, PiiDetector.Scan pii) {
         if (element.isJsonNull()) {
             return JsonNull.INSTANCE;
-        } else if (element.isJsonObject()) {
-            return maskObject(element.getAsJsonObject());
-        } else if (element.isJsonArray()) {
-            return maskArray(element.getAsJsonArray(), parentNodeName);
-        } else if (jsonShieldConfiguration.shouldMaskScalarRoot()) {
+        } else if (element.isJsonObject() || element.isJsonArray()) {
+            maskContainer(element, parentNodeName, pathState, pii, 0);
+            return element;
+        } else if (jsonShieldConfiguration.shouldMaskScalarRoot() || containsPii(element, pii)) {
             return maskValueNode(element);
         }
         return element;
@@ -87,7 +350,8 @@ public class JsonShieldGson implements JsonShield {
             } else if (primitive.isNumber()) {
                 return maskNumeric(primitive);
             } else if (primitive.isString()) {
-                return jsonShieldConfiguration.getStringMask() == null ? JsonNull.INSTANCE : new JsonPrimitive(jsonShieldConfiguration.getStringMask());
+                String mask = jsonShieldConfiguration.getStringMask(primitive.getAsString());
+                return mask == null ? JsonNull.INSTANCE : new JsonPrimitive(mask);
             }
         }
         return element;
@@ -100,36 +364,248 @@ public class JsonShieldGson implements JsonShield {
                 : jsonShieldConfiguration.getNumberMask() == null ? JsonNull.INSTANCE : new JsonPrimitive(jsonShieldConfiguration.getNumberMask());
     }
 
-    private JsonElement maskObject(JsonObject object) {
-        JsonObject maskedObject = new JsonObject();
-        object.entrySet().forEach(entry -> {
-            String fieldName = entry.getKey();
-            JsonElement fieldElement = entry.getValue();
-            maskedObject.add(fieldName, determineNodeMask(fieldElement, fieldName));
-        });
-        return maskedObject;
+    /**
+     * Masks an array or object in place. The first levels of nesting are masked by plain recursion, which is
+     * fastest for typical documents, while deeper levels continue on an explicit stack, so nesting depth
+     * costs heap instead of thread stack and deeply nested documents cannot overflow it.
+     */
+    private void maskContainer(JsonElement element, String fieldName, int pathState, PiiDetector.Scan pii, int depth) {
+        if (depth < RECURSION_DEPTH) {
+            if (element.isJsonObject()) {
+                maskObject(element.getAsJsonObject(), pathState, pii, depth);
+            } else {
+                maskArray(element.getAsJsonArray(), fieldName, pathState, pii, depth);
+            }
+            return;
+        }
+        ElementStack stack = new ElementStack();
+        push(stack, element, fieldName, pathState);
+        maskStacked(stack, pii);
     }
 
-    private JsonElement maskArray(JsonArray array, String fieldName) {
-        JsonArray maskedArray = new JsonArray(array.size());
-        array.forEach(element ->
-                maskedArray.add(determineNodeMask(element, fieldName))
-        );
-        return maskedArray;
+    private void maskObject(JsonObject object, int pathState, PiiDetector.Scan pii, int depth) {
+        if (object.size() > parallelThreshold) {
+            List<Map.Entry<String, JsonElement>> entries = new ArrayList<>(object.entrySet());
+            new ParallelMaskTask(i -> maskEntry(entries.get(i), pathState, pii, depth), 0, entries.size()).invoke();
+            return;
+        }
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            maskEntry(entry, pathState, pii, depth);
+        }
     }
 
-    private JsonElement determineNodeMask(JsonElement element, String fieldName) {
+    private void maskEntry(Map.Entry<String, JsonElement> entry, int objectState, PiiDetector.Scan pii, int depth) {
+        JsonElement fieldElement = entry.getValue();
+        JsonElement maskedElement = determineNodeMask(fieldElement, entry.getKey(), paths().field(objectState, entry.getKey()), pii, depth);
+        if (maskedElement != fieldElement) {
+            entry.setValue(maskedElement);
+        }
+    }
+
+    private void maskArray(JsonArray array, String fieldName, int pathState, PiiDetector.Scan pii, int depth) {
+        // All elements share one state
+        int elementState = paths().element(pathState);
+        if (array.size() > parallelThreshold) {
+            new ParallelMaskTask(i -> maskElement(array, i, fieldName, elementState, pii, depth), 0, array.size()).invoke();
+            return;
+        }
+        for (int i = 0; i < array.size(); i++) {
+            maskElement(array, i, fieldName, elementState, pii, depth);
+        }
+    }
+
+    private void maskElement(JsonArray array, int index, String fieldName, int elementState, PiiDetector.Scan pii, int depth) {
+        JsonElement element = array.get(index);
+        JsonElement maskedElement = determineNodeMask(element, fieldName, elementState, pii, depth);
+        if (maskedElement != element) {
+            array.set(index, maskedElement);
+        }
+    }
+
+    private JsonElement determineNodeMask(JsonElement element, String fieldName, int pathState, PiiDetector.Scan pii, int depth) {
         if (element.isJsonPrimitive()) {
-            return jsonShieldConfiguration.shouldMask(fieldName) ?
-                    maskValueNode(element) :
-                    element;
+            return determineValueMask(element, fieldName, pathState, pii);
+        }
+
+        if (element.isJsonObject() || element.isJsonArray()) {
+            // For objects, we don't pass the parent field name down
+            maskContainer(element, element.isJsonArray() ? fieldName : "", pathState, pii, depth + 1);
+        }
+        return element;
+    }
+
+    private JsonElement determineValueMask(JsonElement element, String fieldName, int pathState, PiiDetector.Scan pii) {
+        return jsonShieldConfiguration.shouldMask(fieldName, pathState) || containsPii(element, pii) ?
+                maskValueNode(element) :
+                element;
+    }
+
+    /**
+     * Pushes an array or object onto the stack. Large ones are not masked in parallel at this depth,
+     * as each parallel task would start masking its children from the top of a thread stack again.
+     */
+    private void push(ElementStack stack, JsonElement element, String fieldName, int pathState) {
+        if (element.isJsonObject()) {
+            stack.pushObject(element.getAsJsonObject().entrySet().iterator(), pathState);
+        } else {
+            // All elements share one state
+            stack.pushArray(element.getAsJsonArray(), fieldName, paths().element(pathState));
+        }
+    }
+
+    /**
+     * Masks the children of the arrays and objects on the stack depth first, until the stack is empty.
+     * Values are masked in a loop over the top frame, which is only left to push a nested array or object.
+     */
+    private void maskStacked(ElementStack stack, PiiDetector.Scan pii) {
+        frames:
+        while (!stack.isEmpty()) {
+            int state = stack.state();
+            Iterator<Map.Entry<String, JsonElement>> entries = stack.entries();
+            if (entries != null) {
+                while (entries.hasNext()) {
+                    Map.Entry<String, JsonElement> entry = entries.next();
+                    JsonElement fieldElement = entry.getValue();
+                    int fieldState = paths().field(state, entry.getKey());
+                    if (fieldElement.isJsonPrimitive()) {
+                        JsonElement maskedElement = determineValueMask(fieldElement, entry.getKey(), fieldState, pii);
+                        if (maskedElement != fieldElement) {
+                            entry.setValue(maskedElement);
+                        }
+                    } else if (fieldElement.isJsonObject() || fieldElement.isJsonArray()) {
+                        push(stack, fieldElement, fieldElement.isJsonArray() ? entry.getKey() : "", fieldState);
+                        continue frames;
+                    }
+                }
+            } else {
+                JsonArray array = stack.array();
+                String fieldName = stack.fieldName();
+                int index;
+                while ((index = stack.nextIndex()) < array.size()) {
+                    JsonElement element = array.get(index);
+                    if (element.isJsonPrimitive()) {
+                        JsonElement maskedElement = determineValueMask(element, fieldName, state, pii);
+                        if (maskedElement != element) {
+                            array.set(index, maskedElement);
+                        }
+                    } else if (element.isJsonObject() || element.isJsonArray()) {
+                        push(stack, element, fieldName, state);
+                        continue frames;
+                    }
+                }
+            }
+            stack.pop();
+        }
+    }
+
+    /**
+     * Stack of the arrays and objects being masked. A frame holds either the entry iterator of an object,
+     * or an array with the index of its next element and the field name its elements inherit, along with
+     * the path state of its children. Frames are kept in parallel arrays, which grow as needed and are
+     * reused by every container of a traversal.
+     */
+    private static final class ElementStack {
+        private Iterator<Map.Entry<String, JsonElement>>[] entries = newIterators(16);
+        private JsonArray[] arrays = new JsonArray[16];
+        private String[] fieldNames = new String[16];
+        private int[] indexes = new int[16];
+        private int[] states = new int[16];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private static Iterator<Map.Entry<String, JsonElement>>[] newIterators(int length) {
+            return new Iterator[length];
         }
 
-        if (element.isJsonArray()) {
-            return maskNode(element, fieldName);
+        void pushObject(Iterator<Map.Entry<String, JsonElement>> objectEntries, int state) {
+            ensureCapacity();
+            entries[size] = objectEntries;
+            states[size++] = state;
         }
 
-        // For objects, we don't pass the parent field name down
-        return maskNode(element, "");
+        void pushArray(JsonArray array, String fieldName, int state) {
+            ensureCapacity();
+            entries[size] = null;
+            arrays[size] = array;
+            fieldNames[size] = fieldName;
+            indexes[size] = 0;
+            states[size++] = state;
+        }
+
+        void pop() {
+            size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * @return the entry iterator of the top frame, or null if it is an array
+         */
+        Iterator<Map.Entry<String, JsonElement>> entries() {
+            return entries[size - 1];
+        }
+
+        JsonArray array() {
+            return arrays[size - 1];
+        }
+
+        String fieldName() {
+            return fieldNames[size - 1];
+        }
+
+        /**
+         * @return the index of the next element of the top array, advancing past it
+         */
+        int nextIndex() {
+            return indexes[size - 1]++;
+        }
+
+        int state() {
+            return states[size - 1];
+        }
+
+        private void ensureCapacity() {
+            if (size == states.length) {
+                int length = size * 2;
+                Iterator<Map.Entry<String, JsonElement>>[] grownEntries = newIterators(length);
+                System.arraycopy(entries, 0, grownEntries, 0, size);
+                entries = grownEntries;
+                arrays = Arrays.copyOf(arrays, length);
+                fieldNames = Arrays.copyOf(fieldNames, length);
+                indexes = Arrays.copyOf(indexes, length);
+                states = Arrays.copyOf(states, length);
+            }
+        }
+    }
+
+    /**
+     * Masks the children in a range of a large array or object, halving the range until it holds at most
+     * the parallel threshold. Each child is masked by exactly one task, in place, so no results need to be
+     * merged, and joining the tasks publishes their writes to the caller.
+     */
+    private final class ParallelMaskTask extends RecursiveAction {
+        private final IntConsumer children;
+        private final int from;
+        private final int to;
+
+        ParallelMaskTask(IntConsumer children, int from, int to) {
+            this.children = children;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= parallelThreshold) {
+                for (int i = from; i < to; i++) {
+                    children.accept(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParallelMaskTask(children, from, middle), new ParallelMaskTask(children, middle, to));
+            }
+        }
     }
 }
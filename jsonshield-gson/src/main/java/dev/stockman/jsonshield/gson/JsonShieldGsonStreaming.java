@@ -0,0 +1,275 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import dev.stockman.jsonshield.core.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Streaming implementation of {@link JsonShield} using GSON dependencies.
+ * Tokens are read from a JsonReader and written to a JsonWriter in a single forward pass,
+ * swapping in masks on the fly, so no JsonElement trees are built.
+ * Masking rules are identical to {@link JsonShieldGson}.
+ * The {@link JsonShieldLimits} of the configuration are enforced by the reader as it reads.
+ */
+public class JsonShieldGsonStreaming implements JsonShield {
+
+    private final Gson gson;
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final JsonShieldLimits limits;
+
+    /**
+     * Constructs a new streaming JsonShield instance.
+     *
+     * @param gson the Gson instance whose reader and writer settings are used for JSON processing
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if gson or jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     */
+    public JsonShieldGsonStreaming(Gson gson, JsonShieldConfiguration jsonShieldConfiguration) {
+        this.gson = Objects.requireNonNull(gson, "Gson cannot be null");
+        this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (jsonShieldConfiguration.getPiiDetector() != null) {
+            throw new IllegalArgumentException("PII detection is not supported by JsonShieldGsonStreaming");
+        }
+        this.limits = jsonShieldConfiguration.getLimits();
+    }
+
+    @Override
+    public String mask(String json) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        try {
+            limits.checkInputLength(json.length());
+            if (!jsonShieldConfiguration.requiresMasking(json) && isStrictDocument(new StringReader(json))) {
+                // Nothing to mask, skip writing the document
+                return json;
+            }
+            StringWriter writer = new StringWriter(json.length());
+            mask(new StringReader(json), writer);
+            return writer.toString();
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redact(e);
+        }
+    }
+
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            limits.checkInputLength(json.length);
+            if (!jsonShieldConfiguration.requiresMasking(json, 0, json.length)
+                    && isStrictDocument(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+                // Nothing to mask, skip writing the document
+                return json.clone();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+            mask(new ByteArrayInputStream(json), out);
+            return out.toByteArray();
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redactUtf8(e);
+        }
+    }
+
+    @Override
+    public void mask(InputStream in, OutputStream out) {
+        Objects.requireNonNull(in, "Input stream cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        mask(new InputStreamReader(in, StandardCharsets.UTF_8), new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void mask(Reader in, Writer out) {
+        Objects.requireNonNull(in, "Input Reader cannot be null");
+        Objects.requireNonNull(out, "Output Writer cannot be null");
+        try {
+            copy(newJsonReader(in), newMaskingWriter(out));
+        } catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    /**
+     * Masks a batch of JSON strings into a single output buffer, which is reused across the whole batch.
+     */
+    @Override
+    public List<String> maskAll(List<String> jsons) {
+        Objects.requireNonNull(jsons, "Input JSON list cannot be null");
+        List<String> masked = new ArrayList<>(jsons.size());
+        StringWriter writer = new StringWriter();
+        for (String json : jsons) {
+            Objects.requireNonNull(json, "Input JSON string cannot be null");
+            try {
+                limits.checkInputLength(json.length());
+                if (!jsonShieldConfiguration.requiresMasking(json) && isStrictDocument(new StringReader(json))) {
+                    masked.add(json);
+                    continue;
+                }
+                mask(new StringReader(json), writer);
+                masked.add(writer.toString());
+            } catch (JsonShieldLimitExceededException e) {
+                masked.add(limits.redact(e));
+            }
+            // Also drops whatever part of a redacted document was already written
+            writer.getBuffer().setLength(0);
+        }
+        return masked;
+    }
+
+    /**
+     * Masks a batch of UTF-8 encoded JSON documents into a single output buffer and encoder,
+     * which are reused across the whole batch.
+     */
+    @Override
+    public void maskAll(Iterable<byte[]> jsons, Consumer<byte[]> consumer) {
+        Objects.requireNonNull(jsons, "Input JSON batch cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        for (byte[] json : jsons) {
+            Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+            try {
+                limits.checkInputLength(json.length);
+                if (!jsonShieldConfiguration.requiresMasking(json, 0, json.length)
+                        && isStrictDocument(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+                    consumer.accept(json.clone());
+                    continue;
+                }
+                // The writer is flushed after every document, so the buffer holds exactly this one
+                mask(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8), writer);
+                consumer.accept(out.toByteArray());
+            } catch (JsonShieldLimitExceededException e) {
+                consumer.accept(limits.redactUtf8(e));
+                // Moves whatever part of the redacted document was already written into the buffer, to be dropped
+                flush(writer);
+            }
+            out.reset();
+        }
+    }
+
+    @Override
+    public String mask(Object obj) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        StringWriter writer = new StringWriter();
+        try {
+            gson.toJson(obj, obj.getClass(), newMaskingWriter(writer));
+        } catch (IOException | JsonIOException e) {
+            throw new JsonShieldException("Error masking Object", e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return limits;
+    }
+
+    private boolean isStrictDocument(Reader json) {
+        try {
+            return JsonDocuments.isStrictDocument(newJsonReader(json));
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    private static void flush(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    private JsonReader newJsonReader(Reader in) {
+        JsonReader reader = limits.isUnlimited() ? gson.newJsonReader(in) : LimitingJsonReader.create(in, limits);
+        // Same leniency as JsonParser, which the tree based engine uses
+        reader.setStrictness(Strictness.LENIENT);
+        return reader;
+    }
+
+    private MaskingJsonWriter newMaskingWriter(Writer out) throws IOException {
+        JsonWriter writer = gson.newJsonWriter(out);
+        // Same leniency as Gson.toJson(JsonElement), which the tree based engine uses
+        if (writer.getStrictness() == Strictness.LEGACY_STRICT) {
+            writer.setStrictness(Strictness.LENIENT);
+        }
+        return new MaskingJsonWriter(writer, jsonShieldConfiguration);
+    }
+
+    private static void copy(JsonReader reader, MaskingJsonWriter writer) throws IOException {
+        JsonToken rootToken = JsonDocuments.peekRoot(reader);
+        if (rootToken == JsonToken.END_DOCUMENT) {
+            // Empty content is treated as null, matching JsonParser
+            writer.nullValue();
+            writer.flush();
+            return;
+        }
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_ARRAY -> {
+                    reader.beginArray();
+                    writer.beginArray();
+                    depth++;
+                }
+                case END_ARRAY -> {
+                    reader.endArray();
+                    writer.endArray();
+                    depth--;
+                }
+                case BEGIN_OBJECT -> {
+                    reader.beginObject();
+                    writer.beginObject();
+                    depth++;
+                }
+                case END_OBJECT -> {
+                    reader.endObject();
+                    writer.endObject();
+                    depth--;
+                }
+                case NAME -> writer.name(reader.nextName());
+                case STRING -> {
+                    if (writer.shouldMaskValue()) {
+                        writer.maskedString(reader);
+                    } else {
+                        writer.unmaskedValue(reader.nextString());
+                    }
+                }
+                case NUMBER -> writer.numberLiteral(reader.nextString());
+                case BOOLEAN -> writer.value(reader.nextBoolean());
+                case NULL -> {
+                    reader.nextNull();
+                    writer.nullValue();
+                }
+                case END_DOCUMENT -> throw new EOFException("End of input while masking JSON");
+            }
+        } while (depth > 0);
+        if (rootToken != JsonToken.NULL && reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Did not consume the entire document.");
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * TypeAdapterFactory that masks sensitive data while objects are serialized, so an object becomes masked
+ * JSON in a single pass without any intermediate JsonElement tree. Register it on a GsonBuilder to mask
+ * everything that Gson instance writes:
+ * <pre>{@code
+ * Gson gson = new GsonBuilder().registerTypeAdapterFactory(new JsonShieldTypeAdapterFactory(configuration)).create();
+ * String json = gson.toJson(payment);
+ * }</pre>
+ * Masking rules are identical to {@link JsonShieldGson}. The adapters it creates wrap the JsonWriter of the
+ * outermost value they are asked to write, so nested values are masked by the same writer, and path rules are
+ * matched from that outermost value, which is the root of the document written by {@code toJson}. Deserialization
+ * is left untouched. Gson serializes JsonElement values with a built-in adapter that takes precedence over
+ * registered factories, so a JsonElement passed to {@code toJson} is not masked; use {@link JsonShieldGson} for those.
+ */
+public class JsonShieldTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+
+    /**
+     * Constructs a new factory.
+     *
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if jsonShieldConfiguration is null
+     */
+    public JsonShieldTypeAdapterFactory(JsonShieldConfiguration jsonShieldConfiguration) {
+        this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                delegate.write(out instanceof MaskingJsonWriter ? out : new MaskingJsonWriter(out, jsonShieldConfiguration), value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                return delegate.read(in);
+            }
+        };
+    }
+}
@@ -0,0 +1,197 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * JsonReader that enforces the {@link JsonShieldLimits} of a configuration as it reads: it counts the characters
+ * read from the underlying reader, the tokens it hands out and the open arrays and objects, and measures every
+ * string value and field name it returns. Values skipped with {@link #skipValue()} are walked token by token,
+ * so they are counted and measured as well.
+ */
+final class LimitingJsonReader extends JsonReader {
+    private final JsonShieldLimits limits;
+    private int depth;
+    private long tokens;
+
+    private LimitingJsonReader(Reader in, JsonShieldLimits limits) {
+        super(limits.getMaxInputLength() == Long.MAX_VALUE ? in : new CountingReader(in, limits));
+        this.limits = limits;
+        if (limits.getMaxDepth() != Integer.MAX_VALUE) {
+            // Gson limits nesting on its own, which must not get in the way of a higher configured depth
+            setNestingLimit(Math.max(getNestingLimit(), limits.getMaxDepth()));
+        }
+    }
+
+    /**
+     * Creates a reader enforcing the limits, or a plain JsonReader if no limit is set.
+     */
+    static JsonReader create(Reader in, JsonShieldLimits limits) {
+        return limits.isUnlimited() ? new JsonReader(in) : new LimitingJsonReader(in, limits);
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        enter();
+        super.beginArray();
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        countToken();
+        super.endArray();
+        depth--;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        enter();
+        super.beginObject();
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        countToken();
+        super.endObject();
+        depth--;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        countToken();
+        String name = super.nextName();
+        limits.checkStringLength(name.length());
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        countToken();
+        // Numbers may be read as strings as well, but only string values are measured
+        boolean string = peek() == JsonToken.STRING;
+        String value = super.nextString();
+        if (string) {
+            limits.checkStringLength(value.length());
+        }
+        return value;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        countToken();
+        return super.nextBoolean();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        countToken();
+        super.nextNull();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        countToken();
+        return super.nextDouble();
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        countToken();
+        return super.nextLong();
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        countToken();
+        return super.nextInt();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY -> {
+                    beginArray();
+                    count++;
+                }
+                case BEGIN_OBJECT -> {
+                    beginObject();
+                    count++;
+                }
+                case END_ARRAY -> {
+                    endArray();
+                    count--;
+                }
+                case END_OBJECT -> {
+                    endObject();
+                    count--;
+                }
+                case NAME -> nextName();
+                case STRING -> {
+                    if (limits.getMaxStringLength() == Integer.MAX_VALUE) {
+                        countToken();
+                        super.skipValue();
+                    } else {
+                        // Only a string read in full can be measured
+                        nextString();
+                    }
+                }
+                case END_DOCUMENT -> {
+                    super.skipValue();
+                    return;
+                }
+                default -> {
+                    countToken();
+                    super.skipValue();
+                }
+            }
+        } while (count > 0);
+    }
+
+    private void enter() {
+        countToken();
+        limits.checkDepth(++depth);
+    }
+
+    private void countToken() {
+        limits.checkTokens(++tokens);
+    }
+
+    /**
+     * Counts the characters read, failing as soon as they exceed the maximum input length.
+     */
+    private static final class CountingReader extends FilterReader {
+        private final JsonShieldLimits limits;
+        private long count;
+
+        CountingReader(Reader in, JsonShieldLimits limits) {
+            super(in);
+            this.limits = limits;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                limits.checkInputLength(++count);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+                limits.checkInputLength(count);
+            }
+            return n;
+        }
+    }
+}
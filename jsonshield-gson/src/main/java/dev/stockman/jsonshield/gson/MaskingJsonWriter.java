@@ -0,0 +1,299 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.stockman.jsonshield.core.JsonPathAutomaton;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.PiiDetector;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * JsonWriter wrapper that replaces scalar values with their masks as they are written.
+ * A small stack of field names and path automaton states is kept so the masking decision for each value
+ * follows the same rules as the tree based {@link JsonShieldGson}: values inside objects are decided by their
+ * field name and path, array elements inherit the name of the enclosing field, and root scalars are decided by
+ * {@link JsonShieldConfiguration#shouldMaskScalarRoot()}. String values are also scanned by the configured
+ * {@link PiiDetector}, within one budget per writer.
+ */
+class MaskingJsonWriter extends JsonWriter {
+
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int counter) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    private final JsonWriter delegate;
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final JsonPathAutomaton paths;
+    private final BigDecimal decimalMask;
+    private final PiiDetector.Scan pii;
+    // The raw value of a masked string is only needed to derive its token
+    private final boolean tokenize;
+    private String[] names = new String[32];
+    // Path automaton state of each open object, and of the value currently written inside each open container
+    private int[] containerStates = new int[32];
+    private int[] valueStates = new int[32];
+    private int depth;
+
+    MaskingJsonWriter(JsonWriter delegate, JsonShieldConfiguration jsonShieldConfiguration) {
+        super(UNWRITABLE_WRITER);
+        this.delegate = delegate;
+        this.jsonShieldConfiguration = jsonShieldConfiguration;
+        this.paths = jsonShieldConfiguration.getPathAutomaton();
+        this.decimalMask = jsonShieldConfiguration.getDecimalMask() == null ? null : BigDecimal.valueOf(jsonShieldConfiguration.getDecimalMask());
+        PiiDetector piiDetector = jsonShieldConfiguration.getPiiDetector();
+        this.pii = piiDetector == null ? null : piiDetector.newScan();
+        this.tokenize = jsonShieldConfiguration.getTokenizer() != null;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        // Array elements inherit the name under which the array itself sits
+        int state = valueState();
+        push(depth == 0 ? "" : names[depth - 1], state, paths.element(state));
+        delegate.beginArray();
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        delegate.endArray();
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        push("", valueState(), JsonPathAutomaton.DEAD);
+        delegate.beginObject();
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        delegate.endObject();
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        delegate.name(name);
+        names[depth - 1] = name;
+        valueStates[depth - 1] = paths.field(containerStates[depth - 1], name);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value != null && (shouldMaskValue() || pii != null && pii.containsPii(value))) {
+            writeStringMask(value);
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value != null && shouldMaskValue()) {
+            writeStringMask(value);
+        } else {
+            delegate.jsonValue(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        if (shouldMaskValue()) {
+            writeBooleanMask();
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (value != null && shouldMaskValue()) {
+            writeBooleanMask();
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumericMask(Float.toString(value));
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumericMask(Double.toString(value));
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumberMask();
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value != null && shouldMaskValue()) {
+            writeNumericMask(value.toString());
+        } else {
+            delegate.value(value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        delegate.nullValue();
+        return this;
+    }
+
+    @Override
+    public boolean isLenient() {
+        return delegate.isLenient();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Determines whether the value about to be written should be masked.
+     */
+    boolean shouldMaskValue() {
+        return depth == 0
+                ? jsonShieldConfiguration.shouldMaskScalarRoot()
+                : jsonShieldConfiguration.shouldMask(names[depth - 1], valueStates[depth - 1]);
+    }
+
+    private int valueState() {
+        return depth == 0 ? paths.root() : valueStates[depth - 1];
+    }
+
+    /**
+     * Writes a number literal read from a JsonReader, masking it if required.
+     */
+    void numberLiteral(String literal) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumericMask(literal);
+        } else {
+            delegate.jsonValue(literal);
+        }
+    }
+
+    /**
+     * Writes a string value without consulting the masking rules.
+     */
+    void unmaskedValue(String value) throws IOException {
+        delegate.value(value);
+    }
+
+    /**
+     * Reads a string value from a JsonReader and writes its mask, skipping the value unless its token is needed.
+     */
+    void maskedString(JsonReader reader) throws IOException {
+        if (tokenize) {
+            writeStringMask(reader.nextString());
+        } else {
+            reader.skipValue();
+            writeStringMask(null);
+        }
+    }
+
+    /**
+     * Writes the mask of a string value.
+     *
+     * @param value the raw value, needed for tokenization only, or null to write the plain string mask
+     */
+    private void writeStringMask(String value) throws IOException {
+        String mask = value == null ? jsonShieldConfiguration.getStringMask() : jsonShieldConfiguration.getStringMask(value);
+        if (mask == null) {
+            delegate.nullValue();
+        } else {
+            delegate.value(mask);
+        }
+    }
+
+    private void writeNumericMask(String numStr) throws IOException {
+        if (numStr.contains(".")) {
+            if (decimalMask == null) {
+                delegate.nullValue();
+            } else {
+                delegate.value(decimalMask);
+            }
+        } else {
+            writeNumberMask();
+        }
+    }
+
+    private void writeNumberMask() throws IOException {
+        if (jsonShieldConfiguration.getNumberMask() == null) {
+            delegate.nullValue();
+        } else {
+            delegate.value(jsonShieldConfiguration.getNumberMask());
+        }
+    }
+
+    private void writeBooleanMask() throws IOException {
+        if (jsonShieldConfiguration.getBooleanMask() == null) {
+            delegate.nullValue();
+        } else {
+            delegate.value(jsonShieldConfiguration.getBooleanMask());
+        }
+    }
+
+    private void push(String name, int containerState, int valueState) {
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+            containerStates = Arrays.copyOf(containerStates, depth * 2);
+            valueStates = Arrays.copyOf(valueStates, depth * 2);
+        }
+        containerStates[depth] = containerState;
+        valueStates[depth] = valueState;
+        names[depth++] = name;
+    }
+}
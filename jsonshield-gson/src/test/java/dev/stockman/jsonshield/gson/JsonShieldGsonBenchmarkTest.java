@@ -0,0 +1,18 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.test.AbstractTreeMaskingBenchmark;
+import org.junit.jupiter.api.DisplayName;
+
+@DisplayName("GSON tree masking benchmark")
+public class JsonShieldGsonBenchmarkTest extends AbstractTreeMaskingBenchmark {
+
+    @Override
+    protected Runnable createTreeMasking(JsonShieldConfiguration configuration, String json) {
+        JsonShieldGson jsonShield = new JsonShieldGson(JsonHelper.formattedGson(), configuration);
+        JsonElement element = JsonParser.parseString(json);
+        return () -> jsonShield.maskInPlace(element);
+    }
+}
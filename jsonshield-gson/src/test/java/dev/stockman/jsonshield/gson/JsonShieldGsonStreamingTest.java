@@ -0,0 +1,46 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.JsonParser;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.PiiType;
+import dev.stockman.jsonshield.test.AbstractJsonShieldTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GSON streaming JSON provider unit tests")
+public class JsonShieldGsonStreamingTest extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        return new JsonShieldGsonStreaming(JsonHelper.formattedGson(), jsonShieldConfiguration);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        return JsonHelper.formattedGson().toJson(JsonParser.parseString(json));
+    }
+
+    @Test
+    @DisplayName("PII detection is rejected")
+    void testPiiDetectionRejected() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.EMAIL).build();
+        assertThrows(IllegalArgumentException.class, () -> createJsonShield(configuration));
+    }
+
+    @Test
+    @DisplayName("Mask documents with unquoted and single quoted names")
+    void testLenientNames() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+        for (String input : List.of("{f1:\"secret\"}", "{'f1':'secret'}")) {
+            assertEquals(cleanJsonify("{\"f1\":\"*****\"}"), jsonShield.mask(input), input);
+            assertFalse(new String(jsonShield.mask(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8).contains("secret"), input);
+            assertFalse(jsonShield.maskAll(List.of(input)).getFirst().contains("secret"), input);
+        }
+    }
+}
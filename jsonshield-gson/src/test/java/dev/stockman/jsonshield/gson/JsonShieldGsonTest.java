@@ -1,10 +1,22 @@
 package dev.stockman.jsonshield.gson;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import dev.stockman.jsonshield.core.JsonShield;
 import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.PiiType;
 import dev.stockman.jsonshield.test.AbstractJsonShieldTest;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("GSON JSON provider unit tests")
 public class JsonShieldGsonTest extends AbstractJsonShieldTest {
@@ -18,4 +30,85 @@ public class JsonShieldGsonTest extends AbstractJsonShieldTest {
     protected String cleanJsonify(String json) {
         return JsonHelper.formattedGson().toJson(JsonParser.parseString(json));
     }
+
+    @Test
+    @DisplayName("Mask documents with unquoted and single quoted names")
+    void testLenientNames() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+        for (String input : List.of("{f1:\"secret\"}", "{'f1':'secret'}")) {
+            assertEquals(cleanJsonify("{\"f1\":\"*****\"}"), jsonShield.mask(input), input);
+            assertFalse(new String(jsonShield.mask(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8).contains("secret"), input);
+            assertFalse(jsonShield.maskAll(List.of(input)).getFirst().contains("secret"), input);
+        }
+    }
+
+    @Test
+    @DisplayName("Mask JsonElement in place and as a copy")
+    void testMaskTree() {
+        JsonShieldGson jsonShield = new JsonShieldGson(JsonHelper.formattedGson(), JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build());
+        String input = "{\"secret\":\"value\",\"list\":[{\"secret\":[1,true]}],\"other\":\"value\"}";
+        String output = "{\"secret\":\"*****\",\"list\":[{\"secret\":[0,false]}],\"other\":\"value\"}";
+
+        JsonElement original = JsonParser.parseString(input);
+        JsonElement copy = jsonShield.maskTree(original);
+        assertNotSame(original, copy);
+        assertEquals(JsonParser.parseString(input), original);
+        assertEquals(JsonParser.parseString(output), copy);
+
+        assertSame(original, jsonShield.maskInPlace(original));
+        assertEquals(JsonParser.parseString(output), original);
+
+        JsonShieldGson whitelist = new JsonShieldGson(JsonHelper.formattedGson(), JsonShieldConfiguration.useWhiteListStrategy().build());
+        assertEquals(new JsonPrimitive("*****"), whitelist.maskInPlace(new JsonPrimitive("value")));
+        assertThrows(NullPointerException.class, () -> jsonShield.maskInPlace(null));
+        assertThrows(NullPointerException.class, () -> jsonShield.maskTree(null));
+    }
+
+    @Test
+    @DisplayName("Mask 100k levels of nesting without recursion")
+    void testDeepNesting() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build();
+        for (JsonShieldGson jsonShield : List.of(new JsonShieldGson(JsonHelper.formattedGson(), configuration),
+                new JsonShieldGson(JsonHelper.formattedGson(), configuration, 1))) {
+            JsonObject leaf = new JsonObject();
+            leaf.addProperty("secret", "value");
+            leaf.addProperty("other", "value");
+            JsonElement root = leaf;
+            for (int i = 0; i < 50_000; i++) {
+                // Two elements, so that every level is split into parallel tasks
+                JsonArray list = new JsonArray();
+                list.add(root);
+                list.add("value");
+                JsonObject object = new JsonObject();
+                object.add("list", list);
+                root = object;
+            }
+            assertSame(root, jsonShield.maskInPlace(root));
+            assertEquals(new JsonPrimitive("*****"), leaf.get("secret"));
+            assertEquals(new JsonPrimitive("value"), leaf.get("other"));
+        }
+    }
+
+    @Test
+    @DisplayName("Detect PII in unlisted fields")
+    void testPiiDetection() {
+        JsonShieldGson jsonShield = new JsonShieldGson(JsonHelper.formattedGson(), JsonShieldConfiguration.useBlackListStrategy()
+                .addField("secret").withPiiDetection(PiiType.values()).build());
+        String input = "{\"note\":\"card 4111 1111 1111 1111\",\"list\":[\"mail jane.doe@example.com\",\"ok\"],"
+                + "\"ssn\":\"123-45-6789\",\"iban\":\"DE89 3704 0044 0532 0130 00\",\"order\":\"4111111111111112\",\"id\":4111111111111111}";
+        String output = "{\"note\":\"*****\",\"list\":[\"*****\",\"ok\"],\"ssn\":\"*****\",\"iban\":\"*****\","
+                + "\"order\":\"4111111111111112\",\"id\":4111111111111111}";
+        assertEquals(JsonParser.parseString(output), JsonParser.parseString(jsonShield.mask(input)));
+        assertEquals(JsonParser.parseString(output), JsonParser.parseString(new String(jsonShield.mask(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)));
+        assertEquals(JsonParser.parseString("{\"note\":\"*****\",\"ok\":\"none\"}"),
+                JsonParser.parseString(jsonShield.mask((Object) Map.of("note", "jane@example.org", "ok", "none"))));
+        assertEquals(new JsonPrimitive("*****"), jsonShield.maskInPlace(new JsonPrimitive("4111-1111-1111-1111")));
+
+        // Only the first 30 characters of each document are scanned
+        JsonShieldGson budgeted = new JsonShieldGson(JsonHelper.formattedGson(), JsonShieldConfiguration.useBlackListStrategy()
+                .withPiiDetection(PiiType.EMAIL).withPiiDetectionBudget(30).build());
+        assertEquals(JsonParser.parseString("[\"*****\",\"*****\",\"c@example.com\"]"),
+                JsonParser.parseString(budgeted.mask("[\"a@example.com\",\"b@example.com\",\"c@example.com\"]")));
+        assertEquals(JsonParser.parseString("[\"*****\"]"), JsonParser.parseString(budgeted.mask("[\"a@example.com\"]")));
+    }
 }
@@ -0,0 +1,59 @@
+package dev.stockman.jsonshield.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.test.AbstractJsonShieldComplexSchemaTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GSON type adapter factory complex schema tests")
+public class JsonShieldTypeAdapterFactoryComplexSchemaTest extends AbstractJsonShieldComplexSchemaTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        Gson gson = JsonHelper.formattedGson().newBuilder()
+                .registerTypeAdapterFactory(new JsonShieldTypeAdapterFactory(jsonShieldConfiguration))
+                .create();
+        JsonShield jsonShield = new JsonShieldGson(JsonHelper.formattedGson(), jsonShieldConfiguration);
+        return new JsonShield() {
+            @Override
+            public String mask(String json) {
+                // The factory only applies to serialization
+                return jsonShield.mask(json);
+            }
+
+            @Override
+            public String mask(Object obj) {
+                return gson.toJson(obj);
+            }
+        };
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        return JsonHelper.formattedGson().toJson(JsonParser.parseString(json));
+    }
+
+    record Account(String owner, String secret, List<String> pins, Map<String, Object> extra) {
+    }
+
+    @Test
+    @DisplayName("Serialization and tree conversion are masked, deserialization is not")
+    void testFactory() {
+        Gson gson = new Gson().newBuilder().registerTypeAdapterFactory(new JsonShieldTypeAdapterFactory(
+                JsonShieldConfiguration.useBlackListStrategy().addFields("secret", "pins", "cvv").build())).create();
+        Account account = new Account("John", "s3cr3t", List.of("1234", "5678"), Map.of("cvv", 123));
+        String masked = "{\"owner\":\"John\",\"secret\":\"*****\",\"pins\":[\"*****\",\"*****\"],\"extra\":{\"cvv\":0}}";
+        assertEquals(masked, gson.toJson(account));
+        assertEquals(JsonParser.parseString(masked), gson.toJsonTree(account));
+        assertEquals("s3cr3t", gson.fromJson("{\"secret\":\"s3cr3t\"}", Account.class).secret());
+        assertThrows(NullPointerException.class, () -> new JsonShieldTypeAdapterFactory(null));
+    }
+}
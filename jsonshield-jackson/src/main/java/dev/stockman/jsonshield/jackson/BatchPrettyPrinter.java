@@ -0,0 +1,84 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.PrettyPrinter;
+
+import java.io.IOException;
+
+/**
+ * PrettyPrinter wrapper that leaves out the separator between root values, for generators that write
+ * a batch of documents one after another, each taken from the target before the next one is written.
+ * Everything else is delegated, so every document is laid out as if it had been written on its own.
+ */
+final class BatchPrettyPrinter implements PrettyPrinter {
+
+    private final PrettyPrinter delegate;
+
+    private BatchPrettyPrinter(PrettyPrinter delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Configures a generator to write root values without any separator between them.
+     *
+     * @param generator the generator to configure
+     * @return the given generator
+     */
+    static JsonGenerator configure(JsonGenerator generator) {
+        generator.setRootValueSeparator(null);
+        if (generator.getPrettyPrinter() != null) {
+            generator.setPrettyPrinter(new BatchPrettyPrinter(generator.getPrettyPrinter()));
+        }
+        return generator;
+    }
+
+    @Override
+    public void writeRootValueSeparator(JsonGenerator gen) {
+        // Each document is taken from the target on its own
+    }
+
+    @Override
+    public void writeStartObject(JsonGenerator gen) throws IOException {
+        delegate.writeStartObject(gen);
+    }
+
+    @Override
+    public void writeEndObject(JsonGenerator gen, int nrOfEntries) throws IOException {
+        delegate.writeEndObject(gen, nrOfEntries);
+    }
+
+    @Override
+    public void writeObjectEntrySeparator(JsonGenerator gen) throws IOException {
+        delegate.writeObjectEntrySeparator(gen);
+    }
+
+    @Override
+    public void writeObjectFieldValueSeparator(JsonGenerator gen) throws IOException {
+        delegate.writeObjectFieldValueSeparator(gen);
+    }
+
+    @Override
+    public void writeStartArray(JsonGenerator gen) throws IOException {
+        delegate.writeStartArray(gen);
+    }
+
+    @Override
+    public void writeEndArray(JsonGenerator gen, int nrOfValues) throws IOException {
+        delegate.writeEndArray(gen, nrOfValues);
+    }
+
+    @Override
+    public void writeArrayValueSeparator(JsonGenerator gen) throws IOException {
+        delegate.writeArrayValueSeparator(gen);
+    }
+
+    @Override
+    public void beforeArrayValues(JsonGenerator gen) throws IOException {
+        delegate.beforeArrayValues(gen);
+    }
+
+    @Override
+    public void beforeObjectEntries(JsonGenerator gen) throws IOException {
+        delegate.beforeObjectEntries(gen);
+    }
+}
@@ -0,0 +1,49 @@
+package dev.stockman.jsonshield.jackson;
+
+import dev.stockman.jsonshield.core.JsonPathAutomaton;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+
+/**
+ * Small, single use cache of masking decisions keyed on the identity of field name Strings.
+ * Jackson canonicalizes field names through its symbol tables, so every occurrence of a key within
+ * a document is the same String instance and is decided by {@link JsonShieldConfiguration#shouldMask(String)}
+ * only once. Names that are not canonical simply miss the cache; once it is half full no more entries
+ * are added, so the cost stays bounded either way. Values matched by a path rule bypass the cache.
+ */
+final class FieldDecisionCache {
+    private static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final JsonPathAutomaton paths;
+    private final String[] names = new String[CAPACITY];
+    private final boolean[] decisions = new boolean[CAPACITY];
+    private int size;
+
+    FieldDecisionCache(JsonShieldConfiguration jsonShieldConfiguration) {
+        this.jsonShieldConfiguration = jsonShieldConfiguration;
+        this.paths = jsonShieldConfiguration.getPathAutomaton();
+    }
+
+    boolean shouldMask(String fieldName, int pathState) {
+        return paths.matches(pathState) ? jsonShieldConfiguration.shouldMask(fieldName, pathState) : shouldMask(fieldName);
+    }
+
+    boolean shouldMask(String fieldName) {
+        int slot = System.identityHashCode(fieldName) & MASK;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (name == fieldName) {
+                return decisions[slot];
+            }
+            slot = (slot + 1) & MASK;
+        }
+        boolean decision = jsonShieldConfiguration.shouldMask(fieldName);
+        if (size < CAPACITY / 2) {
+            names[slot] = fieldName;
+            decisions[slot] = decision;
+            size++;
+        }
+        return decision;
+    }
+}
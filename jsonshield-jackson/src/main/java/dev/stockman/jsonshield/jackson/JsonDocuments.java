@@ -0,0 +1,69 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+
+import java.io.IOException;
+
+/**
+ * Helpers for documents that turned out not to need any masking.
+ */
+final class JsonDocuments {
+
+    private JsonDocuments() {
+    }
+
+    /**
+     * Tells whether documents read by the mapper can skip masking when the prescan finds no configured key in them.
+     * The prescan only finds names in double quotes, so it cannot be trusted if the mapper accepts unquoted
+     * or single quoted names.
+     *
+     * @param mapper the mapper whose parsers read the documents
+     * @return true if the parsers of the mapper only accept names in double quotes
+     */
+    static boolean canPrescan(ObjectMapper mapper) {
+        return !mapper.isEnabled(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES.mappedFeature())
+                && !mapper.isEnabled(JsonReadFeature.ALLOW_SINGLE_QUOTES.mappedFeature());
+    }
+
+    /**
+     * Validates a document by reading through its tokens without building or writing anything.
+     * The parser skips strings without materializing them, so if their length is limited,
+     * the document is walked token by token to measure them instead.
+     *
+     * @param parser a parser positioned before the document
+     * @param limits the limits of the configuration
+     * @return true if the parser holds exactly one value, false if it is empty or followed by more content,
+     * which is left to the regular masking path to deal with
+     * @throws IOException if the document is not valid JSON
+     */
+    static boolean skipDocument(JsonParser parser, JsonShieldLimits limits) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return false;
+        }
+        if (limits.getMaxStringLength() == Integer.MAX_VALUE) {
+            parser.skipChildren();
+        } else {
+            int depth = 0;
+            do {
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                } else if (token == JsonToken.VALUE_STRING) {
+                    limits.checkStringLength(parser.getTextLength());
+                }
+            } while (depth > 0 && (token = parser.nextToken()) != null);
+        }
+        try {
+            return parser.nextToken() == null;
+        } catch (StreamReadException e) {
+            return false;
+        }
+    }
+}
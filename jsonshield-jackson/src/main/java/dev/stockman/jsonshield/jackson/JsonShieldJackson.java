@@ -1,24 +1,55 @@
 package dev.stockman.jsonshield.jackson;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.*;
 import dev.stockman.jsonshield.core.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * Utility class for masking sensitive data in JSON content using Jackson dependencies.
  * Provides methods to mask both JSON strings and JsonNode objects,
  * replacing values with predefined masks while preserving the JSON structure.
+ * JsonNode trees can be masked in place with {@link #maskInPlace(JsonNode)}
+ * or as a copy with {@link #maskTree(JsonNode)}.
+ * Very large arrays and objects can optionally be masked in parallel, see
+ * {@link #JsonShieldJackson(ObjectMapper, JsonShieldConfiguration, int)}.
+ * The {@link JsonShieldLimits} of the configuration are enforced through the
+ * {@link com.fasterxml.jackson.core.StreamReadConstraints} of the parsers, on top of those of the mapper.
  */
 public class JsonShieldJackson implements JsonShield {
 
     private final ObjectMapper mapper;
+    // Reads through parsers constrained by the limits of the configuration
+    private final ObjectMapper parsingMapper;
     private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final JsonShieldLimits limits;
+    // Whether documents without any configured key can be returned without masking
+    private final boolean prescan;
+    private final int parallelThreshold;
     private static final String MASK = "*****";
+    // Levels of nesting masked by recursion before continuing on an explicit stack
+    private static final int RECURSION_DEPTH = 32;
 
     /**
      * Constructs a new JsonShield instance.
@@ -30,32 +61,272 @@ public class JsonShieldJackson implements JsonShield {
     public JsonShieldJackson(ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration) {
         this.mapper = Objects.requireNonNull(mapper, "ObjectMapper cannot be null");
         this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        this.limits = jsonShieldConfiguration.getLimits();
+        this.parsingMapper = StreamLimits.constrain(mapper, limits);
+        this.prescan = JsonDocuments.canPrescan(mapper);
+        this.parallelThreshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Constructs a new JsonShield instance that masks large arrays and objects in parallel.
+     * An array or object with more elements or fields than the threshold is split into fork/join tasks,
+     * halving its range of children until each task holds at most the threshold, so a single huge document
+     * is masked on all workers of the fork/join pool it is masked from, or else the common pool.
+     * Children are masked in place, so the result keeps their order. Arrays and objects nested more than
+     * 32 levels deep are masked sequentially, so that nesting depth never costs thread stack.
+     *
+     * @param mapper the ObjectMapper to be used for JSON processing
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @param parallelThreshold the number of children above which an array or object is masked in parallel
+     * @throws NullPointerException if mapper or jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if parallelThreshold is less than 1
+     */
+    public JsonShieldJackson(ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration, int parallelThreshold) {
+        this.mapper = Objects.requireNonNull(mapper, "ObjectMapper cannot be null");
+        this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1");
+        }
+        this.limits = jsonShieldConfiguration.getLimits();
+        this.parsingMapper = StreamLimits.constrain(mapper, limits);
+        this.prescan = JsonDocuments.canPrescan(mapper);
+        this.parallelThreshold = parallelThreshold;
     }
 
     @Override
     public String mask(String json) {
         Objects.requireNonNull(json, "Input JSON string cannot be null");
-        JsonNode rootNode = validate(json);
-        JsonNode maskedNode = mask(rootNode);
-        return writeValueAsString(maskedNode);
+        try {
+            limits.checkInputLength(json.length());
+            if (prescan && !jsonShieldConfiguration.requiresMasking(json) && isValidDocument(json)) {
+                // Nothing to mask, skip building and serializing the tree
+                return json;
+            }
+            JsonNode rootNode = validate(json);
+            JsonNode maskedNode = maskInPlace(rootNode);
+            return writeValueAsString(maskedNode);
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redact(e);
+        }
+    }
+
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            limits.checkInputLength(json.length);
+            if (prescan && !jsonShieldConfiguration.requiresMasking(json, 0, json.length) && isValidDocument(json)) {
+                // Nothing to mask, skip building and serializing the tree
+                return json.clone();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+            mask(parsingMapper.createParser(json), mapper.createGenerator(out));
+            return out.toByteArray();
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redactUtf8(e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    @Override
+    public void mask(InputStream in, OutputStream out) {
+        Objects.requireNonNull(in, "Input stream cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        try {
+            mask(parsingMapper.createParser(StreamLimits.limit(in, limits)), mapper.createGenerator(out));
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    @Override
+    public void mask(Reader in, Writer out) {
+        Objects.requireNonNull(in, "Input Reader cannot be null");
+        Objects.requireNonNull(out, "Output Writer cannot be null");
+        try {
+            mask(parsingMapper.createParser(StreamLimits.limit(in, limits)), mapper.createGenerator(out));
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    /**
+     * Masks a batch of JSON strings, serializing every masked tree through a single generator and output
+     * buffer and caching field decisions across the whole batch.
+     */
+    @Override
+    public List<String> maskAll(List<String> jsons) {
+        Objects.requireNonNull(jsons, "Input JSON list cannot be null");
+        List<String> masked = new ArrayList<>(jsons.size());
+        FieldDecisionCache fieldDecisions = new FieldDecisionCache(jsonShieldConfiguration);
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = BatchPrettyPrinter.configure(mapper.createGenerator(writer))) {
+            for (String json : jsons) {
+                Objects.requireNonNull(json, "Input JSON string cannot be null");
+                JsonNode rootNode;
+                try {
+                    limits.checkInputLength(json.length());
+                    if (prescan && !jsonShieldConfiguration.requiresMasking(json) && isValidDocument(json)) {
+                        masked.add(json);
+                        continue;
+                    }
+                    rootNode = validate(json);
+                } catch (JsonShieldLimitExceededException e) {
+                    masked.add(limits.redact(e));
+                    continue;
+                }
+                writeMasked(generator, rootNode, fieldDecisions);
+                masked.add(writer.toString());
+                writer.getBuffer().setLength(0);
+            }
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+        return masked;
+    }
+
+    /**
+     * Masks a batch of UTF-8 encoded JSON documents, serializing every masked tree through a single generator
+     * and output buffer and caching field decisions across the whole batch.
+     */
+    @Override
+    public void maskAll(Iterable<byte[]> jsons, Consumer<byte[]> consumer) {
+        Objects.requireNonNull(jsons, "Input JSON batch cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        FieldDecisionCache fieldDecisions = new FieldDecisionCache(jsonShieldConfiguration);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = BatchPrettyPrinter.configure(mapper.createGenerator(out))) {
+            for (byte[] json : jsons) {
+                Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+                JsonNode rootNode;
+                try {
+                    limits.checkInputLength(json.length);
+                    if (prescan && !jsonShieldConfiguration.requiresMasking(json, 0, json.length) && isValidDocument(json)) {
+                        consumer.accept(json.clone());
+                        continue;
+                    }
+                    rootNode = validate(json);
+                } catch (JsonShieldLimitExceededException e) {
+                    consumer.accept(limits.redactUtf8(e));
+                    continue;
+                }
+                writeMasked(generator, rootNode, fieldDecisions);
+                consumer.accept(out.toByteArray());
+                out.reset();
+            }
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
     }
 
+    /**
+     * Masks sensitive data while serializing the given object, writing masks in place of sensitive values
+     * as the object is written, so no intermediate JsonNode tree is built.
+     *
+     * @param obj the object to be serialized and masked
+     * @return a JSON string with masked values
+     * @throws NullPointerException if the input object is null
+     * @throws JsonShieldException if there is an error during serialization
+     */
     @Override
     public String mask(Object obj) {
         Objects.requireNonNull(obj, "Input Object cannot be null");
-        JsonNode rootNode = mapper.valueToTree(obj);
-        JsonNode maskedNode = !rootNode.isValueNode() ? mask(rootNode) : jsonShieldConfiguration.shouldMaskScalarRoot() ? mask(rootNode) : rootNode;
-        return writeValueAsString(maskedNode);
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new MaskingJsonGenerator(mapper.createGenerator(writer), jsonShieldConfiguration)) {
+            mapper.writeValue(generator, obj);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking Object", e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return limits;
+    }
+
+    private JsonNode validate(byte[] json) {
+        try {
+            return parsingMapper.readTree(json);
+        } catch (StreamConstraintsException e) {
+            throw limitExceeded(e);
+        } catch (Exception e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        }
+    }
+
+    private void writeMasked(JsonGenerator generator, JsonNode rootNode, FieldDecisionCache fieldDecisions) throws IOException {
+        JsonNode maskedNode;
+        try {
+            // Empty content is treated as null, matching mask(byte[])
+            maskedNode = rootNode == null || rootNode.isMissingNode() ? NullNode.getInstance() : maskNode(rootNode, "", paths().root(), fieldDecisions, newPiiScan());
+        } catch (Exception e) {
+            throw new JsonShieldException("Error masking JsonNode", e);
+        }
+        mapper.writeTree(generator, maskedNode);
+        generator.flush();
     }
 
     private JsonNode validate(String json) {
         try {
-            return mapper.readTree(json);
+            return parsingMapper.readTree(json);
+        } catch (StreamConstraintsException e) {
+            throw limitExceeded(e);
+        } catch (Exception e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        }
+    }
+
+    private boolean isValidDocument(String json) {
+        try (JsonParser parser = parsingMapper.createParser(json)) {
+            return JsonDocuments.skipDocument(parser, limits);
+        } catch (StreamConstraintsException e) {
+            throw limitExceeded(e);
+        } catch (JsonShieldLimitExceededException e) {
+            throw e;
         } catch (Exception e) {
             throw new InvalidJsonException("Invalid JSON", e);
         }
     }
 
+    private boolean isValidDocument(byte[] json) {
+        try (JsonParser parser = parsingMapper.createParser(json)) {
+            return JsonDocuments.skipDocument(parser, limits);
+        } catch (StreamConstraintsException e) {
+            throw limitExceeded(e);
+        } catch (JsonShieldLimitExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        }
+    }
+
+    /**
+     * Reads a single document from the parser and writes it masked to the generator,
+     * leaving the underlying source and target open.
+     */
+    private void mask(JsonParser parser, JsonGenerator generator) throws IOException {
+        try (parser; generator) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            JsonNode rootNode;
+            try {
+                rootNode = parsingMapper.readTree(parser);
+            } catch (StreamConstraintsException e) {
+                throw limitExceeded(e);
+            } catch (JsonProcessingException e) {
+                throw new InvalidJsonException("Invalid JSON", e);
+            }
+            // Empty content is treated as null, matching mask(String)
+            mapper.writeTree(generator, rootNode == null || rootNode.isMissingNode() ? NullNode.getInstance() : maskInPlace(rootNode));
+        }
+    }
+
+    private JsonShieldLimitExceededException limitExceeded(StreamConstraintsException e) {
+        return StreamLimits.exceeded(e, parsingMapper.getFactory().streamReadConstraints());
+    }
+
     private String writeValueAsString(JsonNode node) {
         try {
             return mapper.writeValueAsString(node);
@@ -64,23 +335,58 @@ public class JsonShieldJackson implements JsonShield {
         }
     }
 
-    private JsonNode mask(JsonNode node) {
+    /**
+     * Masks sensitive data in a JsonNode tree by replacing values within its objects and arrays,
+     * avoiding the serialize and parse round trip for callers that already hold a parsed tree.
+     * Value nodes are immutable, so a masked scalar root is returned as a new node.
+     *
+     * @param node the JsonNode to be masked
+     * @return the given node with masked values, or the masked replacement of a scalar root
+     * @throws NullPointerException if the input node is null
+     * @throws JsonShieldException if there is an error during masking
+     */
+    public JsonNode maskInPlace(JsonNode node) {
         Objects.requireNonNull(node, "Input JsonNode cannot be null");
         try {
-            return maskNode(node, "");
+            return maskNode(node, "", paths().root(), new FieldDecisionCache(jsonShieldConfiguration), newPiiScan());
         } catch (Exception e) {
             throw new JsonShieldException("Error masking JsonNode", e);
         }
     }
 
-    private JsonNode maskNode(JsonNode node, String parentNodeName) {
+    /**
+     * Masks sensitive data in a copy of a JsonNode tree, leaving the given tree untouched.
+     *
+     * @param node the JsonNode to be masked
+     * @return a new JsonNode with masked values
+     * @throws NullPointerException if the input node is null
+     * @throws JsonShieldException if there is an error during masking
+     */
+    public JsonNode maskTree(JsonNode node) {
+        Objects.requireNonNull(node, "Input JsonNode cannot be null");
+        return maskInPlace(node.deepCopy());
+    }
+
+    private JsonPathAutomaton paths() {
+        return jsonShieldConfiguration.getPathAutomaton();
+    }
+
+    private PiiDetector.Scan newPiiScan() {
+        PiiDetector piiDetector = jsonShieldConfiguration.getPiiDetector();
+        return piiDetector == null ? null : piiDetector.newScan();
+    }
+
+    private static boolean containsPii(JsonNode node, PiiDetector.Scan pii) {
+        return pii != null && node.isTextual() && pii.containsPii(node.textValue());
+    }
+
+    private JsonNode maskNode(JsonNode node, String parentNodeName, int pathState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii) {
         if (node.isNull()) {
             return NullNode.getInstance();
-        } else if (node.isObject()) {
-            return maskObject(node);
-        } else if (node.isArray()) {
-            return maskArray(node, parentNodeName);
-        } else if (jsonShieldConfiguration.shouldMaskScalarRoot()) {
+        } else if (node.isContainerNode()) {
+            maskContainer(node, parentNodeName, pathState, fieldDecisions, pii, 0);
+            return node;
+        } else if (jsonShieldConfiguration.shouldMaskScalarRoot() || containsPii(node, pii)) {
             return maskValueNode(node);
         }
         return node;
@@ -94,7 +400,8 @@ public class JsonShieldJackson implements JsonShield {
         } else if (node.isNumber()) {
             return maskNumeric(node);
         } else if (node.isTextual()) {
-            return jsonShieldConfiguration.getStringMask() == null ? NullNode.getInstance() : TextNode.valueOf(jsonShieldConfiguration.getStringMask());
+            String mask = jsonShieldConfiguration.getStringMask(node.textValue());
+            return mask == null ? NullNode.getInstance() : TextNode.valueOf(mask);
         }
         return node;
     }
@@ -105,37 +412,255 @@ public class JsonShieldJackson implements JsonShield {
                 : jsonShieldConfiguration.getNumberMask() == null ? NullNode.getInstance() : IntNode.valueOf(jsonShieldConfiguration.getNumberMask());
     }
 
-    private JsonNode maskObject(JsonNode node) {
-        ObjectNode maskedObject = mapper.createObjectNode();
-        node.fieldNames().forEachRemaining(fieldName -> {
-            JsonNode fieldNode = node.get(fieldName);
-            maskedObject.set(fieldName, determineNodeMask(fieldNode, fieldName));
-        });
-        return maskedObject;
+    /**
+     * Masks an array or object in place. The first levels of nesting are masked by plain recursion, which is
+     * fastest for typical documents, while deeper levels continue on an explicit stack, so nesting depth
+     * costs heap instead of thread stack and deeply nested documents cannot overflow it.
+     */
+    private void maskContainer(JsonNode node, String fieldName, int pathState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii, int depth) {
+        if (depth < RECURSION_DEPTH) {
+            if (node.isObject()) {
+                maskObject((ObjectNode) node, pathState, fieldDecisions, pii, depth);
+            } else {
+                maskArray((ArrayNode) node, fieldName, pathState, fieldDecisions, pii, depth);
+            }
+            return;
+        }
+        NodeStack stack = new NodeStack();
+        push(stack, node, fieldName, pathState);
+        maskStacked(stack, fieldDecisions, pii);
+    }
+
+    private void maskObject(ObjectNode node, int pathState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii, int depth) {
+        if (node.size() > parallelThreshold) {
+            List<Map.Entry<String, JsonNode>> fields = new ArrayList<>(node.properties());
+            new ParallelMaskTask((i, decisions) -> maskField(fields.get(i), pathState, decisions, pii, depth), 0, fields.size()).invoke();
+            return;
+        }
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            maskField(field, pathState, fieldDecisions, pii, depth);
+        }
+    }
+
+    private void maskField(Map.Entry<String, JsonNode> field, int objectState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii, int depth) {
+        JsonNode fieldNode = field.getValue();
+        JsonNode maskedNode = determineNodeMask(fieldNode, field.getKey(), paths().field(objectState, field.getKey()), fieldDecisions, pii, depth);
+        if (maskedNode != fieldNode) {
+            field.setValue(maskedNode);
+        }
     }
 
+    private void maskArray(ArrayNode node, String fieldName, int pathState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii, int depth) {
+        // All elements share one state
+        int elementState = paths().element(pathState);
+        if (node.size() > parallelThreshold) {
+            new ParallelMaskTask((i, decisions) -> maskElement(node, i, fieldName, elementState, decisions, pii, depth), 0, node.size()).invoke();
+            return;
+        }
+        for (int i = 0; i < node.size(); i++) {
+            maskElement(node, i, fieldName, elementState, fieldDecisions, pii, depth);
+        }
+    }
 
-    private JsonNode maskArray(JsonNode node, String fieldName) {
-        ArrayNode maskedArray = mapper.createArrayNode();
-        node.elements().forEachRemaining(element ->
-                maskedArray.add(determineNodeMask(element, fieldName))
-        );
-        return maskedArray;
+    private void maskElement(ArrayNode node, int index, String fieldName, int elementState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii, int depth) {
+        JsonNode element = node.get(index);
+        JsonNode maskedNode = determineNodeMask(element, fieldName, elementState, fieldDecisions, pii, depth);
+        if (maskedNode != element) {
+            node.set(index, maskedNode);
+        }
     }
 
-    private JsonNode determineNodeMask(JsonNode node, String fieldName) {
+    private JsonNode determineNodeMask(JsonNode node, String fieldName, int pathState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii, int depth) {
         if (node.isValueNode()) {
-            return jsonShieldConfiguration.shouldMask(fieldName) ?
-                    maskValueNode(node) :
-                    node;
+            return determineValueMask(node, fieldName, pathState, fieldDecisions, pii);
+        }
+
+        if (node.isContainerNode()) {
+            // For objects, we don't pass the parent field name down
+            maskContainer(node, node.isArray() ? fieldName : "", pathState, fieldDecisions, pii, depth + 1);
+        }
+        return node;
+    }
+
+    private JsonNode determineValueMask(JsonNode node, String fieldName, int pathState, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii) {
+        return fieldDecisions.shouldMask(fieldName, pathState) || containsPii(node, pii) ?
+                maskValueNode(node) :
+                node;
+    }
+
+    /**
+     * Pushes an array or object onto the stack. Large ones are not masked in parallel at this depth,
+     * as each parallel task would start masking its children from the top of a thread stack again.
+     */
+    private void push(NodeStack stack, JsonNode node, String fieldName, int pathState) {
+        if (node.isObject()) {
+            stack.pushObject(node.properties().iterator(), pathState);
+        } else {
+            // All elements share one state
+            stack.pushArray((ArrayNode) node, fieldName, paths().element(pathState));
+        }
+    }
+
+    /**
+     * Masks the children of the arrays and objects on the stack depth first, until the stack is empty.
+     * Values are masked in a loop over the top frame, which is only left to push a nested array or object.
+     */
+    private void maskStacked(NodeStack stack, FieldDecisionCache fieldDecisions, PiiDetector.Scan pii) {
+        frames:
+        while (!stack.isEmpty()) {
+            int state = stack.state();
+            Iterator<Map.Entry<String, JsonNode>> fields = stack.fields();
+            if (fields != null) {
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    JsonNode fieldNode = field.getValue();
+                    int fieldState = paths().field(state, field.getKey());
+                    if (fieldNode.isValueNode()) {
+                        JsonNode maskedNode = determineValueMask(fieldNode, field.getKey(), fieldState, fieldDecisions, pii);
+                        if (maskedNode != fieldNode) {
+                            field.setValue(maskedNode);
+                        }
+                    } else if (fieldNode.isContainerNode()) {
+                        push(stack, fieldNode, fieldNode.isArray() ? field.getKey() : "", fieldState);
+                        continue frames;
+                    }
+                }
+            } else {
+                ArrayNode array = stack.array();
+                String fieldName = stack.fieldName();
+                int index;
+                while ((index = stack.nextIndex()) < array.size()) {
+                    JsonNode element = array.get(index);
+                    if (element.isValueNode()) {
+                        JsonNode maskedNode = determineValueMask(element, fieldName, state, fieldDecisions, pii);
+                        if (maskedNode != element) {
+                            array.set(index, maskedNode);
+                        }
+                    } else if (element.isContainerNode()) {
+                        push(stack, element, fieldName, state);
+                        continue frames;
+                    }
+                }
+            }
+            stack.pop();
+        }
+    }
+
+    /**
+     * Stack of the arrays and objects being masked. A frame holds either the field iterator of an object,
+     * or an array with the index of its next element and the field name its elements inherit, along with
+     * the path state of its children. Frames are kept in parallel arrays, which grow as needed and are
+     * reused by every container of a traversal.
+     */
+    private static final class NodeStack {
+        private Iterator<Map.Entry<String, JsonNode>>[] fields = newIterators(8);
+        private ArrayNode[] arrays = new ArrayNode[8];
+        private String[] fieldNames = new String[8];
+        private int[] indexes = new int[8];
+        private int[] states = new int[8];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private static Iterator<Map.Entry<String, JsonNode>>[] newIterators(int length) {
+            return new Iterator[length];
+        }
+
+        void pushObject(Iterator<Map.Entry<String, JsonNode>> objectFields, int state) {
+            ensureCapacity();
+            fields[size] = objectFields;
+            states[size++] = state;
+        }
+
+        void pushArray(ArrayNode array, String fieldName, int state) {
+            ensureCapacity();
+            fields[size] = null;
+            arrays[size] = array;
+            fieldNames[size] = fieldName;
+            indexes[size] = 0;
+            states[size++] = state;
+        }
+
+        void pop() {
+            size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * @return the field iterator of the top frame, or null if it is an array
+         */
+        Iterator<Map.Entry<String, JsonNode>> fields() {
+            return fields[size - 1];
+        }
+
+        ArrayNode array() {
+            return arrays[size - 1];
         }
 
-        if (node.isArray()) {
-            return maskNode(node, fieldName);
+        String fieldName() {
+            return fieldNames[size - 1];
         }
 
-        // For objects, we don't pass the parent field name down
-        return maskNode(node, "");
+        /**
+         * @return the index of the next element of the top array, advancing past it
+         */
+        int nextIndex() {
+            return indexes[size - 1]++;
+        }
+
+        int state() {
+            return states[size - 1];
+        }
+
+        private void ensureCapacity() {
+            if (size == states.length) {
+                int length = size * 2;
+                Iterator<Map.Entry<String, JsonNode>>[] grownFields = newIterators(length);
+                System.arraycopy(fields, 0, grownFields, 0, size);
+                fields = grownFields;
+                arrays = Arrays.copyOf(arrays, length);
+                fieldNames = Arrays.copyOf(fieldNames, length);
+                indexes = Arrays.copyOf(indexes, length);
+                states = Arrays.copyOf(states, length);
+            }
+        }
     }
 
+    @FunctionalInterface
+    private interface ChildMasker {
+        void mask(int index, FieldDecisionCache fieldDecisions);
+    }
+
+    /**
+     * Masks the children in a range of a large array or object, halving the range until it holds at most
+     * the parallel threshold. Each child is masked by exactly one task, in place, so no results need to be
+     * merged, and joining the tasks publishes their writes to the caller.
+     */
+    private final class ParallelMaskTask extends RecursiveAction {
+        private final ChildMasker children;
+        private final int from;
+        private final int to;
+
+        ParallelMaskTask(ChildMasker children, int from, int to) {
+            this.children = children;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= parallelThreshold) {
+                // The cache is not thread safe, so every task decides with its own
+                FieldDecisionCache fieldDecisions = new FieldDecisionCache(jsonShieldConfiguration);
+                for (int i = from; i < to; i++) {
+                    children.mask(i, fieldDecisions);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParallelMaskTask(children, from, middle), new ParallelMaskTask(children, middle, to));
+            }
+        }
+    }
 }
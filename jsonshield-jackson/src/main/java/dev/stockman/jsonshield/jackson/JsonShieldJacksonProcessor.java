@@ -0,0 +1,241 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.core.JsonShieldLimitExceededException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive processor that masks a single UTF-8 encoded JSON document arriving as a sequence of byte chunks,
+ * such as an HTTP body, without aggregating it first. Chunks are fed to Jackson's non-blocking parser and
+ * each of them is followed by the masked output of the tokens it completed, so neither the input nor the
+ * output document is ever held as a whole. Masking rules and output are identical to
+ * {@link JsonShieldJacksonStreaming}.
+ * <p>
+ * Backpressure is kept end to end: a chunk is only requested from upstream while the subscriber has
+ * outstanding demand, and at most one chunk is in flight at a time. Input that is not valid JSON is
+ * signalled downstream as an {@link InvalidJsonException} and cancels the upstream subscription, and so is
+ * input exceeding a limit of the configuration, as a {@link JsonShieldLimitExceededException}.
+ * <p>
+ * A processor masks one document and accepts a single subscriber; create a new one for every document.
+ */
+public class JsonShieldJacksonProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    private final NonBlockingJsonMasker masker;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super ByteBuffer> downstream;
+    private volatile byte[] pendingInput;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private volatile boolean terminated;
+
+    // Only accessed by the draining thread
+    private boolean upstreamRequested;
+    private ByteBuffer pendingOutput;
+    private boolean finished;
+
+    /**
+     * Constructs a new processor for a single document.
+     *
+     * @param mapper the ObjectMapper whose parser and generator settings are used for JSON processing
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if mapper or jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     * @throws JsonShieldException if the parser or generator cannot be created
+     */
+    public JsonShieldJacksonProcessor(ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration) {
+        this(StreamLimits.constrain(Objects.requireNonNull(mapper, "ObjectMapper cannot be null"),
+                Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null").getLimits()),
+                mapper, jsonShieldConfiguration);
+    }
+
+    /**
+     * @param parsingMapper the mapper to create the parser with, already constrained by the limits of the configuration
+     */
+    JsonShieldJacksonProcessor(ObjectMapper parsingMapper, ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration) {
+        if (jsonShieldConfiguration.getPiiDetector() != null) {
+            throw new IllegalArgumentException("PII detection is not supported by JsonShieldJacksonProcessor");
+        }
+        try {
+            this.masker = new NonBlockingJsonMasker(parsingMapper, mapper, jsonShieldConfiguration);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error creating non-blocking parser", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("JsonShieldJacksonProcessor accepts a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        // Published only now, so no signal reaches the subscriber before onSubscribe has returned
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "Subscription cannot be null");
+        if (upstream != null || terminated) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        Objects.requireNonNull(item, "Chunk cannot be null");
+        // Copied, as the publisher may reuse the buffer as soon as this returns
+        byte[] chunk = new byte[item.remaining()];
+        item.get(chunk);
+        pendingInput = chunk;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = Objects.requireNonNull(throwable, "Throwable cannot be null");
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    /**
+     * Runs the state machine on whichever thread signals first. Signals arriving meanwhile are picked up
+     * by that thread before it leaves, so the masker and the subscriber are never called concurrently.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drainLoop();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainLoop() {
+        Flow.Subscriber<? super ByteBuffer> subscriber = downstream;
+        while (!terminated && subscriber != null) {
+            if (cancelled) {
+                terminated = true;
+            } else if (error != null) {
+                // Errors need no demand, and whatever output is pending is of no use after one
+                terminated = true;
+                subscriber.onError(error);
+            } else if (pendingOutput != null) {
+                if (requested.get() == 0) {
+                    return;
+                }
+                ByteBuffer output = pendingOutput;
+                pendingOutput = null;
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                subscriber.onNext(output);
+            } else if (finished) {
+                terminated = true;
+                subscriber.onComplete();
+            } else if (pendingInput != null) {
+                byte[] chunk = pendingInput;
+                pendingInput = null;
+                upstreamRequested = false;
+                mask(subscriber, () -> masker.feed(chunk, 0, chunk.length));
+            } else if (upstreamDone) {
+                finished = true;
+                mask(subscriber, masker::finish);
+            } else if (requested.get() > 0 && !upstreamRequested && upstream != null) {
+                upstreamRequested = true;
+                upstream.request(1);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void mask(Flow.Subscriber<? super ByteBuffer> subscriber, MaskingStep step) {
+        try {
+            byte[] output = step.run();
+            pendingOutput = output == null ? null : ByteBuffer.wrap(output);
+        } catch (JsonShieldLimitExceededException | InvalidJsonException e) {
+            fail(subscriber, e);
+        } catch (StreamReadException e) {
+            fail(subscriber, new InvalidJsonException("Invalid JSON", e));
+        } catch (IOException e) {
+            fail(subscriber, new JsonShieldException("Error masking JSON", e));
+        }
+    }
+
+    private void fail(Flow.Subscriber<? super ByteBuffer> subscriber, Throwable failure) {
+        terminated = true;
+        cancelUpstream();
+        subscriber.onError(failure);
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    @FunctionalInterface
+    private interface MaskingStep {
+        byte[] run() throws IOException;
+    }
+
+    private final class DownstreamSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Rule 3.9 of the Reactive Streams specification
+                cancelUpstream();
+                error = new IllegalArgumentException("Requested items must be positive, got " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+        }
+    }
+}
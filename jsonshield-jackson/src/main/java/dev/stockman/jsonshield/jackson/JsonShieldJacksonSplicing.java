@@ -0,0 +1,112 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Format preserving implementation of {@link JsonShield} using Jackson dependencies.
+ * The parser only locates the values to mask; the output is built by copying the untouched spans of the
+ * input around the masks, so a masked document is byte for byte identical to the original except for the
+ * masked values. Whitespace, number notation such as {@code 1.0E7}, and escape sequences are kept as they
+ * are, and unmasked values are never re-serialized. Masking rules are identical to
+ * {@link JsonShieldJacksonStreaming}.
+ * <p>
+ * Strings are encoded to UTF-8 before being masked. The stream variants read the whole document before
+ * masking it, as the output is spliced from the input. Content following the document is rejected rather
+ * than copied unread. {@link #mask(Object)} has no input to preserve and masks while serializing.
+ * The {@link JsonShieldLimits} of the configuration are enforced through the
+ * {@link com.fasterxml.jackson.core.StreamReadConstraints} of the parsers, on top of those of the mapper.
+ */
+public class JsonShieldJacksonSplicing implements JsonShield {
+
+    private final ObjectMapper mapper;
+    // Reads through parsers constrained by the limits of the configuration
+    private final ObjectMapper parsingMapper;
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final JsonShieldLimits limits;
+    private final SplicingJsonMasker.Masks masks;
+
+    /**
+     * Constructs a new format preserving JsonShield instance.
+     *
+     * @param mapper the ObjectMapper whose parser settings are used for reading and whose serializers are used by {@link #mask(Object)}
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if mapper or jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     */
+    public JsonShieldJacksonSplicing(ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration) {
+        this.mapper = Objects.requireNonNull(mapper, "ObjectMapper cannot be null");
+        this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (jsonShieldConfiguration.getPiiDetector() != null) {
+            throw new IllegalArgumentException("PII detection is not supported by JsonShieldJacksonSplicing");
+        }
+        this.limits = jsonShieldConfiguration.getLimits();
+        this.parsingMapper = StreamLimits.constrain(mapper, limits);
+        this.masks = new SplicingJsonMasker.Masks(jsonShieldConfiguration);
+    }
+
+    @Override
+    public String mask(String json) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        try {
+            limits.checkInputLength(json.length());
+            byte[] masked = splice(json.getBytes(StandardCharsets.UTF_8));
+            return masked == null ? json : new String(masked, StandardCharsets.UTF_8);
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redact(e);
+        }
+    }
+
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            limits.checkInputLength(json.length);
+            byte[] masked = splice(json);
+            return masked == null ? json.clone() : masked;
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redactUtf8(e);
+        }
+    }
+
+    @Override
+    public String mask(Object obj) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new MaskingJsonGenerator(mapper.createGenerator(writer), jsonShieldConfiguration)) {
+            mapper.writeValue(generator, obj);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking Object", e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * @return the masked document, or null if the input did not require any change
+     */
+    private byte[] splice(byte[] json) {
+        try (JsonParser parser = parsingMapper.createParser(json)) {
+            return new SplicingJsonMasker(masks, json).mask(parser);
+        } catch (StreamConstraintsException e) {
+            throw StreamLimits.exceeded(e, parsingMapper.getFactory().streamReadConstraints());
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+}
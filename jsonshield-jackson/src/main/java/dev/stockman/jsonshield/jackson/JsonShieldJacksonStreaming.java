@@ -0,0 +1,306 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Streaming implementation of {@link JsonShield} using Jackson dependencies.
+ * Tokens are copied from a JsonParser straight to a JsonGenerator, swapping in masks on the fly,
+ * so no intermediate JsonNode trees are built and memory usage does not grow with document size.
+ * Masking rules are identical to {@link JsonShieldJackson}. Unmasked numbers are copied verbatim
+ * rather than being parsed and re-serialized, so their original notation is kept.
+ * The {@link JsonShieldLimits} of the configuration are enforced through the
+ * {@link com.fasterxml.jackson.core.StreamReadConstraints} of the parsers, on top of those of the mapper.
+ */
+public class JsonShieldJacksonStreaming implements JsonShield {
+
+    private final ObjectMapper mapper;
+    // Reads through parsers constrained by the limits of the configuration
+    private final ObjectMapper parsingMapper;
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final JsonShieldLimits limits;
+    // Whether documents without any configured key can be returned without masking
+    private final boolean prescan;
+
+    /**
+     * Constructs a new streaming JsonShield instance.
+     *
+     * @param mapper the ObjectMapper whose parser and generator settings are used for JSON processing
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if mapper or jsonShieldConfiguration is null
+     * @throws IllegalArgumentException if jsonShieldConfiguration enables PII detection
+     */
+    public JsonShieldJacksonStreaming(ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration) {
+        this.mapper = Objects.requireNonNull(mapper, "ObjectMapper cannot be null");
+        this.jsonShieldConfiguration = Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        if (jsonShieldConfiguration.getPiiDetector() != null) {
+            throw new IllegalArgumentException("PII detection is not supported by JsonShieldJacksonStreaming");
+        }
+        this.limits = jsonShieldConfiguration.getLimits();
+        this.parsingMapper = StreamLimits.constrain(mapper, limits);
+        this.prescan = JsonDocuments.canPrescan(mapper);
+    }
+
+    @Override
+    public String mask(String json) {
+        Objects.requireNonNull(json, "Input JSON string cannot be null");
+        try {
+            limits.checkInputLength(json.length());
+            if (prescan && !jsonShieldConfiguration.requiresMasking(json) && isValidDocument(parsingMapper.createParser(json))) {
+                // Nothing to mask, skip writing the document
+                return json;
+            }
+            StringWriter writer = new StringWriter(json.length());
+            try (JsonParser parser = parsingMapper.createParser(json);
+                 JsonGenerator generator = new MaskingJsonGenerator(mapper.createGenerator(writer), jsonShieldConfiguration)) {
+                copy(parser, generator);
+            }
+            return writer.toString();
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redact(e);
+        } catch (StreamConstraintsException e) {
+            return limits.redact(limitExceeded(e));
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    @Override
+    public byte[] mask(byte[] json) {
+        Objects.requireNonNull(json, "Input JSON bytes cannot be null");
+        try {
+            limits.checkInputLength(json.length);
+            if (prescan && !jsonShieldConfiguration.requiresMasking(json, 0, json.length) && isValidDocument(parsingMapper.createParser(json))) {
+                // Nothing to mask, skip writing the document
+                return json.clone();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+            mask(parsingMapper.createParser(json), mapper.createGenerator(out));
+            return out.toByteArray();
+        } catch (JsonShieldLimitExceededException e) {
+            return limits.redactUtf8(e);
+        } catch (StreamConstraintsException e) {
+            return limits.redactUtf8(limitExceeded(e));
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    @Override
+    public void mask(InputStream in, OutputStream out) {
+        Objects.requireNonNull(in, "Input stream cannot be null");
+        Objects.requireNonNull(out, "Output stream cannot be null");
+        try {
+            mask(parsingMapper.createParser(StreamLimits.limit(in, limits)), mapper.createGenerator(out));
+        } catch (StreamConstraintsException e) {
+            throw limitExceeded(e);
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    @Override
+    public void mask(Reader in, Writer out) {
+        Objects.requireNonNull(in, "Input Reader cannot be null");
+        Objects.requireNonNull(out, "Output Writer cannot be null");
+        try {
+            mask(parsingMapper.createParser(StreamLimits.limit(in, limits)), mapper.createGenerator(out));
+        } catch (StreamConstraintsException e) {
+            throw limitExceeded(e);
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON stream", e);
+        }
+    }
+
+    /**
+     * Masks a batch of JSON strings through a single masking generator and output buffer,
+     * so field decisions are cached across the whole batch.
+     */
+    @Override
+    public List<String> maskAll(List<String> jsons) {
+        Objects.requireNonNull(jsons, "Input JSON list cannot be null");
+        List<String> masked = new ArrayList<>(jsons.size());
+        StringWriter writer = new StringWriter();
+        Iterator<String> remaining = jsons.iterator();
+        try {
+            while (remaining.hasNext()) {
+                // A redacted document may leave the generator inside of it, so the rest of the batch gets a new one
+                try (JsonGenerator generator = new MaskingJsonGenerator(BatchPrettyPrinter.configure(mapper.createGenerator(writer)), jsonShieldConfiguration)) {
+                    maskUntilRedacted(remaining, generator, writer, masked);
+                }
+                writer.getBuffer().setLength(0);
+            }
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+        return masked;
+    }
+
+    /**
+     * Masks JSON strings of a batch until one of them exceeds a limit and is redacted.
+     */
+    private void maskUntilRedacted(Iterator<String> jsons, JsonGenerator generator, StringWriter writer, List<String> masked) throws IOException {
+        while (jsons.hasNext()) {
+            String json = Objects.requireNonNull(jsons.next(), "Input JSON string cannot be null");
+            try {
+                limits.checkInputLength(json.length());
+                if (prescan && !jsonShieldConfiguration.requiresMasking(json) && isValidDocument(parsingMapper.createParser(json))) {
+                    masked.add(json);
+                    continue;
+                }
+                try (JsonParser parser = parsingMapper.createParser(json)) {
+                    copy(parser, generator);
+                }
+            } catch (JsonShieldLimitExceededException e) {
+                masked.add(limits.redact(e));
+                return;
+            } catch (StreamConstraintsException e) {
+                masked.add(limits.redact(limitExceeded(e)));
+                return;
+            }
+            generator.flush();
+            masked.add(writer.toString());
+            writer.getBuffer().setLength(0);
+        }
+    }
+
+    /**
+     * Masks a batch of UTF-8 encoded JSON documents through a single masking generator and output buffer,
+     * so field decisions are cached across the whole batch.
+     */
+    @Override
+    public void maskAll(Iterable<byte[]> jsons, Consumer<byte[]> consumer) {
+        Objects.requireNonNull(jsons, "Input JSON batch cannot be null");
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Iterator<byte[]> remaining = jsons.iterator();
+        try {
+            while (remaining.hasNext()) {
+                // A redacted document may leave the generator inside of it, so the rest of the batch gets a new one
+                try (JsonGenerator generator = new MaskingJsonGenerator(BatchPrettyPrinter.configure(mapper.createGenerator(out)), jsonShieldConfiguration)) {
+                    maskUntilRedacted(remaining, generator, out, consumer);
+                }
+                out.reset();
+            }
+        } catch (StreamReadException e) {
+            throw new InvalidJsonException("Invalid JSON", e);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking JSON", e);
+        }
+    }
+
+    /**
+     * Masks UTF-8 encoded JSON documents of a batch until one of them exceeds a limit and is redacted.
+     */
+    private void maskUntilRedacted(Iterator<byte[]> jsons, JsonGenerator generator, ByteArrayOutputStream out, Consumer<byte[]> consumer) throws IOException {
+        while (jsons.hasNext()) {
+            byte[] json = Objects.requireNonNull(jsons.next(), "Input JSON bytes cannot be null");
+            try {
+                limits.checkInputLength(json.length);
+                if (prescan && !jsonShieldConfiguration.requiresMasking(json, 0, json.length) && isValidDocument(parsingMapper.createParser(json))) {
+                    consumer.accept(json.clone());
+                    continue;
+                }
+                try (JsonParser parser = parsingMapper.createParser(json)) {
+                    copy(parser, generator);
+                }
+            } catch (JsonShieldLimitExceededException e) {
+                consumer.accept(limits.redactUtf8(e));
+                return;
+            } catch (StreamConstraintsException e) {
+                consumer.accept(limits.redactUtf8(limitExceeded(e)));
+                return;
+            }
+            generator.flush();
+            consumer.accept(out.toByteArray());
+            out.reset();
+        }
+    }
+
+    @Override
+    public String mask(Object obj) {
+        Objects.requireNonNull(obj, "Input Object cannot be null");
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new MaskingJsonGenerator(mapper.createGenerator(writer), jsonShieldConfiguration)) {
+            mapper.writeValue(generator, obj);
+        } catch (IOException e) {
+            throw new JsonShieldException("Error masking Object", e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public JsonShieldLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Creates a processor that masks a single document arriving as a sequence of byte chunks,
+     * with the same rules and output as this instance.
+     *
+     * @return a new processor, to be subscribed once
+     * @throws JsonShieldException if the parser or generator cannot be created
+     * @see JsonShieldJacksonProcessor
+     */
+    public JsonShieldJacksonProcessor newMaskingProcessor() {
+        return new JsonShieldJacksonProcessor(parsingMapper, mapper, jsonShieldConfiguration);
+    }
+
+    private boolean isValidDocument(JsonParser parser) throws IOException {
+        try (parser) {
+            return JsonDocuments.skipDocument(parser, limits);
+        }
+    }
+
+    private JsonShieldLimitExceededException limitExceeded(StreamConstraintsException e) {
+        return StreamLimits.exceeded(e, parsingMapper.getFactory().streamReadConstraints());
+    }
+
+    /**
+     * Copies a single document from the parser to the generator, masking it on the way
+     * and leaving the underlying source and target open.
+     */
+    private void mask(JsonParser parser, JsonGenerator generator) throws IOException {
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (parser; JsonGenerator maskingGenerator = new MaskingJsonGenerator(generator, jsonShieldConfiguration)) {
+            copy(parser, maskingGenerator);
+        }
+    }
+
+    private static void copy(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (parser.nextToken() == null) {
+            // Empty content is treated as null, matching ObjectMapper.readTree
+            generator.writeNull();
+            return;
+        }
+        generator.copyCurrentStructure(parser);
+    }
+}
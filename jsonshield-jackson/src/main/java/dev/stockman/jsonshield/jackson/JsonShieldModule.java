@@ -0,0 +1,69 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.AnyGetterWriter;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerBuilder;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Jackson module that masks sensitive data while objects are serialized, so a POJO becomes masked JSON
+ * in a single pass without any intermediate JsonNode tree. Register it on an ObjectMapper to mask
+ * everything that mapper writes:
+ * <pre>{@code
+ * ObjectMapper mapper = new ObjectMapper().registerModule(new JsonShieldModule(configuration));
+ * String json = mapper.writeValueAsString(payment);
+ * }</pre>
+ * Masking rules are identical to {@link JsonShieldJackson}, but the module hooks into bean properties:
+ * everything written for a bean property or a {@code @JsonAnyGetter} is masked, including nested maps
+ * and collections, while
+ * content outside of any bean, such as a root level map or a root scalar, is written as is.
+ */
+public class JsonShieldModule extends SimpleModule {
+
+    /**
+     * Constructs a new module.
+     *
+     * @param jsonShieldConfiguration the JsonShieldConfiguration to be used for masking rules
+     * @throws NullPointerException if jsonShieldConfiguration is null
+     */
+    public JsonShieldModule(JsonShieldConfiguration jsonShieldConfiguration) {
+        super(JsonShieldModule.class.getSimpleName());
+        Objects.requireNonNull(jsonShieldConfiguration, "JsonShieldConfiguration cannot be null");
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+                beanProperties.replaceAll(writer -> new MaskingPropertyWriter(writer, jsonShieldConfiguration));
+                return beanProperties;
+            }
+
+            @Override
+            public BeanSerializerBuilder updateBuilder(SerializationConfig config, BeanDescription beanDesc, BeanSerializerBuilder builder) {
+                // Any-getters are added to the properties after changeProperties
+                builder.getProperties().replaceAll(writer -> maskAnyGetter(writer, jsonShieldConfiguration));
+                BeanPropertyWriter[] filteredProperties = builder.getFilteredProperties();
+                if (filteredProperties != null) {
+                    for (int i = 0; i < filteredProperties.length; i++) {
+                        filteredProperties[i] = maskAnyGetter(filteredProperties[i], jsonShieldConfiguration);
+                    }
+                }
+                if (builder.getAnyGetter() != null) {
+                    builder.setAnyGetter((AnyGetterWriter) maskAnyGetter(builder.getAnyGetter(), jsonShieldConfiguration));
+                }
+                return builder;
+            }
+        });
+    }
+
+    private static BeanPropertyWriter maskAnyGetter(BeanPropertyWriter writer, JsonShieldConfiguration jsonShieldConfiguration) {
+        return writer instanceof AnyGetterWriter anyGetter && !(writer instanceof MaskingAnyGetterWriter)
+                ? new MaskingAnyGetterWriter(anyGetter, jsonShieldConfiguration)
+                : writer;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.AnyGetterWriter;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+
+/**
+ * AnyGetterWriter that writes the entries of a {@code @JsonAnyGetter} through a {@link MaskingJsonGenerator},
+ * like {@link MaskingPropertyWriter} does for regular bean properties. Looking up and serializing the map
+ * is left to the wrapped writer.
+ */
+class MaskingAnyGetterWriter extends AnyGetterWriter {
+
+    private final AnyGetterWriter delegate;
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+
+    MaskingAnyGetterWriter(AnyGetterWriter delegate, JsonShieldConfiguration jsonShieldConfiguration) {
+        // Every method using the property or serializer is delegated, so they are not needed here
+        super(delegate, null, delegate.getMember(), null);
+        this.delegate = delegate;
+        this.jsonShieldConfiguration = jsonShieldConfiguration;
+    }
+
+    @Override
+    public void fixAccess(SerializationConfig config) {
+        delegate.fixAccess(config);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        delegate.resolve(provider);
+    }
+
+    @Override
+    public void getAndSerialize(Object bean, JsonGenerator gen, SerializerProvider provider) throws Exception {
+        delegate.getAndSerialize(bean, MaskingPropertyWriter.maskingGenerator(gen, provider, jsonShieldConfiguration), provider);
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider provider) throws Exception {
+        delegate.serializeAsField(bean, MaskingPropertyWriter.maskingGenerator(gen, provider, jsonShieldConfiguration), provider);
+    }
+
+    @Override
+    public void getAndFilter(Object bean, JsonGenerator gen, SerializerProvider provider, PropertyFilter filter) throws Exception {
+        delegate.getAndFilter(bean, MaskingPropertyWriter.maskingGenerator(gen, provider, jsonShieldConfiguration), provider, filter);
+    }
+}
@@ -0,0 +1,555 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import dev.stockman.jsonshield.core.JsonPathAutomaton;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+import dev.stockman.jsonshield.core.PiiDetector;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * JsonGenerator wrapper that replaces scalar values with their masks as they are written.
+ * The masking decision for each value is derived from the output context of the wrapped generator,
+ * following the same rules as the tree based {@link JsonShieldJackson}: values inside objects are
+ * decided by their field name and path, array elements inherit the name of the enclosing field, and root
+ * scalars are decided by {@link JsonShieldConfiguration#shouldMaskScalarRoot()}. The path automaton
+ * state of every open container is kept on a stack updated by the structural writes. Strings written as
+ * text, from a reader or as UTF-8 bytes are also scanned by the configured {@link PiiDetector}, within one budget per generator.
+ */
+class MaskingJsonGenerator extends JsonGeneratorDelegate {
+
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+    private final FieldDecisionCache fieldDecisions;
+    private final JsonPathAutomaton paths;
+    // Without path rules every state is dead, so the stack is not kept at all
+    private final boolean trackPaths;
+    private final BigDecimal decimalMask;
+    private final PiiDetector.Scan pii;
+    // The raw value of a masked string is only needed to derive its token
+    private final boolean tokenize;
+    // Strings copied from a parser are never materialized by it, so their length is checked here
+    private final JsonShieldLimits limits;
+    // Path automaton state of each open object, and of the value currently written inside each open container
+    private int[] containerStates = new int[32];
+    private int[] valueStates = new int[32];
+    private int depth;
+
+    MaskingJsonGenerator(JsonGenerator delegate, JsonShieldConfiguration jsonShieldConfiguration) {
+        super(delegate, false);
+        this.jsonShieldConfiguration = jsonShieldConfiguration;
+        this.fieldDecisions = new FieldDecisionCache(jsonShieldConfiguration);
+        this.paths = jsonShieldConfiguration.getPathAutomaton();
+        this.trackPaths = !paths.isEmpty();
+        this.decimalMask = jsonShieldConfiguration.getDecimalMask() == null ? null : BigDecimal.valueOf(jsonShieldConfiguration.getDecimalMask());
+        PiiDetector piiDetector = jsonShieldConfiguration.getPiiDetector();
+        this.pii = piiDetector == null ? null : piiDetector.newScan();
+        this.tokenize = jsonShieldConfiguration.getTokenizer() != null;
+        this.limits = jsonShieldConfiguration.getLimits();
+        syncPath();
+    }
+
+    /**
+     * Rebuilds the stack of path states from the output context of the wrapped generator, which is needed
+     * when the generator is wrapped in the middle of a document, or was written to without this wrapper.
+     */
+    void syncPath() {
+        if (!trackPaths) {
+            return;
+        }
+        ArrayDeque<JsonStreamContext> contexts = new ArrayDeque<>();
+        for (JsonStreamContext context = delegate.getOutputContext(); !context.inRoot(); context = context.getParent()) {
+            contexts.push(context);
+        }
+        depth = 0;
+        int state = paths.root();
+        for (JsonStreamContext context : contexts) {
+            if (context.inArray()) {
+                push(state, paths.element(state));
+            } else {
+                push(state, context.getCurrentName() == null ? JsonPathAutomaton.DEAD : paths.field(state, context.getCurrentName()));
+            }
+            state = valueStates[depth - 1];
+        }
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        pushArray();
+        delegate.writeStartArray();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void writeStartArray(int size) throws IOException {
+        pushArray();
+        delegate.writeStartArray(size);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        pushArray();
+        delegate.writeStartArray(forValue);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        pushArray();
+        delegate.writeStartArray(forValue, size);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        pop();
+        delegate.writeEndArray();
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        pushObject();
+        delegate.writeStartObject();
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        pushObject();
+        delegate.writeStartObject(forValue);
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        pushObject();
+        delegate.writeStartObject(forValue, size);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        pop();
+        delegate.writeEndObject();
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        delegate.writeFieldName(name);
+        enterField(name);
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        delegate.writeFieldName(name);
+        enterField(name.getValue());
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        delegate.writeFieldId(id);
+        enterField(Long.toString(id));
+    }
+
+    @Override
+    public void copyCurrentEvent(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING && limits.getMaxStringLength() != Integer.MAX_VALUE) {
+            limits.checkStringLength(p.getTextLength());
+        }
+        if (token == null || !token.isScalarValue() || token == JsonToken.VALUE_NULL || token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            if (token == JsonToken.START_OBJECT) {
+                pushObject();
+            } else if (token == JsonToken.START_ARRAY) {
+                pushArray();
+            } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                pop();
+            }
+            delegate.copyCurrentEvent(p);
+            if (token == JsonToken.FIELD_NAME) {
+                enterField(p.currentName());
+            }
+        } else if (shouldMaskValue()) {
+            switch (token) {
+                case VALUE_STRING -> writeStringMask(tokenize ? p.getText() : null);
+                case VALUE_NUMBER_INT -> writeNumberMask();
+                case VALUE_NUMBER_FLOAT -> writeDecimalMask();
+                default -> writeBooleanMask();
+            }
+        } else if (token.isNumeric()) {
+            // Copy the number text verbatim instead of parsing and re-serializing it
+            delegate.writeNumber(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        } else {
+            delegate.copyCurrentEvent(p);
+        }
+    }
+
+    @Override
+    public void copyCurrentStructure(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.FIELD_NAME) {
+            writeFieldName(p.currentName());
+            token = p.nextToken();
+        }
+        int depth = 0;
+        while (token != null) {
+            copyCurrentEvent(p);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 0) {
+                return;
+            }
+            token = p.nextToken();
+        }
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (shouldMaskValue() || text != null && containsPii(text)) {
+            writeStringMask(text);
+        } else {
+            delegate.writeString(text);
+        }
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+        if (shouldMaskValue()) {
+            writeStringMask(tokenize ? readString(reader, len) : null);
+        } else if (pii != null) {
+            // The reader can only be consumed once, so the scanned text is written instead
+            String text = readString(reader, len);
+            if (containsPii(text)) {
+                writeStringMask(text);
+            } else {
+                delegate.writeString(text);
+            }
+        } else {
+            delegate.writeString(reader, len);
+        }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        if (shouldMaskValue() || pii != null && pii.containsPii(CharBuffer.wrap(text, offset, len))) {
+            writeStringMask(tokenize ? new String(text, offset, len) : null);
+        } else {
+            delegate.writeString(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        if (shouldMaskValue() || containsPii(text.getValue())) {
+            writeStringMask(text.getValue());
+        } else {
+            delegate.writeString(text);
+        }
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (shouldMaskValue() || containsPii(text, offset, length)) {
+            writeStringMask(tokenize ? new String(text, offset, length, StandardCharsets.UTF_8) : null);
+        } else {
+            delegate.writeRawUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (shouldMaskValue() || containsPii(text, offset, length)) {
+            writeStringMask(tokenize ? new String(text, offset, length, StandardCharsets.UTF_8) : null);
+        } else {
+            delegate.writeUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if (shouldMaskValue()) {
+            writeStringMask(text);
+        } else {
+            delegate.writeRawValue(text);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int len) throws IOException {
+        if (shouldMaskValue()) {
+            writeStringMask(tokenize ? text.substring(offset, offset + len) : null);
+        } else {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int len) throws IOException {
+        if (shouldMaskValue()) {
+            writeStringMask(tokenize ? new String(text, offset, len) : null);
+        } else {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumberMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumberMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        if (shouldMaskValue()) {
+            writeNumberMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if (v != null && shouldMaskValue()) {
+            writeNumberMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        if (shouldMaskValue()) {
+            writeDecimalMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        if (shouldMaskValue()) {
+            writeDecimalMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if (v != null && shouldMaskValue()) {
+            writeDecimalMask();
+        } else {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (encodedValue != null && shouldMaskValue()) {
+            if (isDecimal(encodedValue)) {
+                writeDecimalMask();
+            } else {
+                writeNumberMask();
+            }
+        } else {
+            delegate.writeNumber(encodedValue);
+        }
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValueBuffer, int offset, int len) throws IOException {
+        if (shouldMaskValue()) {
+            if (isDecimal(new String(encodedValueBuffer, offset, len))) {
+                writeDecimalMask();
+            } else {
+                writeNumberMask();
+            }
+        } else {
+            delegate.writeNumber(encodedValueBuffer, offset, len);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if (shouldMaskValue()) {
+            writeBooleanMask();
+        } else {
+            delegate.writeBoolean(state);
+        }
+    }
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    /**
+     * Determines whether the value about to be written should be masked, based on the
+     * current output context of the wrapped generator.
+     */
+    boolean shouldMaskValue() {
+        JsonStreamContext context = delegate.getOutputContext();
+        if (context.inRoot()) {
+            return jsonShieldConfiguration.shouldMaskScalarRoot();
+        }
+        // Array elements inherit the field name of the closest enclosing object
+        while (context.inArray()) {
+            context = context.getParent();
+        }
+        return fieldDecisions.shouldMask(context.inObject() ? context.getCurrentName() : "", depth == 0 ? JsonPathAutomaton.DEAD : valueStates[depth - 1]);
+    }
+
+    private boolean containsPii(CharSequence text) {
+        return pii != null && pii.containsPii(text);
+    }
+
+    private boolean containsPii(byte[] utf8, int offset, int length) {
+        return pii != null && pii.containsPii(new String(utf8, offset, length, StandardCharsets.UTF_8));
+    }
+
+    private int valueState() {
+        return depth == 0 ? paths.root() : valueStates[depth - 1];
+    }
+
+    private void pushArray() {
+        if (trackPaths) {
+            int state = valueState();
+            push(state, paths.element(state));
+        }
+    }
+
+    private void pushObject() {
+        if (trackPaths) {
+            push(valueState(), JsonPathAutomaton.DEAD);
+        }
+    }
+
+    private void pop() {
+        if (trackPaths) {
+            depth--;
+        }
+    }
+
+    private void enterField(String name) {
+        // Ignore names written outside any object, the wrapped generator rejects those
+        if (trackPaths && depth > 0) {
+            valueStates[depth - 1] = paths.field(containerStates[depth - 1], name);
+        }
+    }
+
+    private void push(int containerState, int valueState) {
+        if (depth == containerStates.length) {
+            containerStates = Arrays.copyOf(containerStates, depth * 2);
+            valueStates = Arrays.copyOf(valueStates, depth * 2);
+        }
+        containerStates[depth] = containerState;
+        valueStates[depth++] = valueState;
+    }
+
+    /**
+     * Writes the mask of a string value.
+     *
+     * @param value the raw value, needed for tokenization only, or null to write the plain string mask
+     */
+    private void writeStringMask(String value) throws IOException {
+        String mask = value == null ? jsonShieldConfiguration.getStringMask() : jsonShieldConfiguration.getStringMask(value);
+        if (mask == null) {
+            delegate.writeNull();
+        } else {
+            delegate.writeString(mask);
+        }
+    }
+
+    private static String readString(Reader reader, int len) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[1024];
+        int remaining = len < 0 ? Integer.MAX_VALUE : len;
+        int read;
+        while (remaining > 0 && (read = reader.read(buffer, 0, Math.min(buffer.length, remaining))) >= 0) {
+            sb.append(buffer, 0, read);
+            remaining -= read;
+        }
+        return sb.toString();
+    }
+
+    private void writeNumberMask() throws IOException {
+        if (jsonShieldConfiguration.getNumberMask() == null) {
+            delegate.writeNull();
+        } else {
+            delegate.writeNumber(jsonShieldConfiguration.getNumberMask());
+        }
+    }
+
+    private void writeDecimalMask() throws IOException {
+        if (decimalMask == null) {
+            delegate.writeNull();
+        } else {
+            delegate.writeNumber(decimalMask);
+        }
+    }
+
+    private void writeBooleanMask() throws IOException {
+        if (jsonShieldConfiguration.getBooleanMask() == null) {
+            delegate.writeNull();
+        } else {
+            delegate.writeBoolean(jsonShieldConfiguration.getBooleanMask());
+        }
+    }
+
+    private static boolean isDecimal(String encodedValue) {
+        return encodedValue.indexOf('.') >= 0 || encodedValue.indexOf('e') >= 0 || encodedValue.indexOf('E') >= 0;
+    }
+}
@@ -0,0 +1,63 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+
+/**
+ * BeanPropertyWriter that serializes its property through a {@link MaskingJsonGenerator}.
+ * The masking generator wraps the generator of the current serialization call and is shared by all
+ * properties written during that call, so nested beans, collections and maps are masked without
+ * wrapping the generator again.
+ */
+class MaskingPropertyWriter extends BeanPropertyWriter {
+
+    private final JsonShieldConfiguration jsonShieldConfiguration;
+
+    MaskingPropertyWriter(BeanPropertyWriter base, JsonShieldConfiguration jsonShieldConfiguration) {
+        super(base);
+        this.jsonShieldConfiguration = jsonShieldConfiguration;
+    }
+
+    private MaskingPropertyWriter(MaskingPropertyWriter base, PropertyName name) {
+        super(base, name);
+        this.jsonShieldConfiguration = base.jsonShieldConfiguration;
+    }
+
+    @Override
+    protected BeanPropertyWriter _new(PropertyName newName) {
+        return new MaskingPropertyWriter(this, newName);
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        super.serializeAsField(bean, maskingGenerator(gen, prov, jsonShieldConfiguration), prov);
+    }
+
+    @Override
+    public void serializeAsElement(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        super.serializeAsElement(bean, maskingGenerator(gen, prov, jsonShieldConfiguration), prov);
+    }
+
+    /**
+     * @return the masking generator of the current serialization call, wrapping the given generator
+     */
+    static JsonGenerator maskingGenerator(JsonGenerator gen, SerializerProvider prov, JsonShieldConfiguration jsonShieldConfiguration) {
+        if (gen instanceof MaskingJsonGenerator) {
+            return gen;
+        }
+        // Per call attribute, keyed on the configuration so that differently configured modules do not mix
+        if (prov.getAttribute(jsonShieldConfiguration) instanceof MaskingJsonGenerator maskingGenerator && maskingGenerator.delegate() == gen) {
+            // Containers of enclosing beans were written without the wrapper
+            if (!jsonShieldConfiguration.getPathAutomaton().isEmpty()) {
+                maskingGenerator.syncPath();
+            }
+            return maskingGenerator;
+        }
+        MaskingJsonGenerator maskingGenerator = new MaskingJsonGenerator(gen, jsonShieldConfiguration);
+        prov.setAttribute(jsonShieldConfiguration, maskingGenerator);
+        return maskingGenerator;
+    }
+}
@@ -0,0 +1,108 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Masks a single document fed in chunks, using a non-blocking parser that hands out every token as soon as
+ * its bytes have arrived. Each chunk yields the masked output of the tokens it completed, so neither the
+ * input nor the output document is ever held as a whole. As with {@link JsonShieldJacksonStreaming},
+ * content after the document is ignored and empty input is masked as null. The parser enforces the limits
+ * of the configuration, except for the input length, which is counted here as the chunks are fed.
+ */
+final class NonBlockingJsonMasker {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final JsonGenerator generator;
+    private final JsonShieldLimits limits;
+    private final StreamReadConstraints constraints;
+    private long fed;
+    private boolean started;
+    private boolean done;
+
+    /**
+     * @param parsingMapper the mapper to create the parser with, constrained by the limits of the configuration
+     * @param mapper the mapper to create the generator with
+     */
+    NonBlockingJsonMasker(ObjectMapper parsingMapper, ObjectMapper mapper, JsonShieldConfiguration jsonShieldConfiguration) throws IOException {
+        this.parser = parsingMapper.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.generator = new MaskingJsonGenerator(mapper.createGenerator(out), jsonShieldConfiguration);
+        this.limits = jsonShieldConfiguration.getLimits();
+        this.constraints = parsingMapper.getFactory().streamReadConstraints();
+    }
+
+    /**
+     * Masks the tokens completed by the next chunk of input. The chunk is consumed completely,
+     * so the caller may reuse it afterwards.
+     *
+     * @return the masked output that could be determined so far, or null if there is none yet
+     * @throws IOException if the input is not valid JSON or writing fails
+     * @throws dev.stockman.jsonshield.core.JsonShieldLimitExceededException if the input exceeds a limit
+     */
+    byte[] feed(byte[] chunk, int offset, int length) throws IOException {
+        if (!done) {
+            fed += length;
+            limits.checkInputLength(fed);
+            feeder.feedInput(chunk, offset, offset + length);
+            copyAvailableTokens();
+        }
+        return takeOutput();
+    }
+
+    /**
+     * Completes the document once all input has been fed.
+     *
+     * @return the rest of the masked output, or null if there is none
+     * @throws IOException if the input is not a complete JSON document or writing fails
+     * @throws dev.stockman.jsonshield.core.JsonShieldLimitExceededException if the input exceeds a limit
+     */
+    byte[] finish() throws IOException {
+        if (!done) {
+            feeder.endOfInput();
+            copyAvailableTokens();
+            if (!started) {
+                generator.writeNull();
+            }
+        }
+        generator.close();
+        parser.close();
+        return takeOutput();
+    }
+
+    private void copyAvailableTokens() throws IOException {
+        try {
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+                started = true;
+                generator.copyCurrentEvent(parser);
+                // Back in the root context once the root value is complete
+                done = parser.getParsingContext().inRoot();
+            }
+        } catch (StreamConstraintsException e) {
+            throw StreamLimits.exceeded(e, constraints);
+        }
+    }
+
+    private byte[] takeOutput() throws IOException {
+        generator.flush();
+        if (out.size() == 0) {
+            return null;
+        }
+        byte[] output = out.toByteArray();
+        out.reset();
+        return output;
+    }
+}
@@ -0,0 +1,232 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonPathAutomaton;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single use masker that splices masks into a UTF-8 encoded JSON document instead of re-serializing it.
+ * A parser only locates the values to mask, recording the byte range of each along with its mask, and the
+ * output is then built in one exactly sized array by bulk copying the untouched spans of the input around
+ * the masks. Whitespace, number notation and escape sequences outside the masked values are kept as they are.
+ * Masking decisions follow the same rules as {@link MaskingJsonGenerator}, derived from the parsing context
+ * instead of the output context.
+ */
+final class SplicingJsonMasker {
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final Masks masks;
+    private final byte[] in;
+    private final FieldDecisionCache fieldDecisions;
+    // Byte ranges of the values to mask, in input order, and their masks
+    private int[] starts = new int[16];
+    private int[] stops = new int[16];
+    private byte[][] replacements = new byte[16][];
+    private int size;
+    // Path automaton state of each open object, and of the value currently read inside each open container
+    private int[] containerStates = new int[32];
+    private int[] valueStates = new int[32];
+    private int depth;
+
+    SplicingJsonMasker(Masks masks, byte[] in) {
+        this.masks = masks;
+        this.in = in;
+        this.fieldDecisions = new FieldDecisionCache(masks.configuration);
+    }
+
+    /**
+     * Masks the single document held by the parser, which must read the input of this masker.
+     *
+     * @return the masked document, or null if the input did not require any change
+     * @throws IOException if the input is not valid JSON
+     * @throws InvalidJsonException if the document is followed by more content, which would otherwise be
+     * copied to the output without being looked at
+     */
+    byte[] mask(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            // Empty content is treated as null, matching the other engines
+            return NULL.clone();
+        }
+        do {
+            switch (token) {
+                case START_OBJECT -> pushObject();
+                case START_ARRAY -> pushArray();
+                case END_OBJECT, END_ARRAY -> pop();
+                case FIELD_NAME -> enterField(parser.currentName());
+                case VALUE_NULL -> {
+                }
+                default -> locate(parser, token);
+            }
+        } while (!parser.getParsingContext().inRoot() && (token = parser.nextToken()) != null);
+        if (parser.nextToken() != null) {
+            throw new InvalidJsonException("Invalid JSON: unexpected content after the document");
+        }
+        return size == 0 ? null : splice();
+    }
+
+    /**
+     * Records the range and mask of the scalar value the parser is positioned on, if it is to be masked.
+     */
+    private void locate(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING && masks.limits.getMaxStringLength() != Integer.MAX_VALUE) {
+            // Strings are not materialized unless masked, so the parser does not measure them itself
+            masks.limits.checkStringLength(parser.getTextLength());
+        }
+        if (!shouldMaskValue(parser)) {
+            return;
+        }
+        byte[] mask = switch (token) {
+            case VALUE_STRING -> masks.stringMask(parser);
+            case VALUE_NUMBER_INT -> masks.numberMask;
+            case VALUE_NUMBER_FLOAT -> masks.decimalMask;
+            case VALUE_TRUE, VALUE_FALSE -> masks.booleanMask;
+            default -> null;
+        };
+        if (mask == null) {
+            return;
+        }
+        int start = (int) parser.currentTokenLocation().getByteOffset();
+        // Strings are read lazily, so the end of one is only known once it is finished
+        parser.finishToken();
+        int stop = (int) parser.currentLocation().getByteOffset();
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            stops = Arrays.copyOf(stops, size * 2);
+            replacements = Arrays.copyOf(replacements, size * 2);
+        }
+        starts[size] = start;
+        stops[size] = stop;
+        replacements[size++] = mask;
+    }
+
+    private byte[] splice() {
+        long length = in.length;
+        for (int i = 0; i < size; i++) {
+            length += replacements[i].length - (stops[i] - starts[i]);
+        }
+        byte[] out = new byte[Math.toIntExact(length)];
+        int copyFrom = 0;
+        int outLength = 0;
+        for (int i = 0; i < size; i++) {
+            int span = starts[i] - copyFrom;
+            System.arraycopy(in, copyFrom, out, outLength, span);
+            outLength += span;
+            byte[] mask = replacements[i];
+            System.arraycopy(mask, 0, out, outLength, mask.length);
+            outLength += mask.length;
+            copyFrom = stops[i];
+        }
+        System.arraycopy(in, copyFrom, out, outLength, in.length - copyFrom);
+        return out;
+    }
+
+    private boolean shouldMaskValue(JsonParser parser) {
+        JsonStreamContext context = parser.getParsingContext();
+        if (context.inRoot()) {
+            return masks.configuration.shouldMaskScalarRoot();
+        }
+        // Array elements inherit the field name of the closest enclosing object
+        while (context.inArray()) {
+            context = context.getParent();
+        }
+        return fieldDecisions.shouldMask(context.inObject() ? context.getCurrentName() : "", depth == 0 ? JsonPathAutomaton.DEAD : valueStates[depth - 1]);
+    }
+
+    private int valueState() {
+        return depth == 0 ? masks.paths.root() : valueStates[depth - 1];
+    }
+
+    private void pushArray() {
+        if (masks.trackPaths) {
+            int state = valueState();
+            push(state, masks.paths.element(state));
+        }
+    }
+
+    private void pushObject() {
+        if (masks.trackPaths) {
+            push(valueState(), JsonPathAutomaton.DEAD);
+        }
+    }
+
+    private void pop() {
+        if (masks.trackPaths) {
+            depth--;
+        }
+    }
+
+    private void enterField(String name) {
+        if (masks.trackPaths) {
+            valueStates[depth - 1] = masks.paths.field(containerStates[depth - 1], name);
+        }
+    }
+
+    private void push(int containerState, int valueState) {
+        if (depth == containerStates.length) {
+            containerStates = Arrays.copyOf(containerStates, depth * 2);
+            valueStates = Arrays.copyOf(valueStates, depth * 2);
+        }
+        containerStates[depth] = containerState;
+        valueStates[depth++] = valueState;
+    }
+
+    /**
+     * Masks of a {@link JsonShieldConfiguration} pre-encoded as UTF-8 JSON literals, shared by all documents.
+     */
+    static final class Masks {
+        final JsonShieldConfiguration configuration;
+        final JsonPathAutomaton paths;
+        // Without path rules every state is dead, so the stack is not kept at all
+        final boolean trackPaths;
+        final JsonShieldLimits limits;
+        final byte[] numberMask;
+        final byte[] decimalMask;
+        final byte[] booleanMask;
+        private final byte[] stringMask;
+        // The raw value of a masked string is only needed to derive its token
+        private final boolean tokenize;
+
+        Masks(JsonShieldConfiguration configuration) {
+            this.configuration = configuration;
+            this.paths = configuration.getPathAutomaton();
+            this.trackPaths = !paths.isEmpty();
+            this.limits = configuration.getLimits();
+            this.stringMask = quote(configuration.getStringMask());
+            this.tokenize = configuration.getTokenizer() != null;
+            this.numberMask = configuration.getNumberMask() == null ? NULL : ascii(configuration.getNumberMask().toString());
+            this.decimalMask = configuration.getDecimalMask() == null ? NULL : ascii(BigDecimal.valueOf(configuration.getDecimalMask()).toString());
+            this.booleanMask = configuration.getBooleanMask() == null ? NULL : ascii(configuration.getBooleanMask().toString());
+        }
+
+        byte[] stringMask(JsonParser parser) throws IOException {
+            return tokenize ? quote(configuration.getStringMask(parser.getText())) : stringMask;
+        }
+
+        private static byte[] quote(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+            byte[] quoted = new byte[escaped.length + 2];
+            quoted[0] = '"';
+            System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+            quoted[quoted.length - 1] = '"';
+            return quoted;
+        }
+
+        private static byte[] ascii(String value) {
+            return value.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonShieldLimitExceededException;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Applies {@link JsonShieldLimits} to Jackson parsers through their {@link StreamReadConstraints},
+ * which Jackson checks as it reads. Jackson checks the document length only once per buffer it loads,
+ * so the input length is counted on the input itself instead.
+ */
+final class StreamLimits {
+
+    private StreamLimits() {
+    }
+
+    /**
+     * Derives a mapper whose parsers enforce the limits on top of the constraints of the given mapper.
+     *
+     * @return the given mapper if no limit is set, otherwise a copy reading through a constrained factory
+     */
+    static ObjectMapper constrain(ObjectMapper mapper, JsonShieldLimits limits) {
+        if (limits.isUnlimited()) {
+            return mapper;
+        }
+        JsonFactory factory = mapper.getFactory().copy();
+        StreamReadConstraints.Builder constraints = factory.streamReadConstraints().rebuild();
+        if (limits.getMaxDepth() != Integer.MAX_VALUE) {
+            constraints.maxNestingDepth(limits.getMaxDepth());
+        }
+        if (limits.getMaxTokens() != Long.MAX_VALUE) {
+            constraints.maxTokenCount(limits.getMaxTokens());
+        }
+        if (limits.getMaxStringLength() != Integer.MAX_VALUE) {
+            constraints.maxStringLength(limits.getMaxStringLength()).maxNameLength(limits.getMaxStringLength());
+        }
+        factory.setStreamReadConstraints(constraints.build());
+        return mapper.copyWith(factory);
+    }
+
+    /**
+     * Wraps a stream so reading fails as soon as it exceeds the maximum input length in bytes.
+     *
+     * @return the given stream if the input length is unlimited
+     */
+    static InputStream limit(InputStream in, JsonShieldLimits limits) {
+        return limits.getMaxInputLength() == Long.MAX_VALUE ? in : new CountingInputStream(in, limits);
+    }
+
+    /**
+     * Wraps a reader so reading fails as soon as it exceeds the maximum input length in characters.
+     *
+     * @return the given reader if the input length is unlimited
+     */
+    static Reader limit(Reader in, JsonShieldLimits limits) {
+        return limits.getMaxInputLength() == Long.MAX_VALUE ? in : new CountingReader(in, limits);
+    }
+
+    /**
+     * Translates a violated constraint into the exception of the matching limit. Jackson does not tell which
+     * constraint was violated other than by its message, and the constraints of the mapper apply even where
+     * no limit is configured, so the maximum is taken from the constraints.
+     *
+     * @throws InvalidJsonException if the constraint has no matching limit, such as the length of numbers
+     */
+    static JsonShieldLimitExceededException exceeded(StreamConstraintsException e, StreamReadConstraints constraints) {
+        String message = String.valueOf(e.getOriginalMessage());
+        if (message.startsWith("Document nesting depth")) {
+            return new JsonShieldLimitExceededException(JsonShieldLimits.Limit.DEPTH, constraints.getMaxNestingDepth());
+        } else if (message.startsWith("Token count")) {
+            return new JsonShieldLimitExceededException(JsonShieldLimits.Limit.TOKENS, constraints.getMaxTokenCount());
+        } else if (message.startsWith("String value length")) {
+            return new JsonShieldLimitExceededException(JsonShieldLimits.Limit.STRING_LENGTH, constraints.getMaxStringLength());
+        } else if (message.startsWith("Name length")) {
+            return new JsonShieldLimitExceededException(JsonShieldLimits.Limit.STRING_LENGTH, constraints.getMaxNameLength());
+        } else if (message.startsWith("Document length")) {
+            return new JsonShieldLimitExceededException(JsonShieldLimits.Limit.INPUT_LENGTH, constraints.getMaxDocumentLength());
+        }
+        throw new InvalidJsonException("Invalid JSON", e);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final JsonShieldLimits limits;
+        private long count;
+
+        CountingInputStream(InputStream in, JsonShieldLimits limits) {
+            super(in);
+            this.limits = limits;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                limits.checkInputLength(++count);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+                limits.checkInputLength(count);
+            }
+            return n;
+        }
+    }
+
+    private static final class CountingReader extends FilterReader {
+        private final JsonShieldLimits limits;
+        private long count;
+
+        CountingReader(Reader in, JsonShieldLimits limits) {
+            super(in);
+            this.limits = limits;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                limits.checkInputLength(++count);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+                limits.checkInputLength(count);
+            }
+            return n;
+        }
+    }
+}
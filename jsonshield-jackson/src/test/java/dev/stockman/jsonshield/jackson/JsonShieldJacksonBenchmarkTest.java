@@ -0,0 +1,24 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.test.AbstractTreeMaskingBenchmark;
+import org.junit.jupiter.api.DisplayName;
+
+@DisplayName("Jackson tree masking benchmark")
+public class JsonShieldJacksonBenchmarkTest extends AbstractTreeMaskingBenchmark {
+
+    @Override
+    protected Runnable createTreeMasking(JsonShieldConfiguration configuration, String json) {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper();
+        JsonShieldJackson jsonShield = new JsonShieldJackson(mapper, configuration);
+        try {
+            JsonNode node = mapper.readTree(json);
+            return () -> jsonShield.maskInPlace(node);
+        } catch (Exception e) {
+            throw new JsonShieldException("Failed to process JSON", e);
+        }
+    }
+}
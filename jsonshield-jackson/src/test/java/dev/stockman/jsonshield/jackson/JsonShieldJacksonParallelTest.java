@@ -0,0 +1,50 @@
+package dev.stockman.jsonshield.jackson;
+
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.test.AbstractJsonShieldTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Jackson parallel JSON provider unit tests")
+public class JsonShieldJacksonParallelTest extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        // Forks every array and object with more than one child
+        return new JsonShieldJackson(JsonHelper.formattedObjectMapper(), jsonShieldConfiguration, 1);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        try {
+            return JsonHelper.formattedObjectMapper().writeValueAsString(
+                    JsonHelper.formattedObjectMapper().readTree(json)
+            );
+        } catch (Exception e) {
+            throw new JsonShieldException("Failed to process JSON", e);
+        }
+    }
+
+    @Test
+    @DisplayName("Large arrays and objects match sequential masking")
+    void testLargeDocument() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().addFields("pin", "tags").build();
+        StringBuilder json = new StringBuilder("{\"records\":[");
+        for (int i = 0; i < 20000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"pin\":").append(i * 7)
+                    .append(",\"tags\":[\"a\",").append(i).append("],\"note\":\"n").append(i).append("\"}");
+        }
+        json.append("],\"lookup\":{");
+        for (int i = 0; i < 5000; i++) {
+            json.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":{\"pin\":").append(i).append(",\"v\":").append(i).append("}");
+        }
+        String input = json.append("}}").toString();
+        String expected = new JsonShieldJackson(JsonHelper.formattedObjectMapper(), configuration).mask(input);
+        assertEquals(expected, new JsonShieldJackson(JsonHelper.formattedObjectMapper(), configuration, 256).mask(input));
+        assertThrows(IllegalArgumentException.class, () -> new JsonShieldJackson(JsonHelper.formattedObjectMapper(), configuration, 0));
+    }
+}
@@ -0,0 +1,84 @@
+package dev.stockman.jsonshield.jackson;
+
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.core.PiiType;
+import dev.stockman.jsonshield.test.AbstractJsonShieldTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Jackson splicing JSON provider unit tests")
+public class JsonShieldJacksonSplicingTest extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        return new JsonShieldJacksonSplicing(JsonHelper.formattedObjectMapper(), jsonShieldConfiguration);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        try {
+            return JsonHelper.formattedObjectMapper().writeValueAsString(
+                    JsonHelper.formattedObjectMapper().readTree(json)
+            );
+        } catch (Exception e) {
+            throw new JsonShieldException("Failed to process JSON", e);
+        }
+    }
+
+    @Test
+    @DisplayName("PII detection is rejected")
+    void testPiiDetectionRejected() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.EMAIL).build();
+        assertThrows(IllegalArgumentException.class, () -> createJsonShield(configuration));
+    }
+
+    @Test
+    @DisplayName("Formatting is preserved")
+    void testFormattingPreserved() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret", "pin").build());
+        String input = "{ \"secret\" :\t\"va\\\"lue\",\n  \"amount\": 1.0E7, \"note\" : \"caf\\u00e9 ü\", \"pin\":[ 12 ,-3.5e2,true ] }  ";
+        assertEquals("{ \"secret\" :\t\"*****\",\n  \"amount\": 1.0E7, \"note\" : \"caf\\u00e9 ü\", \"pin\":[ 0 ,0.0,false ] }  ", jsonShield.mask(input));
+        assertArrayEquals("{ \"secret\" :\t\"*****\",\n  \"amount\": 1.0E7, \"note\" : \"caf\\u00e9 ü\", \"pin\":[ 0 ,0.0,false ] }  ".getBytes(StandardCharsets.UTF_8),
+                jsonShield.mask(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Unmasked documents are returned as they are")
+    void testUnmaskedDocument() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build());
+        String input = "{\"other\" : 1e3, \"secret\": null}";
+        assertSame(input, jsonShield.mask(input));
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        byte[] masked = jsonShield.mask(bytes);
+        assertArrayEquals(bytes, masked);
+        assertNotSame(bytes, masked);
+    }
+
+    @Test
+    @DisplayName("Masks are escaped and tokens spliced in")
+    void testMasks() {
+        JsonShield escaped = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret").withStringMask("\"€\"").build());
+        assertEquals("{\"secret\": \"\\\"€\\\"\" }", escaped.mask("{\"secret\": \"x\" }"));
+        JsonShield tokenizing = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret")
+                .withStringTokenization("key".getBytes(StandardCharsets.UTF_8)).build());
+        String masked = tokenizing.mask("{ \"secret\" : \"caf\\u00e9\" }");
+        assertEquals(masked, tokenizing.mask("{ \"secret\" : \"café\" }"));
+        assertTrue(masked.matches("\\{ \"secret\" : \"tok_[A-Za-z0-9_-]{16}\" }"), masked);
+    }
+
+    @Test
+    @DisplayName("Content after the document is rejected")
+    void testTrailingContent() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build());
+        assertThrows(InvalidJsonException.class, () -> jsonShield.mask("{\"secret\":\"x\"} {\"secret\":\"y\"}"));
+        assertThrows(InvalidJsonException.class, () -> jsonShield.mask("{\"secret\":\"x\"}}"));
+        assertEquals("null", jsonShield.mask(" "));
+    }
+}
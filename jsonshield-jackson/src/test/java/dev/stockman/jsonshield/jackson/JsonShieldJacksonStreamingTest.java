@@ -0,0 +1,205 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.PiiType;
+import dev.stockman.jsonshield.test.AbstractJsonShieldTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Jackson streaming JSON provider unit tests")
+public class JsonShieldJacksonStreamingTest extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        return new JsonShieldJacksonStreaming(JsonHelper.formattedObjectMapper(), jsonShieldConfiguration);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        try {
+            return JsonHelper.formattedObjectMapper().writeValueAsString(
+                    JsonHelper.formattedObjectMapper().readTree(json)
+            );
+        } catch (Exception e) {
+            throw new JsonShieldException("Failed to process JSON", e);
+        }
+    }
+
+    @Test
+    @DisplayName("PII detection is rejected")
+    void testPiiDetectionRejected() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.EMAIL).build();
+        assertThrows(IllegalArgumentException.class, () -> createJsonShield(configuration));
+        assertThrows(IllegalArgumentException.class, () -> new JsonShieldJacksonProcessor(JsonHelper.formattedObjectMapper(), configuration));
+    }
+
+    @Test
+    @DisplayName("Mask documents with unquoted and single quoted names if the mapper accepts them")
+    void testLenientNames() {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper()
+                .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES.mappedFeature(), JsonReadFeature.ALLOW_SINGLE_QUOTES.mappedFeature());
+        JsonShield jsonShield = new JsonShieldJacksonStreaming(mapper, JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+        for (String input : List.of("{f1:\"secret\"}", "{'f1':'secret'}")) {
+            assertEquals(cleanJsonify("{\"f1\":\"*****\"}"), jsonShield.mask(input), input);
+            assertFalse(new String(jsonShield.mask(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8).contains("secret"), input);
+            assertFalse(jsonShield.maskAll(List.of(input)).getFirst().contains("secret"), input);
+        }
+    }
+
+    @Test
+    @DisplayName("Processor masks documents split into chunks")
+    void testProcessorChunks() throws Exception {
+        JsonShieldJacksonStreaming jsonShield = new JsonShieldJacksonStreaming(JsonHelper.formattedObjectMapper(),
+                JsonShieldConfiguration.useBlackListStrategy().addFields("f1", "f2").build());
+        String input = "{\"f1\":\"caf\\u00e9 über\",\"f2\":[12345,1.5e3,true,{\"f1\":\"€\"}],\"f3\":{\"f4\":null,\"f5\":\"kept €\",\"f6\":-12.50}}";
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        for (int size : new int[]{1, 2, 3, 7, 64, bytes.length}) {
+            List<byte[]> chunks = new ArrayList<>();
+            for (int i = 0; i < bytes.length; i += size) {
+                chunks.add(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size)));
+            }
+            assertEquals(jsonShield.mask(input), process(jsonShield.newMaskingProcessor(), chunks).get(10, TimeUnit.SECONDS), "chunk size " + size);
+        }
+        assertEquals("null", process(jsonShield.newMaskingProcessor(), List.of()).get(10, TimeUnit.SECONDS));
+        JsonShieldJacksonStreaming whitelist = new JsonShieldJacksonStreaming(JsonHelper.formattedObjectMapper(), JsonShieldConfiguration.useWhiteListStrategy().build());
+        assertEquals("0", process(whitelist.newMaskingProcessor(), List.of("4".getBytes(StandardCharsets.UTF_8), "2 ".getBytes(StandardCharsets.UTF_8))).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Processor rejects malformed documents")
+    void testProcessorValidate() {
+        JsonShieldJacksonStreaming jsonShield = new JsonShieldJacksonStreaming(JsonHelper.formattedObjectMapper(), JsonShieldConfiguration.useWhiteListStrategy().build());
+        for (String input : List.of("{\"f1\":}", "{\"f1\":[1,2")) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> process(jsonShield.newMaskingProcessor(), List.of(input.getBytes(StandardCharsets.UTF_8))).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(InvalidJsonException.class, e.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("Processor requests chunks only on demand")
+    void testProcessorBackpressure() {
+        JsonShieldJacksonProcessor processor = new JsonShieldJacksonProcessor(JsonHelper.formattedObjectMapper(), JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+        long[] upstreamRequested = new long[1];
+        boolean[] upstreamCancelled = new boolean[1];
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                upstreamRequested[0] += n;
+            }
+
+            @Override
+            public void cancel() {
+                upstreamCancelled[0] = true;
+            }
+        });
+        List<String> received = new ArrayList<>();
+        Flow.Subscription[] downstream = new Flow.Subscription[1];
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                downstream[0] = subscription;
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                received.add(StandardCharsets.UTF_8.decode(item).toString());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                fail(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                received.add("complete");
+            }
+        });
+        assertEquals(0, upstreamRequested[0]);
+        downstream[0].request(1);
+        assertEquals(1, upstreamRequested[0]);
+        processor.onNext(ByteBuffer.wrap("[{\"f1\":".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, received.size());
+        assertEquals(1, upstreamRequested[0]);
+        downstream[0].request(5);
+        assertEquals(2, upstreamRequested[0]);
+        processor.onNext(ByteBuffer.wrap("\"x\"}]".getBytes(StandardCharsets.UTF_8)));
+        processor.onComplete();
+        assertEquals("complete", received.getLast());
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+        assertEquals(jsonShield.mask("[{\"f1\":\"x\"}]"), String.join("", received.subList(0, received.size() - 1)));
+        assertFalse(upstreamCancelled[0]);
+
+        CompletableFuture<String> second = new CompletableFuture<>();
+        processor.subscribe(new CollectingSubscriber(second));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static CompletableFuture<String> process(JsonShieldJacksonProcessor processor, List<byte[]> chunks) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            processor.subscribe(new CollectingSubscriber(result));
+            chunks.forEach(chunk -> publisher.submit(ByteBuffer.wrap(chunk)));
+        }
+        return result;
+    }
+
+    /**
+     * Collects the output one chunk at a time, so every chunk is requested separately.
+     */
+    private static final class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final CompletableFuture<String> result;
+        private Flow.Subscription subscription;
+
+        CollectingSubscriber(CompletableFuture<String> result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            out.writeBytes(bytes);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(out.toString(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,10 +1,26 @@
 package dev.stockman.jsonshield.jackson;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import dev.stockman.jsonshield.core.JsonShieldException;
 import dev.stockman.jsonshield.core.JsonShield;
 import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.PiiType;
 import dev.stockman.jsonshield.test.AbstractJsonShieldTest;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("Jackson JSON provider unit tests")
 public class JsonShieldJacksonTest extends AbstractJsonShieldTest {
@@ -25,5 +41,101 @@ public class JsonShieldJacksonTest extends AbstractJsonShieldTest {
         }
     }
 
-}
+    @Test
+    @DisplayName("Mask documents with unquoted and single quoted names if the mapper accepts them")
+    void testLenientNames() {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper()
+                .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES.mappedFeature(), JsonReadFeature.ALLOW_SINGLE_QUOTES.mappedFeature());
+        JsonShield jsonShield = new JsonShieldJackson(mapper, JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+        for (String input : List.of("{f1:\"secret\"}", "{'f1':'secret'}")) {
+            assertEquals(cleanJsonify("{\"f1\":\"*****\"}"), jsonShield.mask(input), input);
+            assertFalse(new String(jsonShield.mask(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8).contains("secret"), input);
+            assertFalse(jsonShield.maskAll(List.of(input)).getFirst().contains("secret"), input);
+        }
+    }
+
+    @Test
+    @DisplayName("Mask JsonNode in place and as a copy")
+    void testMaskTree() throws Exception {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper();
+        JsonShieldJackson jsonShield = new JsonShieldJackson(mapper, JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build());
+        String input = "{\"secret\":\"value\",\"list\":[{\"secret\":[1,true]}],\"other\":\"value\"}";
+        String output = "{\"secret\":\"*****\",\"list\":[{\"secret\":[0,false]}],\"other\":\"value\"}";
+
+        JsonNode original = mapper.readTree(input);
+        JsonNode copy = jsonShield.maskTree(original);
+        assertNotSame(original, copy);
+        assertEquals(mapper.readTree(input), original);
+        assertEquals(mapper.readTree(output), copy);
+
+        assertSame(original, jsonShield.maskInPlace(original));
+        assertEquals(mapper.readTree(output), original);
+
+        JsonShieldJackson whitelist = new JsonShieldJackson(mapper, JsonShieldConfiguration.useWhiteListStrategy().build());
+        assertEquals(mapper.readTree("\"*****\""), whitelist.maskInPlace(mapper.readTree("\"value\"")));
+        assertThrows(NullPointerException.class, () -> jsonShield.maskInPlace(null));
+        assertThrows(NullPointerException.class, () -> jsonShield.maskTree(null));
+    }
 
+
+    @Test
+    @DisplayName("Mask 100k levels of nesting without recursion")
+    void testDeepNesting() {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper();
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build();
+        for (JsonShieldJackson jsonShield : List.of(new JsonShieldJackson(mapper, configuration), new JsonShieldJackson(mapper, configuration, 1))) {
+            ObjectNode leaf = mapper.createObjectNode().put("secret", "value").put("other", "value");
+            JsonNode root = leaf;
+            for (int i = 0; i < 50_000; i++) {
+                // Two elements, so that every level is split into parallel tasks
+                root = mapper.createObjectNode().set("list", mapper.createArrayNode().add(root).add("value"));
+            }
+            assertSame(root, jsonShield.maskInPlace(root));
+            assertEquals("*****", leaf.get("secret").textValue());
+            assertEquals("value", leaf.get("other").textValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Detect PII in unlisted fields")
+    void testPiiDetection() throws Exception {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper();
+        JsonShieldJackson jsonShield = new JsonShieldJackson(mapper, JsonShieldConfiguration.useBlackListStrategy()
+                .addField("secret").withPiiDetection(PiiType.values()).build());
+        String input = "{\"note\":\"card 4111 1111 1111 1111\",\"list\":[\"mail jane.doe@example.com\",\"ok\"],"
+                + "\"ssn\":\"123-45-6789\",\"iban\":\"DE89 3704 0044 0532 0130 00\",\"order\":\"4111111111111112\",\"id\":4111111111111111}";
+        String output = "{\"note\":\"*****\",\"list\":[\"*****\",\"ok\"],\"ssn\":\"*****\",\"iban\":\"*****\","
+                + "\"order\":\"4111111111111112\",\"id\":4111111111111111}";
+        assertEquals(mapper.readTree(output), mapper.readTree(jsonShield.mask(input)));
+        assertEquals(mapper.readTree(output), mapper.readTree(jsonShield.mask(input.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(mapper.readTree("{\"note\":\"*****\",\"ok\":\"none\"}"),
+                mapper.readTree(jsonShield.mask((Object) Map.of("note", "jane@example.org", "ok", "none"))));
+        assertEquals(TextNode.valueOf("*****"), jsonShield.maskInPlace(TextNode.valueOf("4111-1111-1111-1111")));
+
+        // Only the first 30 characters of each document are scanned
+        JsonShieldJackson budgeted = new JsonShieldJackson(mapper, JsonShieldConfiguration.useBlackListStrategy()
+                .withPiiDetection(PiiType.EMAIL).withPiiDetectionBudget(30).build());
+        assertEquals(mapper.readTree("[\"*****\",\"*****\",\"c@example.com\"]"),
+                mapper.readTree(budgeted.mask("[\"a@example.com\",\"b@example.com\",\"c@example.com\"]")));
+        assertEquals(mapper.readTree("[\"*****\"]"), mapper.readTree(budgeted.mask("[\"a@example.com\"]")));
+    }
+
+    @Test
+    @DisplayName("Detect PII in strings written from a reader or as UTF-8 bytes")
+    void testPiiDetectionStringWriters() throws Exception {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper();
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.EMAIL).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = new MaskingJsonGenerator(mapper.createGenerator(out), configuration)) {
+            generator.writeStartArray();
+            for (String text : List.of("jane@example.com", "none")) {
+                byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                generator.writeString(new StringReader(text), text.length());
+                generator.writeUTF8String(utf8, 0, utf8.length);
+                generator.writeRawUTF8String(utf8, 0, utf8.length);
+            }
+            generator.writeEndArray();
+        }
+        assertEquals(mapper.readTree("[\"*****\",\"*****\",\"*****\",\"none\",\"none\",\"none\"]"), mapper.readTree(out.toByteArray()));
+    }
+}
@@ -0,0 +1,93 @@
+package dev.stockman.jsonshield.jackson;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.test.AbstractJsonShieldComplexSchemaTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Jackson serialization module complex schema tests")
+public class JsonShieldModuleComplexSchemaTest extends AbstractJsonShieldComplexSchemaTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        ObjectMapper mapper = JsonHelper.formattedObjectMapper().registerModule(new JsonShieldModule(jsonShieldConfiguration));
+        JsonShield jsonShield = new JsonShieldJackson(JsonHelper.formattedObjectMapper(), jsonShieldConfiguration);
+        return new JsonShield() {
+            @Override
+            public String mask(String json) {
+                // The module only applies to serialization
+                return jsonShield.mask(json);
+            }
+
+            @Override
+            public String mask(Object obj) {
+                try {
+                    return mapper.writeValueAsString(obj);
+                } catch (JsonProcessingException e) {
+                    throw new JsonShieldException("Error masking Object", e);
+                }
+            }
+        };
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        try {
+            return JsonHelper.formattedObjectMapper().writeValueAsString(
+                    JsonHelper.formattedObjectMapper().readTree(json)
+            );
+        } catch (Exception e) {
+            throw new JsonShieldException("Failed to process JSON", e);
+        }
+    }
+
+    record Account(String owner, String secret, List<String> pins, Map<String, Object> extra) {
+    }
+
+    @Test
+    @DisplayName("Content outside of beans is not masked")
+    void testOutsideBeans() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JsonShieldModule(
+                JsonShieldConfiguration.useBlackListStrategy().addFields("secret", "pins", "cvv").build()));
+        Account account = new Account("John", "s3cr3t", List.of("1234", "5678"), Map.of("cvv", 123));
+        assertEquals("{\"owner\":\"John\",\"secret\":\"*****\",\"pins\":[\"*****\",\"*****\"],\"extra\":{\"cvv\":0}}",
+                mapper.writeValueAsString(account));
+        assertEquals("{\"secret\":\"s3cr3t\"}", mapper.writeValueAsString(Map.of("secret", "s3cr3t")));
+        assertThrows(NullPointerException.class, () -> new JsonShieldModule(null));
+    }
+
+    public static final class Extensible {
+        public String owner = "John";
+        private final Map<String, Object> properties = Map.of("secret", "s2", "pins", List.of("1234"));
+
+        @JsonAnyGetter
+        public Map<String, Object> getProperties() {
+            return properties;
+        }
+    }
+
+    @Test
+    @DisplayName("Entries of an any-getter are masked")
+    void testAnyGetter() throws Exception {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().addFields("secret", "pins").build();
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JsonShieldModule(configuration));
+        ObjectMapper plain = new ObjectMapper();
+        Extensible bean = new Extensible();
+        String masked = mapper.writeValueAsString(bean);
+        assertEquals(plain.readTree(new JsonShieldJackson(plain, configuration).mask(bean)), plain.readTree(masked));
+        assertEquals(plain.readTree("{\"owner\":\"John\",\"secret\":\"*****\",\"pins\":[\"*****\"]}"), plain.readTree(masked));
+        // Inside content that is not masked itself
+        assertEquals(plain.readTree("{\"list\":[{\"owner\":\"John\",\"secret\":\"*****\",\"pins\":[\"*****\"]}]}"),
+                plain.readTree(mapper.writeValueAsString(Map.of("list", List.of(bean)))));
+    }
+}
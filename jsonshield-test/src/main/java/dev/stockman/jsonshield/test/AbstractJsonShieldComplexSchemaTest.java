@@ -269,5 +269,34 @@ public abstract class AbstractJsonShieldComplexSchemaTest {
 
     }
 
-}
+    @Nested
+    @DisplayName("Path rule tests")
+    class PathTests {
+
+        private final String maskedByPath = unmaskedJsonString
+                .replace("john@example.com", "*****")
+                .replace("123 Main St", "*****")
+                .replace("456 Corp Ave", "*****")
+                .replace("\"cvv\" : \"123\"", "\"cvv\" : \"*****\"")
+                .replace("nestedValue", "*****")
+                .replace("88,\n    92,\n    95", "0,\n    0,\n    0");
+
+        private final JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy()
+                .addPaths("$.contact.email", "$.addresses[*].street", "$..cvv", "$.payment.mixed[*].nestedKey", "$.scores")
+                .build());
+
+        @Test
+        @DisplayName("Using JSON string")
+        void testMaskByStringUsing() {
+            jsonAssertEquals(maskedByPath, maskUtils.mask(unmaskedJsonString));
+        }
 
+        @Test
+        @DisplayName("Using Java objects")
+        void testMaskByObjectUsing() {
+            jsonAssertEquals(maskedByPath, maskUtils.mask(sampleUnmaskedObject));
+        }
+
+    }
+
+}
@@ -3,9 +3,31 @@ package dev.stockman.jsonshield.test;
 import dev.stockman.jsonshield.core.InvalidJsonException;
 import dev.stockman.jsonshield.core.JsonShield;
 import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldException;
+import dev.stockman.jsonshield.core.JsonShieldLimitExceededException;
+import dev.stockman.jsonshield.core.JsonShieldLimits;
+import dev.stockman.jsonshield.core.LazyMaskedJson;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -955,8 +977,770 @@ public abstract class AbstractJsonShieldTest {
             jsonAssertEquals(output, maskUtils.mask(input));
         }
 
+        @Test
+        @DisplayName("Document without configured fields")
+        void testNoConfiguredFields() {
+            //language=json
+            String input = """
+                    {
+                      "f2" : "f2",
+                      "f4" : [ 1.50, "f6", { "f5" : true } ]
+                    }""";
+
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f1", "f3").build());
+            assertEquals(input, maskUtils.mask(input));
+            assertThrows(InvalidJsonException.class, () -> maskUtils.mask("{\"f2\" : [1, 2}"));
+        }
+
+        @Test
+        @DisplayName("Escaped configured field")
+        void testEscapedConfiguredField() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f1").build());
+            String maskedJson = maskUtils.mask("{\"f\\u0031\" : \"secret\"}");
+            assertFalse(maskedJson.contains("secret"));
+            assertTrue(maskedJson.contains("*****"));
+        }
+
     }
 
+    @Nested
+    @DisplayName("Path rule tests")
+    class PathTests {
 
-}
+        //language=json
+        private static final String INPUT = """
+                {
+                  "id" : 1,
+                  "payment" : { "id" : 2, "cardNumber" : "4111", "cvv" : "123" },
+                  "addresses" : [ { "street" : "Main St", "city" : "Springfield" }, { "street" : "Corp Ave", "city" : "Business City" } ],
+                  "contacts" : { "home" : { "cvv" : "456", "phone" : "555" } },
+                  "codes" : [ [ 1, 2 ], [ 3 ] ]
+                }""";
+
+        @Test
+        @DisplayName("Blacklisted paths")
+        void testBlacklist() {
+            //language=json
+            String output = """
+                    {
+                      "id" : 1,
+                      "payment" : { "id" : 0, "cardNumber" : "4111", "cvv" : "*****" },
+                      "addresses" : [ { "street" : "*****", "city" : "Springfield" }, { "street" : "*****", "city" : "Business City" } ],
+                      "contacts" : { "home" : { "cvv" : "*****", "phone" : "555" } },
+                      "codes" : [ [ 0, 0 ], [ 0 ] ]
+                    }""";
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy()
+                    .addPaths("$.payment.id", "$.addresses[*].street", "$..cvv", "$.codes").build());
+            jsonAssertEquals(output, maskUtils.mask(INPUT));
+            jsonAssertEquals(output, new String(maskUtils.mask(INPUT.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Whitelisted paths")
+        void testWhitelist() {
+            //language=json
+            String output = """
+                    {
+                      "id" : 0,
+                      "payment" : { "id" : 2, "cardNumber" : "*****", "cvv" : "*****" },
+                      "addresses" : [ { "street" : "*****", "city" : "Springfield" }, { "street" : "*****", "city" : "Business City" } ],
+                      "contacts" : { "home" : { "cvv" : "*****", "phone" : "555" } },
+                      "codes" : [ [ 0, 0 ], [ 0 ] ]
+                    }""";
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useWhiteListStrategy()
+                    .addField("phone").addPaths("$.payment.id", "$['addresses'][*].city").build());
+            jsonAssertEquals(output, maskUtils.mask(INPUT));
+            jsonAssertEquals(output, new String(maskUtils.mask(INPUT.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Wildcards and nested arrays")
+        void testWildcards() {
+            //language=json
+            String output = """
+                    {
+                      "id" : 1,
+                      "payment" : { "id" : 2, "cardNumber" : "4111", "cvv" : "123" },
+                      "addresses" : [ { "street" : "Main St", "city" : "Springfield" }, { "street" : "Corp Ave", "city" : "Business City" } ],
+                      "contacts" : { "home" : { "cvv" : "*****", "phone" : "*****" } },
+                      "codes" : [ [ 0, 0 ], [ 0 ] ]
+                    }""";
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy()
+                    .addPaths("$.contacts.*.*", "$.codes[*][*]", "$.payment.*.cvv").build());
+            jsonAssertEquals(output, maskUtils.mask(INPUT));
+        }
+
+        @Test
+        @DisplayName("A matched object does not mask its fields")
+        void testMatchedObject() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addPath("$.payment").build());
+            jsonAssertEquals(INPUT, maskUtils.mask(INPUT));
+        }
+
+        @Test
+        @DisplayName("Root paths")
+        void testRoot() {
+            JsonShield rootArray = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addPath("$[*]").build());
+            jsonAssertEquals("[ \"*****\", 0, { \"a\" : 1 } ]", rootArray.mask("[ \"a\", 1, { \"a\" : 1 } ]"));
+            JsonShield root = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addPath("$").build());
+            jsonAssertEquals("\"*****\"", root.mask("\"a\""));
+            jsonAssertEquals("[ 0, [ false ] ]", root.mask("[ 1, [ true ] ]"));
+            JsonShield whitelistRoot = createJsonShield(JsonShieldConfiguration.useWhiteListStrategy().addPath("$").build());
+            jsonAssertEquals("\"a\"", whitelistRoot.mask("\"a\""));
+        }
+
+        @Test
+        @DisplayName("Escaped field names")
+        void testEscapedNames() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addPath("$.p\u00e4y.id").build());
+            String maskedJson = maskUtils.mask("{ \"p\\u00e4y\" : { \"id\" : \"secret\" }, \"id\" : \"kept\" }");
+            assertFalse(maskedJson.contains("secret"));
+            assertTrue(maskedJson.contains("kept"));
+        }
+
+        @Test
+        @DisplayName("Documents without the named fields are left untouched")
+        void testNoMatchingFields() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addPath("$..iban").build());
+            assertEquals(INPUT, maskUtils.mask(INPUT));
+        }
+
+        @Test
+        @DisplayName("Malformed path rules")
+        void testMalformedPaths() {
+            for (String path : new String[] {"payment.id", "$.", "$..", "$[0]", "$['id'", "$.a[", "$x"}) {
+                assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy().addPath(path).build(), path);
+            }
+            assertThrows(NullPointerException.class, () -> JsonShieldConfiguration.useBlackListStrategy().addPath(null).build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Field pattern tests")
+    class FieldPatternTests {
+
+        //language=json
+        private static final String INPUT = """
+                {
+                  "accessToken" : "abc",
+                  "refreshToken" : "def",
+                  "tokenType" : "bearer",
+                  "cardNumber" : "4111",
+                  "cardHolder" : "John",
+                  "ssn" : "123-45-6789",
+                  "ssnIssued" : 2001,
+                  "userPassword" : "hunter2",
+                  "PASSWORD_HINT" : "pet",
+                  "items" : [ { "cardNumber" : "5500" } ]
+                }""";
+
+        @Test
+        @DisplayName("Blacklisted patterns")
+        void testBlacklist() {
+            //language=json
+            String output = """
+                    {
+                      "accessToken" : "*****",
+                      "refreshToken" : "*****",
+                      "tokenType" : "bearer",
+                      "cardNumber" : "*****",
+                      "cardHolder" : "*****",
+                      "ssn" : "*****",
+                      "ssnIssued" : 2001,
+                      "userPassword" : "*****",
+                      "PASSWORD_HINT" : "*****",
+                      "items" : [ { "cardNumber" : "*****" } ]
+                    }""";
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy()
+                    .addFieldPatterns("*Token", "card*", "ssn|tin|ein").addFieldRegex("(?i).*password.*").build());
+            jsonAssertEquals(output, maskUtils.mask(INPUT));
+            jsonAssertEquals(output, new String(maskUtils.mask(INPUT.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Whitelisted patterns")
+        void testWhitelist() {
+            //language=json
+            String output = """
+                    {
+                      "accessToken" : "*****",
+                      "refreshToken" : "*****",
+                      "tokenType" : "bearer",
+                      "cardNumber" : "*****",
+                      "cardHolder" : "John",
+                      "ssn" : "*****",
+                      "ssnIssued" : 2001,
+                      "userPassword" : "*****",
+                      "PASSWORD_HINT" : "*****",
+                      "items" : [ { "cardNumber" : "*****" } ]
+                    }""";
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useWhiteListStrategy()
+                    .addField("items").addFieldPattern("token*").addFieldRegexes("card[A-H].*", "ssn[A-Z]\\w+").build());
+            jsonAssertEquals(output, maskUtils.mask(INPUT));
+            jsonAssertEquals(output, new String(maskUtils.mask(INPUT.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Patterns combine with field names")
+        void testWithFields() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy()
+                    .addField("tokenType").addFieldPattern("*Token").build());
+            String maskedJson = maskUtils.mask(INPUT);
+            assertFalse(maskedJson.contains("abc"));
+            assertFalse(maskedJson.contains("bearer"));
+            assertTrue(maskedJson.contains("4111"));
+        }
+
+        @Test
+        @DisplayName("Non-ASCII field names")
+        void testNonAsciiNames() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy()
+                    .addFieldPattern("gr\u00f6\u00df*").addFieldRegex("\\w+Stra\u00dfe").build());
+            String maskedJson = maskUtils.mask("{ \"gr\u00f6\u00dfe\" : \"secret\", \"heimStra\u00dfe\" : \"secret\", \"stra\u00dfe\" : \"kept\" }");
+            assertFalse(maskedJson.contains("secret"));
+            assertTrue(maskedJson.contains("kept"));
+        }
+
+        @Test
+        @DisplayName("Malformed field patterns")
+        void testMalformedPatterns() {
+            for (String regex : new String[] {"(", "a)", "[a", "a{2,1}", "*a", "a++", "(?=a)", "\\1", "a{1000}"}) {
+                assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy().addFieldRegex(regex).build(), regex);
+            }
+            assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy().addFieldPattern("a\\").build());
+            assertThrows(NullPointerException.class, () -> JsonShieldConfiguration.useBlackListStrategy().addFieldPattern(null).build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tokenization tests")
+    class TokenizationTests {
+
+        private final JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy()
+                .addFields("email", "customerId").withStringTokenization("secret key".getBytes(StandardCharsets.UTF_8)).build();
+
+        @Test
+        @DisplayName("Masked strings are replaced by deterministic tokens")
+        void testTokens() {
+            //language=json
+            String input = """
+                    {
+                      "email" : "jane@example.com",
+                      "customerId" : 42,
+                      "orders" : [ { "customerId" : "c-1", "email" : "j\\u0061ne@example.com" }, { "customerId" : "c-1" } ],
+                      "note" : "jane@example.com"
+                    }""";
+            String jane = configuration.getTokenizer().tokenize("jane@example.com");
+            String c1 = configuration.getTokenizer().tokenize("c-1");
+            //language=json
+            String output = """
+                    {
+                      "email" : "%s",
+                      "customerId" : 0,
+                      "orders" : [ { "customerId" : "%s", "email" : "%s" }, { "customerId" : "%s" } ],
+                      "note" : "jane@example.com"
+                    }""".formatted(jane, c1, jane, c1);
+            JsonShield maskUtils = createJsonShield(configuration);
+            jsonAssertEquals(output, maskUtils.mask(input));
+            jsonAssertEquals(output, new String(maskUtils.mask(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+            assertTrue(jane.matches("tok_[A-Za-z0-9_-]{16}"), jane);
+            assertNotEquals(jane, c1);
+        }
+
+        @Test
+        @DisplayName("Tokens depend on the key")
+        void testKeys() {
+            JsonShield other = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addField("email")
+                    .withStringTokenization("other key".getBytes(StandardCharsets.UTF_8), 0).build());
+            String input = "{ \"email\" : \"jane@example.com\" }";
+            assertNotEquals(cleanJsonify(createJsonShield(configuration).mask(input)), cleanJsonify(other.mask(input)));
+            assertFalse(other.mask(input).contains("jane"));
+        }
+
+        @Test
+        @DisplayName("Invalid tokenization settings")
+        void testInvalidSettings() {
+            assertThrows(NullPointerException.class, () -> JsonShieldConfiguration.useBlackListStrategy().withStringTokenization(null));
+            assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy().withStringTokenization(new byte[0]));
+            assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy().withStringTokenization(new byte[] {1}, -1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Limit tests")
+    class LimitTests {
+
+        private static JsonShieldConfiguration.Builder limited() {
+            return JsonShieldConfiguration.useBlackListStrategy().addField("secret");
+        }
+
+        private void assertExceeds(JsonShieldLimits.Limit limit, long maximum, JsonShield maskUtils, String json) {
+            JsonShieldLimitExceededException e = assertThrows(JsonShieldLimitExceededException.class, () -> maskUtils.mask(json));
+            assertEquals(limit, e.getLimit());
+            assertEquals(maximum, e.getMaximum());
+            e = assertThrows(JsonShieldLimitExceededException.class, () -> maskUtils.mask(json.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(limit, e.getLimit());
+            assertThrows(JsonShieldLimitExceededException.class,
+                    () -> maskUtils.mask(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream()));
+        }
+
+        @Test
+        @DisplayName("Nesting deeper than the maximum depth is rejected")
+        void testDepth() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxDepth(3).build());
+            jsonAssertEquals("{ \"a\" : [ { \"secret\" : \"*****\" } ] }", maskUtils.mask("{ \"a\" : [ { \"secret\" : \"x\" } ] }"));
+            assertExceeds(JsonShieldLimits.Limit.DEPTH, 3, maskUtils, "{ \"a\" : [ { \"secret\" : [ \"x\" ] } ] }");
+            assertExceeds(JsonShieldLimits.Limit.DEPTH, 3, maskUtils, "[ [ [ [ 1 ] ] ] ]");
+        }
+
+        @Test
+        @DisplayName("Documents with more tokens than the maximum are rejected")
+        void testTokens() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxTokens(6).build());
+            assertEquals("{\"a\":[1]}", maskUtils.mask("{\"a\":[1]}"));
+            jsonAssertEquals("{ \"secret\" : \"*****\" }", maskUtils.mask("{ \"secret\" : \"x\" }"));
+            assertExceeds(JsonShieldLimits.Limit.TOKENS, 6, maskUtils, "{\"a\":[1,2]}");
+            assertExceeds(JsonShieldLimits.Limit.TOKENS, 6, maskUtils, "{\"secret\":\"x\",\"a\":[1]}");
+        }
+
+        @Test
+        @DisplayName("Strings and field names longer than the maximum are rejected")
+        void testStringLength() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxStringLength(6).build());
+            jsonAssertEquals("{ \"secret\" : \"*****\", \"a\" : \"abcdef\" }", maskUtils.mask("{ \"secret\" : \"x\", \"a\" : \"abcdef\" }"));
+            assertExceeds(JsonShieldLimits.Limit.STRING_LENGTH, 6, maskUtils, "{ \"secret\" : \"x\", \"a\" : \"abcdefg\" }");
+            assertExceeds(JsonShieldLimits.Limit.STRING_LENGTH, 6, maskUtils, "{ \"secret\" : \"x\", \"abcdefg\" : 1 }");
+            assertExceeds(JsonShieldLimits.Limit.STRING_LENGTH, 6, maskUtils, "[ \"abcdefg\" ]");
+        }
+
+        @Test
+        @DisplayName("Documents longer than the maximum input length are rejected")
+        void testInputLength() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxInputLength(16).build());
+            jsonAssertEquals("{ \"secret\" : \"*****\" }", maskUtils.mask("{\"secret\":\"x\"}"));
+            assertExceeds(JsonShieldLimits.Limit.INPUT_LENGTH, 16, maskUtils, "{\"secret\":\"xyzab\"}");
+            assertExceeds(JsonShieldLimits.Limit.INPUT_LENGTH, 16, maskUtils, "{\"a\":\"xyz\",\"b\":1}");
+        }
+
+        @Test
+        @DisplayName("Documents exceeding a limit are redacted as a whole if enabled")
+        void testRedaction() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxTokens(6).withLimitRedaction(true).build());
+            String tooLong = "{ \"secret\" : \"x\", \"a\" : [ 1 ] }";
+            assertEquals("\"*****\"", maskUtils.mask(tooLong));
+            assertEquals("\"*****\"", new String(maskUtils.mask(tooLong.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+            List<String> masked = maskUtils.maskAll(List.of("{ \"secret\" : \"x\" }", tooLong, "[ 1, 2 ]", "{ \"secret\" : \"y\" }"));
+            assertEquals(4, masked.size());
+            jsonAssertEquals("{ \"secret\" : \"*****\" }", masked.get(0));
+            assertEquals("\"*****\"", masked.get(1));
+            jsonAssertEquals("[ 1, 2 ]", masked.get(2));
+            jsonAssertEquals("{ \"secret\" : \"*****\" }", masked.get(3));
+            List<String> maskedBytes = new ArrayList<>();
+            maskUtils.maskAll(List.of(tooLong.getBytes(StandardCharsets.UTF_8), "{ \"secret\" : \"y\" }".getBytes(StandardCharsets.UTF_8)),
+                    json -> maskedBytes.add(new String(json, StandardCharsets.UTF_8)));
+            assertEquals("\"*****\"", maskedBytes.get(0));
+            jsonAssertEquals("{ \"secret\" : \"*****\" }", maskedBytes.get(1));
+        }
+
+        @Test
+        @DisplayName("Redacted documents are null if the string mask is null")
+        void testNullRedaction() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxDepth(1).withStringMask(null).withLimitRedaction(true).build());
+            assertEquals("null", maskUtils.mask("[ [ 1 ] ]"));
+        }
+
+        @Test
+        @DisplayName("Oversized streams are rejected before they are read in full")
+        void testInputLengthWhileReading() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxInputLength(100).build());
+            HugeStringInputStream in = new HugeStringInputStream("{\"secret\":\"", HUGE, "\"}");
+            JsonShieldLimitExceededException e = assertThrows(JsonShieldLimitExceededException.class,
+                    () -> maskUtils.mask(in, new ByteArrayOutputStream()));
+            assertEquals(JsonShieldLimits.Limit.INPUT_LENGTH, e.getLimit());
+            assertTrue(in.position < MAX_READ, in.position + " bytes read");
+
+            HugeStringInputStream chars = new HugeStringInputStream("{\"secret\":\"", HUGE, "\"}");
+            e = assertThrows(JsonShieldLimitExceededException.class,
+                    () -> maskUtils.mask(new InputStreamReader(chars, StandardCharsets.UTF_8), new StringWriter()));
+            assertEquals(JsonShieldLimits.Limit.INPUT_LENGTH, e.getLimit());
+            assertTrue(chars.position < MAX_READ, chars.position + " bytes read");
+
+            HugeStringInputStream lines = new HugeStringInputStream("{\"secret\":\"x\"}\n[\"", HUGE, "\"]\n");
+            e = assertThrows(JsonShieldLimitExceededException.class, () -> maskUtils.maskLines(lines, new ByteArrayOutputStream()));
+            assertEquals(JsonShieldLimits.Limit.INPUT_LENGTH, e.getLimit());
+            assertTrue(lines.position < MAX_READ, lines.position + " bytes read");
+        }
+
+        @Test
+        @DisplayName("Records with oversized strings are rejected before they are read in full")
+        void testStringLengthWhileReadingLines() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxStringLength(10).build());
+            HugeStringInputStream lines = new HugeStringInputStream("{\"secret\":\"x\"}\n{\"a\":\"", HUGE, "\"}\n");
+            JsonShieldLimitExceededException e = assertThrows(JsonShieldLimitExceededException.class,
+                    () -> maskUtils.maskLines(lines, new ByteArrayOutputStream()));
+            assertEquals(JsonShieldLimits.Limit.STRING_LENGTH, e.getLimit());
+            assertTrue(lines.position < MAX_READ, lines.position + " bytes read");
+        }
+
+        @Test
+        @DisplayName("Oversized records are skipped and redacted if enabled")
+        void testRedactionWhileReadingLines() {
+            JsonShield maskUtils = createJsonShield(limited().withMaxInputLength(100).withLimitRedaction(true).build());
+            HugeStringInputStream lines = new HugeStringInputStream("{\"secret\":\"x\"}\n[\"", 1024 * 1024, "\"]\n{\"secret\":\"y\"}");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            maskUtils.maskLines(lines, out);
+            assertEquals(maskUtils.mask("{\"secret\":\"x\"}") + "\n\"*****\"\n" + maskUtils.mask("{\"secret\":\"y\"}") + "\n",
+                    out.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Invalid limits")
+        void testInvalidLimits() {
+            assertThrows(IllegalArgumentException.class, () -> limited().withMaxInputLength(0));
+            assertThrows(IllegalArgumentException.class, () -> limited().withMaxDepth(0));
+            assertThrows(IllegalArgumentException.class, () -> limited().withMaxTokens(0));
+            assertThrows(IllegalArgumentException.class, () -> limited().withMaxStringLength(0));
+            assertTrue(limited().build().getLimits().isUnlimited());
+        }
+
+        // Far more than any engine may buffer before checking the input length
+        private static final long HUGE = 200L * 1024 * 1024;
+        private static final long MAX_READ = 1024 * 1024;
+
+        /**
+         * Generates a document holding one huge string as it is read, counting the bytes read.
+         */
+        private static final class HugeStringInputStream extends InputStream {
+            private final byte[] head;
+            private final byte[] tail;
+            private final long size;
+            private long position;
+
+            HugeStringInputStream(String head, long stringLength, String tail) {
+                this.head = head.getBytes(StandardCharsets.UTF_8);
+                this.tail = tail.getBytes(StandardCharsets.UTF_8);
+                this.size = this.head.length + stringLength + this.tail.length;
+            }
+
+            @Override
+            public int read() {
+                if (position == size) {
+                    return -1;
+                }
+                long p = position++;
+                if (p < head.length) {
+                    return head[(int) p];
+                }
+                long fromEnd = size - p;
+                return fromEnd <= tail.length ? tail[(int) (tail.length - fromEnd)] : 'x';
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (position == size) {
+                    return -1;
+                }
+                int n = (int) Math.min(len, size - position);
+                for (int i = 0; i < n; i++) {
+                    b[off + i] = (byte) read();
+                }
+                return n;
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Byte and stream tests")
+    class IoTests {
+
+        //language=json
+        private static final String INPUT = """
+                {
+                  "f1" : "caf\\u00e9 über",
+                  "f2" : [ 1, 1.5, true, { "f1" : "€" } ],
+                  "f3" : { "f4" : null, "f5" : "kept" }
+                }""";
+
+        private final JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f1", "f2").build());
+
+        @Test
+        @DisplayName("Bytes match String masking")
+        void testBytes() {
+            byte[] input = INPUT.getBytes(StandardCharsets.UTF_8);
+            byte[] masked = maskUtils.mask(input);
+            assertEquals(maskUtils.mask(INPUT), new String(masked, StandardCharsets.UTF_8));
+            assertNotSame(input, masked);
+            assertEquals(INPUT, new String(input, StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Bytes without configured fields")
+        void testBytesNoConfiguredFields() {
+            JsonShield maskUtils = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("f9").build());
+            byte[] input = INPUT.getBytes(StandardCharsets.UTF_8);
+            byte[] masked = maskUtils.mask(input);
+            assertEquals(maskUtils.mask(INPUT), new String(masked, StandardCharsets.UTF_8));
+            assertNotSame(input, masked);
+        }
+
+        @Test
+        @DisplayName("Streams match String masking")
+        void testStreams() {
+            CloseTrackingInputStream in = new CloseTrackingInputStream(INPUT.getBytes(StandardCharsets.UTF_8));
+            CloseTrackingOutputStream out = new CloseTrackingOutputStream();
+            maskUtils.mask(in, out);
+            assertEquals(maskUtils.mask(INPUT), out.toString(StandardCharsets.UTF_8));
+            assertFalse(in.closed);
+            assertFalse(out.closed);
+        }
+
+        @Test
+        @DisplayName("Reader and Writer match String masking")
+        void testReaderWriter() {
+            CloseTrackingReader in = new CloseTrackingReader(INPUT);
+            CloseTrackingWriter out = new CloseTrackingWriter();
+            maskUtils.mask(in, out);
+            assertEquals(maskUtils.mask(INPUT), out.toString());
+            assertFalse(in.closed);
+            assertFalse(out.closed);
+        }
+
+        @Test
+        @DisplayName("Empty input")
+        void testEmptyInput() {
+            assertEquals("null", new String(maskUtils.mask(new byte[0]), StandardCharsets.UTF_8));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            maskUtils.mask(new ByteArrayInputStream(new byte[0]), out);
+            assertEquals("null", out.toString(StandardCharsets.UTF_8));
+            StringWriter writer = new StringWriter();
+            maskUtils.mask(new StringReader(""), writer);
+            assertEquals("null", writer.toString());
+        }
+
+        @Test
+        @DisplayName("Malformed JSON")
+        void testValidate() {
+            byte[] malformed = "{\"f2\" : [1, 2}".getBytes(StandardCharsets.UTF_8);
+            assertThrows(InvalidJsonException.class, () -> maskUtils.mask(malformed));
+            assertThrows(InvalidJsonException.class, () -> maskUtils.mask(new ByteArrayInputStream(malformed), new ByteArrayOutputStream()));
+            assertThrows(InvalidJsonException.class, () -> maskUtils.mask(new StringReader("{malformed json}"), new StringWriter()));
+        }
+
+        @Test
+        @DisplayName("Null inputs")
+        void testNullInputs() {
+            assertThrows(NullPointerException.class, () -> maskUtils.mask((byte[]) null));
+            assertThrows(NullPointerException.class, () -> maskUtils.mask(null, new ByteArrayOutputStream()));
+            assertThrows(NullPointerException.class, () -> maskUtils.mask(new ByteArrayInputStream(new byte[0]), null));
+            assertThrows(NullPointerException.class, () -> maskUtils.mask(null, new StringWriter()));
+            assertThrows(NullPointerException.class, () -> maskUtils.mask(new StringReader(""), null));
+        }
+
+        @Test
+        @DisplayName("Files match String masking")
+        void testFiles(@TempDir Path dir) throws IOException {
+            Path in = Files.writeString(dir.resolve("in.json"), INPUT);
+            Path out = Files.writeString(dir.resolve("out.json"), "previous content that is longer than the masked document" + INPUT);
+            maskUtils.maskFile(in, out);
+            assertEquals(maskUtils.mask(INPUT), Files.readString(out));
+            assertEquals(INPUT, Files.readString(in));
+
+            Path empty = Files.createFile(dir.resolve("empty.json"));
+            maskUtils.maskFile(empty, out);
+            assertEquals("null", Files.readString(out));
+        }
+
+        @Test
+        @DisplayName("Invalid files")
+        void testInvalidFiles(@TempDir Path dir) throws IOException {
+            Path in = Files.writeString(dir.resolve("in.json"), INPUT);
+            Path malformed = Files.writeString(dir.resolve("malformed.json"), "{\"f2\" : [1, 2}");
+            assertThrows(IllegalArgumentException.class, () -> maskUtils.maskFile(in, dir.resolve(".").resolve("in.json")));
+            assertEquals(INPUT, Files.readString(in));
+            assertThrows(InvalidJsonException.class, () -> maskUtils.maskFile(malformed, dir.resolve("out.json")));
+            assertThrows(JsonShieldException.class, () -> maskUtils.maskFile(dir.resolve("missing.json"), dir.resolve("out.json")));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskFile(null, dir.resolve("out.json")));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskFile(in, null));
+        }
+
+        @Test
+        @DisplayName("Newline delimited and concatenated records")
+        void testLines() {
+            String input = "{\"f1\":\"a\"}\n\n{\"f3\":{\"f5\":\"}\\\"{[\"}}\r\n{\"f2\":[1]}{\"f1\":2}[\"x\"]\"s\" 3 true null\n[ ]";
+            List<String> records = List.of("{\"f1\":\"a\"}", "{\"f3\":{\"f5\":\"}\\\"{[\"}}", "{\"f2\":[1]}", "{\"f1\":2}", "[\"x\"]", "\"s\"", "3", "true", "null", "[ ]");
+            CloseTrackingOutputStream out = new CloseTrackingOutputStream();
+            maskUtils.maskLines(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+            StringBuilder expected = new StringBuilder();
+            records.forEach(record -> expected.append(maskUtils.mask(record)).append('\n'));
+            assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+            assertFalse(out.closed);
+        }
+
+        @Test
+        @DisplayName("Records keep their order")
+        void testLinesOrder() {
+            StringBuilder input = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                String record = "{\"f1\":" + i + ",\"f3\":{\"f4\":" + i + ",\"f5\":\"" + "x".repeat(i % 40) + "\"}}";
+                input.append(record).append(i % 3 == 0 ? "" : "\n");
+                expected.append(maskUtils.mask(record)).append('\n');
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                maskUtils.maskLines(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out, executor);
+                assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Malformed records")
+        void testLinesValidate() {
+            byte[] input = "{\"f1\":1}\n{\"f1\":}\n{\"f1\":2}".getBytes(StandardCharsets.UTF_8);
+            assertThrows(InvalidJsonException.class, () -> maskUtils.maskLines(new ByteArrayInputStream(input), new ByteArrayOutputStream()));
+            byte[] incomplete = "{\"f1\":1}\n{\"f1\":[2".getBytes(StandardCharsets.UTF_8);
+            assertThrows(InvalidJsonException.class, () -> maskUtils.maskLines(new ByteArrayInputStream(incomplete), new ByteArrayOutputStream()));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskLines(null, new ByteArrayOutputStream()));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskLines(new ByteArrayInputStream(input), null));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskLines(new ByteArrayInputStream(input), new ByteArrayOutputStream(), null));
+        }
+
+        @Test
+        @DisplayName("Batch matches masking one by one")
+        void testBatch() {
+            List<String> batch = List.of(INPUT, "{\"f3\":{\"f5\":\"kept\"}}", "", "[\"a\", 1]", "42", INPUT, "{\"f2\":null}");
+            List<String> expected = batch.stream().map(maskUtils::mask).toList();
+            assertEquals(expected, maskUtils.maskAll(batch));
+
+            List<byte[]> bytes = batch.stream().map(json -> json.getBytes(StandardCharsets.UTF_8)).toList();
+            List<String> masked = new ArrayList<>();
+            maskUtils.maskAll(bytes, json -> masked.add(new String(json, StandardCharsets.UTF_8)));
+            assertEquals(expected, masked);
+            assertTrue(maskUtils.maskAll(List.of()).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Batch on an executor keeps its order")
+        void testBatchExecutor() {
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                batch.add("{\"f1\":" + i + ",\"f3\":{\"f4\":" + i + ",\"f5\":\"" + "x".repeat(i % 40) + "\"}}");
+            }
+            List<String> expected = batch.stream().map(maskUtils::mask).toList();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                assertEquals(expected, maskUtils.maskAll(batch, executor));
+                assertEquals(List.of(maskUtils.mask(INPUT)), maskUtils.maskAll(List.of(INPUT), executor));
+                assertTrue(maskUtils.maskAll(List.of(), executor).isEmpty());
+                batch.set(4321, "{\"f1\":}");
+                assertThrows(InvalidJsonException.class, () -> maskUtils.maskAll(batch, executor));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Malformed batch")
+        void testBatchValidate() {
+            List<String> batch = List.of("{\"f1\":1}", "{\"f1\":}", "{\"f1\":2}");
+            assertThrows(InvalidJsonException.class, () -> maskUtils.maskAll(batch));
+            List<String> masked = new ArrayList<>();
+            List<byte[]> bytes = batch.stream().map(json -> json.getBytes(StandardCharsets.UTF_8)).toList();
+            assertThrows(InvalidJsonException.class, () -> maskUtils.maskAll(bytes, json -> masked.add(new String(json, StandardCharsets.UTF_8))));
+            assertEquals(List.of(maskUtils.mask("{\"f1\":1}")), masked);
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAll(null));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAll(Arrays.asList("{}", null)));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAll(List.of("{}"), null));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAll(bytes, null));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAll(Arrays.asList(new byte[0], null), json -> { }));
+        }
+
+        @Test
+        @DisplayName("Asynchronous masking")
+        void testAsync() {
+            assertEquals(maskUtils.mask(INPUT), maskUtils.maskAsync(INPUT).join());
+            assertEquals(maskUtils.mask((Object) INPUT), maskUtils.maskAsync((Object) INPUT).join());
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                assertEquals(maskUtils.mask(INPUT), maskUtils.maskAsync(INPUT, executor).join());
+                assertEquals(maskUtils.mask((Object) INPUT), maskUtils.maskAsync((Object) INPUT, executor).join());
+            } finally {
+                executor.shutdownNow();
+            }
+            CompletionException e = assertThrows(CompletionException.class, () -> maskUtils.maskAsync("{\"f1\":}").join());
+            assertInstanceOf(InvalidJsonException.class, e.getCause());
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAsync((String) null));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAsync((Object) null));
+            assertThrows(NullPointerException.class, () -> maskUtils.maskAsync(INPUT, null));
+        }
+
+        @Test
+        @DisplayName("Lazy masking")
+        void testLazy() {
+            LazyMaskedJson lazy = maskUtils.lazy(INPUT);
+            assertFalse(lazy.isMasked());
+            String masked = lazy.toString();
+            assertTrue(lazy.isMasked());
+            assertEquals(maskUtils.mask(INPUT), masked);
+            assertSame(masked, lazy.get());
+            assertEquals(masked.length(), lazy.length());
+            assertEquals(masked.charAt(1), lazy.charAt(1));
+            assertEquals(masked.substring(1, 4), lazy.subSequence(1, 4).toString());
+            assertEquals(maskUtils.mask((Object) INPUT), maskUtils.lazy((Object) INPUT).get());
+            LazyMaskedJson invalid = maskUtils.lazy("{\"f1\":}");
+            assertThrows(InvalidJsonException.class, invalid::toString);
+            assertFalse(invalid.isMasked());
+            assertThrows(NullPointerException.class, () -> maskUtils.lazy((String) null));
+            assertThrows(NullPointerException.class, () -> maskUtils.lazy((Object) null));
+        }
+
+        private static final class CloseTrackingInputStream extends ByteArrayInputStream {
+            private boolean closed;
+
+            CloseTrackingInputStream(byte[] buf) {
+                super(buf);
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        }
+
+        private static final class CloseTrackingOutputStream extends ByteArrayOutputStream {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        }
+
+        private static final class CloseTrackingReader extends StringReader {
+            private boolean closed;
+
+            CloseTrackingReader(String s) {
+                super(s);
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        }
+
+        private static final class CloseTrackingWriter extends StringWriter {
+            private boolean closed;
 
+            @Override
+            public void close() {
+                closed = true;
+            }
+        }
+    }
+
+
+}
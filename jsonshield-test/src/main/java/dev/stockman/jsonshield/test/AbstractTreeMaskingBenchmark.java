@@ -0,0 +1,67 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Throughput harness for masking parsed trees in place. Shallow documents are masked entirely by the
+ * recursive levels of the tree engines, while deeply nested ones continue on their explicit stack, so
+ * comparing runs of the two tells whether a change to the traversal costs typical documents anything.
+ * Timings are only meaningful on a quiet machine, so the harness is skipped unless the system property
+ * {@code jsonshield.benchmark} is set:
+ * <pre>{@code
+ * mvn test -Djsonshield.benchmark -Dtest='*BenchmarkTest' -Dsurefire.failIfNoSpecifiedTests=false
+ * }</pre>
+ * Each run reports the best of several rounds, in nanoseconds per document.
+ */
+public abstract class AbstractTreeMaskingBenchmark {
+
+    private static final JsonShieldConfiguration CONFIGURATION = JsonShieldConfiguration.useBlackListStrategy()
+            .addFields("password", "token", "zip").build();
+    private static final String SHALLOW = "{\"id\":1,\"user\":{\"name\":\"jane\",\"password\":\"secret\",\"tags\":[\"a\",\"b\",\"c\"],"
+            + "\"address\":{\"street\":\"main\",\"zip\":\"12345\"}},\"items\":[{\"sku\":\"a\",\"qty\":1,\"price\":1.5},"
+            + "{\"sku\":\"b\",\"qty\":2,\"price\":2.5},{\"sku\":\"c\",\"qty\":3,\"price\":3.5}],\"token\":\"abc\"}";
+    // Within the default nesting limits of the parsers, and far beyond the recursive levels
+    private static final int DEEP_LEVELS = 100;
+    private static final int ROUNDS = 10;
+
+    /**
+     * @param configuration the masking rules
+     * @param json the document to parse once
+     * @return a task masking the parsed tree in place each time it is run
+     */
+    protected abstract Runnable createTreeMasking(JsonShieldConfiguration configuration, String json);
+
+    @Test
+    @EnabledIfSystemProperty(named = "jsonshield.benchmark", matches = ".*")
+    @DisplayName("Mask a shallow tree")
+    void shallowTree() {
+        run("shallow tree", SHALLOW, 200_000);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jsonshield.benchmark", matches = ".*")
+    @DisplayName("Mask a deeply nested tree")
+    void deepTree() {
+        String json = SHALLOW;
+        for (int i = 0; i < DEEP_LEVELS; i++) {
+            json = "{\"list\":[" + json + ",\"value\"]}";
+        }
+        run("deep tree", json, 20_000);
+    }
+
+    private void run(String name, String json, int iterations) {
+        Runnable masking = createTreeMasking(CONFIGURATION, json);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                masking.run();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%s %s: %.0f ns/doc%n", getClass().getSimpleName(), name, (double) best / iterations);
+    }
+}
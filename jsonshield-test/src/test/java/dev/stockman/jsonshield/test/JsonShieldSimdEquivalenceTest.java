@@ -0,0 +1,108 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldSimd;
+import dev.stockman.jsonshield.core.JsonShieldUtf8;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Indexed engines match the UTF-8 engine")
+public class JsonShieldSimdEquivalenceTest {
+
+    private static final String[] NAMES = {"secret", "name", "id", "s\\u0065cret", "größe", "list"};
+    private static final String[] STRINGS = {"", "plain", "quote\\\"d", "back\\\\slash\\\\", "\\u00e9\\n", "é€😀", "{[:,]}"};
+    private static final String[] SCALARS = {"0", "-12", "3.25", "1e9", "-0.5E-3", "true", "false", "null"};
+    private static final String[] WHITESPACE = {"", "", " ", "\n  ", "\t", "\r\n"};
+
+    private final JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy()
+            .addFields("secret", "größe", "list").build();
+    private final JsonShield reference = new JsonShieldUtf8(configuration);
+    private final JsonShield vectorized = new JsonShieldSimd(configuration, true);
+    private final JsonShield scalar = new JsonShieldSimd(configuration, false);
+
+    @Test
+    @DisplayName("Random valid documents")
+    void testRandomDocuments() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            value(random, sb, 0);
+            assertSameResult(sb.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Random corrupted documents")
+    void testCorruptedDocuments() {
+        Random random = new Random(7);
+        String corruption = "\"\\{}[]:, x0\u0001";
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            value(random, sb, 0);
+            int at = random.nextInt(sb.length() + 1);
+            if (random.nextBoolean() && at < sb.length()) {
+                sb.deleteCharAt(at);
+            } else {
+                sb.insert(at, corruption.charAt(random.nextInt(corruption.length())));
+            }
+            assertSameResult(sb.toString());
+        }
+    }
+
+    private void assertSameResult(String json) {
+        String expected;
+        try {
+            expected = reference.mask(json);
+        } catch (InvalidJsonException e) {
+            assertThrows(InvalidJsonException.class, () -> vectorized.mask(json), json);
+            assertThrows(InvalidJsonException.class, () -> scalar.mask(json), json);
+            return;
+        }
+        assertEquals(expected, vectorized.mask(json), json);
+        assertEquals(expected, scalar.mask(json), json);
+    }
+
+    private static void value(Random random, StringBuilder sb, int depth) {
+        sb.append(pick(random, WHITESPACE));
+        int kind = depth > 4 ? random.nextInt(2) : random.nextInt(4);
+        switch (kind) {
+            case 0 -> sb.append('"').append(pick(random, STRINGS).repeat(1 + random.nextInt(12))).append('"');
+            case 1 -> sb.append(pick(random, SCALARS));
+            case 2 -> {
+                sb.append('[');
+                int size = random.nextInt(6);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    value(random, sb, depth + 1);
+                }
+                sb.append(pick(random, WHITESPACE)).append(']');
+            }
+            default -> {
+                sb.append('{');
+                int size = random.nextInt(6);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(pick(random, WHITESPACE)).append('"').append(pick(random, NAMES)).append('"')
+                            .append(pick(random, WHITESPACE)).append(':');
+                    value(random, sb, depth + 1);
+                }
+                sb.append(pick(random, WHITESPACE)).append('}');
+            }
+        }
+        sb.append(pick(random, WHITESPACE));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,20 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldSimd;
+import org.junit.jupiter.api.DisplayName;
+
+@DisplayName("Scalar indexing provider unit tests")
+public class JsonShieldSimdScalarTest extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        return new JsonShieldSimd(jsonShieldConfiguration, false);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        return JsonText.minify(json);
+    }
+}
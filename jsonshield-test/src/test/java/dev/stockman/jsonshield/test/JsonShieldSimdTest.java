@@ -0,0 +1,73 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldSimd;
+import dev.stockman.jsonshield.core.PiiType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Vectorized indexing provider unit tests")
+public class JsonShieldSimdTest extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        return new JsonShieldSimd(jsonShieldConfiguration, true);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        return JsonText.minify(json);
+    }
+
+    @Test
+    @DisplayName("Objects are converted to JSON scalars")
+    void testMaskObject() {
+        JsonShield blacklist = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("abc").build());
+        assertEquals("\"abc\"", blacklist.mask((Object) "abc"));
+        assertEquals("\"{\\\"abc\\\":1}\"", blacklist.mask((Object) new StringBuilder("{\"abc\":1}")));
+        assertEquals("\"AQI=\"", blacklist.mask((Object) new byte[]{1, 2}));
+        assertEquals("true", blacklist.mask((Object) true));
+        assertEquals("42", blacklist.mask((Object) 42L));
+        assertEquals("1.5", blacklist.mask((Object) 1.5));
+        assertEquals("12345678901234567890.5", blacklist.mask((Object) new BigDecimal("12345678901234567890.5")));
+        JsonShield whitelist = createJsonShield(JsonShieldConfiguration.useWhiteListStrategy().build());
+        assertEquals("\"*****\"", whitelist.mask((Object) "abc"));
+        assertEquals("0", whitelist.mask((Object) 42));
+        assertEquals("\"*****\"", whitelist.lazy((Object) "abc").toString());
+        assertThrows(IllegalArgumentException.class, () -> blacklist.mask(new Object()));
+        assertThrows(IllegalArgumentException.class, () -> blacklist.mask((Object) Double.NaN));
+        CompletionException e = assertThrows(CompletionException.class, () -> blacklist.maskAsync(List.of()).join());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("PII detection is rejected")
+    void testPiiDetectionRejected() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.EMAIL).build();
+        assertThrows(IllegalArgumentException.class, () -> new JsonShieldSimd(configuration, false));
+        assertThrows(IllegalArgumentException.class, () -> createJsonShield(configuration));
+    }
+
+    @Test
+    @DisplayName("Vector API is used when available")
+    void testVectorized() {
+        assertTrue(JsonShieldSimd.isVectorApiAvailable());
+        assertTrue(new JsonShieldSimd(JsonShieldConfiguration.useBlackListStrategy().build()).isVectorized());
+    }
+
+    @Test
+    @DisplayName("Strings spanning several blocks")
+    void testLongStrings() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build());
+        String text = "a\\\"b\\\\".repeat(40);
+        String input = "{\"secret\":\"" + text + "\",\"other\":\"" + text + "\",\"list\":[" + "1,".repeat(50) + "true]}";
+        assertEquals("{\"secret\":\"*****\",\"other\":\"" + text + "\",\"list\":[" + "1,".repeat(50) + "true]}", jsonShield.mask(input));
+    }
+}
@@ -0,0 +1,325 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.InvalidJsonException;
+import dev.stockman.jsonshield.core.JsonShield;
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.JsonShieldUtf8;
+import dev.stockman.jsonshield.core.MaskResult;
+import dev.stockman.jsonshield.core.PiiType;
+import dev.stockman.jsonshield.core.VirtualThreadMaskingExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UTF-8 byte level provider unit tests")
+public class JsonShieldUtf8Test extends AbstractJsonShieldTest {
+
+    @Override
+    protected JsonShield createJsonShield(JsonShieldConfiguration jsonShieldConfiguration) {
+        return new JsonShieldUtf8(jsonShieldConfiguration);
+    }
+
+    @Override
+    protected String cleanJsonify(String json) {
+        return JsonText.minify(json);
+    }
+
+    @Test
+    @DisplayName("Objects are converted to JSON scalars")
+    void testMaskObject() {
+        JsonShield blacklist = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("abc").build());
+        assertEquals("\"abc\"", blacklist.mask((Object) "abc"));
+        assertEquals("\"{\\\"abc\\\":1}\"", blacklist.mask((Object) new StringBuilder("{\"abc\":1}")));
+        assertEquals("\"AQI=\"", blacklist.mask((Object) new byte[]{1, 2}));
+        assertEquals("true", blacklist.mask((Object) true));
+        assertEquals("42", blacklist.mask((Object) 42L));
+        assertEquals("1.5", blacklist.mask((Object) 1.5));
+        assertEquals("12345678901234567890.5", blacklist.mask((Object) new BigDecimal("12345678901234567890.5")));
+        JsonShield whitelist = createJsonShield(JsonShieldConfiguration.useWhiteListStrategy().build());
+        assertEquals("\"*****\"", whitelist.mask((Object) "abc"));
+        assertEquals("0", whitelist.mask((Object) 42));
+        assertEquals("\"*****\"", whitelist.lazy((Object) "abc").toString());
+        assertThrows(IllegalArgumentException.class, () -> blacklist.mask(new Object()));
+        assertThrows(IllegalArgumentException.class, () -> blacklist.mask((Object) Double.NaN));
+        CompletionException e = assertThrows(CompletionException.class, () -> blacklist.maskAsync(List.of()).join());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("PII detection is rejected")
+    void testPiiDetectionRejected() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.EMAIL).build();
+        assertThrows(IllegalArgumentException.class, () -> createJsonShield(configuration));
+    }
+
+    @Test
+    @DisplayName("Formatting is preserved")
+    void testFormattingPreserved() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret").build());
+        String input = "{ \"secret\" :\t\"value\",\n  \"amount\": 1.0E7, \"list\" : [ \"a\" ] }";
+        assertEquals("{ \"secret\" :\t\"*****\",\n  \"amount\": 1.0E7, \"list\" : [ \"a\" ] }", jsonShield.mask(input));
+    }
+
+    @Test
+    @DisplayName("Escaped and non-ASCII field names")
+    void testEscapedFieldNames() {
+        JsonShield jsonShield = createJsonShield(JsonShieldConfiguration.useBlackListStrategy().addFields("secret", "größe").build());
+        assertEquals("{\"s\\u0065cret\":\"*****\",\"größe\":0,\"other\":\"é\"}",
+                jsonShield.mask("{\"s\\u0065cret\":\"x\\\"y\",\"größe\":42,\"other\":\"é\"}"));
+    }
+
+    @Test
+    @DisplayName("UTF-8 byte input")
+    void testByteInput() {
+        JsonShieldUtf8 jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy().addFields("pin").build());
+        byte[] masked = jsonShield.mask("{\"pin\":1234,\"ok\":true}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("{\"pin\":0,\"ok\":true}", new String(masked, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Heap and direct ByteBuffers")
+    void testByteBuffers() {
+        JsonShieldUtf8 jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy().addFields("pin").build());
+        byte[] input = "{\"pin\":1234,\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+        for (ByteBuffer src : List.of(ByteBuffer.wrap(input), ByteBuffer.allocateDirect(input.length).put(input).flip())) {
+            for (ByteBuffer dst : List.of(ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64))) {
+                dst.put((byte) ' ');
+                MaskResult result = jsonShield.mask(src, dst);
+                assertEquals(new MaskResult(input.length, 19, 19), result);
+                assertFalse(result.overflow());
+                assertFalse(src.hasRemaining());
+                assertEquals(20, dst.position());
+                assertEquals(" {\"pin\":0,\"ok\":true}", StandardCharsets.UTF_8.decode(dst.flip()).toString());
+                src.rewind();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("ByteBuffer destination too small")
+    void testByteBufferOverflow() {
+        JsonShieldUtf8 jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy().addFields("pin").build());
+        ByteBuffer src = ByteBuffer.allocateDirect(32).put("{\"pin\":\"1234\"}".getBytes(StandardCharsets.UTF_8)).flip();
+        ByteBuffer dst = ByteBuffer.allocateDirect(8);
+        MaskResult result = jsonShield.mask(src, dst);
+        assertTrue(result.overflow());
+        assertEquals(new MaskResult(0, 0, 15), result);
+        assertEquals(0, src.position());
+        assertEquals(0, dst.position());
+
+        dst = ByteBuffer.allocateDirect((int) result.required());
+        assertFalse(jsonShield.mask(src, dst).overflow());
+        assertEquals("{\"pin\":\"*****\"}", StandardCharsets.UTF_8.decode(dst.flip()).toString());
+    }
+
+    @Test
+    @DisplayName("Invalid ByteBuffer input")
+    void testByteBufferValidation() {
+        JsonShieldUtf8 jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy().addFields("pin").build());
+        ByteBuffer src = ByteBuffer.wrap("{\"pin\":12,}".getBytes(StandardCharsets.UTF_8));
+        ByteBuffer dst = ByteBuffer.allocate(2);
+        assertThrows(InvalidJsonException.class, () -> jsonShield.mask(src, dst));
+        assertEquals(0, src.position());
+        assertEquals(0, dst.position());
+        assertThrows(ReadOnlyBufferException.class, () -> jsonShield.mask(src, ByteBuffer.allocate(64).asReadOnlyBuffer()));
+        assertThrows(IllegalArgumentException.class, () -> jsonShield.mask(src, src.duplicate()));
+        assertThrows(NullPointerException.class, () -> jsonShield.mask((ByteBuffer) null, dst));
+        assertThrows(NullPointerException.class, () -> jsonShield.mask(src, null));
+    }
+
+    @Test
+    @DisplayName("Native memory segments")
+    void testMemorySegments() {
+        JsonShieldUtf8 jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy().addFields("pin").build());
+        try (Arena arena = Arena.ofConfined()) {
+            byte[] input = "[{\"pin\":[1,2.5]},\"x\"]".getBytes(StandardCharsets.UTF_8);
+            MemorySegment src = arena.allocate(input.length).copyFrom(MemorySegment.ofArray(input));
+            MemorySegment dst = arena.allocate(64);
+            MaskResult result = jsonShield.mask(src, dst);
+            assertEquals(new MaskResult(src.byteSize(), 21, 21), result);
+            assertEquals("[{\"pin\":[0,0.0]},\"x\"]", new String(dst.asSlice(0, result.produced()).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8));
+
+            result = jsonShield.mask(arena.allocate(0), dst);
+            assertEquals(new MaskResult(0, 4, 4), result);
+            assertEquals("null", new String(dst.asSlice(0, 4).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8));
+
+            assertTrue(jsonShield.mask(src, dst.asSlice(0, 20)).overflow());
+            assertThrows(IllegalArgumentException.class, () -> jsonShield.mask(dst, dst.asSlice(8)));
+            assertThrows(IllegalArgumentException.class, () -> jsonShield.mask(src, dst.asReadOnly()));
+        }
+    }
+
+    @Test
+    @DisplayName("Memory-mapped files larger than the write buffer")
+    void testLargeFile(@TempDir Path dir) throws IOException {
+        JsonShieldUtf8 jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy().addFields("pin", "note").build());
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"pin\":").append(i * 7)
+                    .append(",\"note\":\"").append("x".repeat(i % 50)).append("\",\"text\":\"").append("é".repeat(i % 30)).append("\"}");
+        }
+        byte[] input = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+        Path in = Files.write(dir.resolve("in.json"), input);
+        Path out = dir.resolve("out.json");
+        jsonShield.maskFile(in, out);
+        assertArrayEquals(jsonShield.mask(input), Files.readAllBytes(out));
+    }
+
+    @Test
+    @DisplayName("Oversized streams are redacted after reading one byte past the maximum input length")
+    void testStreamRedaction() {
+        JsonShield jsonShield = new JsonShieldUtf8(JsonShieldConfiguration.useBlackListStrategy()
+                .withMaxInputLength(100).withLimitRedaction(true).build());
+        ByteArrayInputStream in = new ByteArrayInputStream(("[\"" + "x".repeat(10_000) + "\"]").getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonShield.mask(in, out);
+        assertEquals("\"*****\"", out.toString(StandardCharsets.UTF_8));
+        assertEquals(10_004 - 101, in.available());
+    }
+
+    @Test
+    @DisplayName("Virtual thread executor caps concurrent masking")
+    void testVirtualThreadMaskingExecutor() {
+        VirtualThreadMaskingExecutor executor = new VirtualThreadMaskingExecutor(2);
+        assertEquals(2, executor.getMaxConcurrency());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                assertTrue(Thread.currentThread().isVirtual());
+                LockSupport.parkNanos(2_000_000);
+                running.decrementAndGet();
+            }, executor));
+        }
+        futures.forEach(CompletableFuture::join);
+        assertEquals(2, maxRunning.get());
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadMaskingExecutor(0));
+        assertThrows(NullPointerException.class, () -> executor.execute(null));
+    }
+
+    @Test
+    @DisplayName("Virtual thread executor queues tasks over the cap without starting them")
+    void testVirtualThreadMaskingExecutorQueue() throws InterruptedException {
+        VirtualThreadMaskingExecutor executor = new VirtualThreadMaskingExecutor(2, 3);
+        assertEquals(3, executor.getMaxQueued());
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                started.incrementAndGet();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }, executor));
+        }
+        while (started.get() < 2) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        assertEquals(2, started.get());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        release.countDown();
+        futures.forEach(CompletableFuture::join);
+        assertEquals(5, started.get());
+        assertEquals(2, maxRunning.get());
+
+        CompletableFuture.runAsync(() -> {}, executor).join();
+        VirtualThreadMaskingExecutor noQueue = new VirtualThreadMaskingExecutor(1, 0);
+        CountDownLatch block = new CountDownLatch(1);
+        noQueue.execute(() -> {
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThrows(RejectedExecutionException.class, () -> noQueue.execute(() -> {}));
+        block.countDown();
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadMaskingExecutor(1, -1));
+    }
+
+    @Test
+    @DisplayName("Field regexes agree with java.util.regex")
+    void testFieldRegexesMatchJavaRegex() {
+        String[] regexes = {"card.*", ".*[Tt]oken", "(?i)pass(word)?", "(?i).*secret.*", "ssn|tin|ein", "a{2,3}b?",
+                "[^a-z]+", "\\d{3}-\\d{2}", "x(yz)*", "\\w+_id", "(?:ab|cd)+e", "[a-c\\d]*\\.", "\\u00e4.+",
+                "a.b", "a[^x]b", "a\\Wb", "\uD83D\uDE00+", "[\uD83D\uDE00-\uD83D\uDE4F]\u00e4?"};
+        String[] names = {"", "card", "cardNumber", "accessToken", "token", "PASSWORD", "Pass", "passwords", "topSecretKey",
+                "ssn", "tin", "ssnx", "aa", "aaab", "aab", "ABC", "AbC", "123-45", "12-34", "x", "xyzyz", "xyzy",
+                "user_id", "_id", "ababcde", "cde", "a1b.", "\u00e4bc", "\u00e4", "gr\u00f6\u00dfe", "\uD83D\uDE00\u00e4",
+                "a\uD83D\uDE00b", "a\uD83D\uDE00\uD83D\uDE00b", "\uD83D\uDE00\uD83D\uDE00", "\uD83D\uDE4F", "a\uD83Db"};
+        for (String regex : regexes) {
+            JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().addFieldRegex(regex).build();
+            Pattern pattern = Pattern.compile(regex);
+            for (String name : names) {
+                boolean expected = pattern.matcher(name).matches();
+                byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+                assertEquals(expected, configuration.shouldMask(name), regex + " " + name);
+                assertEquals(expected, configuration.shouldMask(utf8, 0, utf8.length), regex + " " + name);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Field patterns match supplementary characters as a whole")
+    void testFieldPatternsSupplementaryCharacters() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy()
+                .addFieldPattern("a?b").addFieldRegex("x.y").build();
+        for (String name : new String[] {"a\uD83D\uDE00b", "a\uD840\uDC00b", "x\uD83D\uDE00y"}) {
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            assertTrue(configuration.shouldMask(name), name);
+            assertTrue(configuration.shouldMask(utf8, 0, utf8.length), name);
+        }
+        assertFalse(configuration.shouldMask("a\uD83D\uDE00\uD83D\uDE00b"));
+        assertEquals("{\"a\uD83D\uDE00b\":\"*****\"}", new JsonShieldUtf8(configuration).mask("{\"a\uD83D\uDE00b\":\"s\"}"));
+    }
+
+    @Test
+    @DisplayName("Field patterns compile into a single automaton")
+    void testManyFieldPatterns() {
+        JsonShieldConfiguration.Builder builder = JsonShieldConfiguration.useBlackListStrategy();
+        for (int i = 0; i < 500; i++) {
+            builder.addFieldPattern("field" + i + "_*");
+        }
+        JsonShieldConfiguration configuration = builder.addFieldRegex("(?i)[a-z]*password").build();
+        assertTrue(configuration.shouldMask("field499_x"));
+        assertTrue(configuration.shouldMask("field0_"));
+        assertFalse(configuration.shouldMask("field500_x"));
+        assertTrue(configuration.shouldMask("userPassWord"));
+        assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy()
+                .addFieldRegex("(a|b)*a(a|b){14}").build());
+    }
+}
@@ -0,0 +1,30 @@
+package dev.stockman.jsonshield.test;
+
+final class JsonText {
+    private JsonText() {}
+
+    /**
+     * Removes insignificant whitespace so documents can be compared without a JSON library.
+     */
+    static String minify(String json) {
+        StringBuilder sb = new StringBuilder(json.length());
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                sb.append(c);
+                if (c == '\\') {
+                    sb.append(json.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+                sb.append(c);
+            } else if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.PiiDetector;
+import dev.stockman.jsonshield.core.PiiType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PII detector unit tests")
+public class PiiDetectorTest {
+
+    private static PiiDetector detector(PiiType... types) {
+        return JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(types).build().getPiiDetector();
+    }
+
+    @Test
+    @DisplayName("Payment card numbers")
+    void testPaymentCards() {
+        PiiDetector detector = detector(PiiType.PAYMENT_CARD);
+        for (String value : new String[] {"4111111111111111", "card 4111 1111 1111 1111 expires", "5500-0000-0000-0004",
+                "378282246310005", "6011111111111117", "2223000048400011", "x4012888888881881x"}) {
+            assertTrue(detector.containsPii(value), value);
+        }
+        for (String value : new String[] {"4111111111111112", "1700000000000", "41111111111111111111", "4111  1111 1111 1111",
+                "411111111111", "order 12345", "4111 1111 1111 111", ""}) {
+            assertFalse(detector.containsPii(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Email addresses")
+    void testEmails() {
+        PiiDetector detector = detector(PiiType.EMAIL);
+        for (String value : new String[] {"jane.doe@example.com", "mail to a@b.co now", "x+tag@mail.example.org.", "\"j@sub-domain.io\""}) {
+            assertTrue(detector.containsPii(value), value);
+        }
+        for (String value : new String[] {"@example.com", "jane@localhost", "jane@example.c", "jane@example.c0m", "jane@-example.com",
+                "a @example.com", "user@@example.com", "jane@.com"}) {
+            assertFalse(detector.containsPii(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Social security numbers")
+    void testSsns() {
+        PiiDetector detector = detector(PiiType.SSN);
+        for (String value : new String[] {"123-45-6789", "ssn: 078-05-1120."}) {
+            assertTrue(detector.containsPii(value), value);
+        }
+        for (String value : new String[] {"000-12-3456", "666-12-3456", "912-34-5678", "123-00-4567", "123-45-0000",
+                "123456789", "123 45 6789", "123-45-67890", "1234-56-7890", "2024-01-15"}) {
+            assertFalse(detector.containsPii(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("IBANs")
+    void testIbans() {
+        PiiDetector detector = detector(PiiType.IBAN);
+        for (String value : new String[] {"DE89370400440532013000", "IBAN: DE89 3704 0044 0532 0130 00", "GB82WEST12345698765432",
+                "NL91ABNA0417164300"}) {
+            assertTrue(detector.containsPii(value), value);
+        }
+        for (String value : new String[] {"DE89370400440532013001", "DE89 37040 044 0532 0130 00", "XDE89370400440532013000",
+                "DE89370400440532013000x", "de89370400440532013000", "DE8937040044"}) {
+            assertFalse(detector.containsPii(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Only the configured kinds are detected")
+    void testTypes() {
+        PiiDetector detector = detector(PiiType.EMAIL, PiiType.IBAN);
+        assertEquals(EnumSet.of(PiiType.EMAIL, PiiType.IBAN), detector.getTypes());
+        assertFalse(detector.containsPii("4111111111111111"));
+        assertFalse(detector.containsPii("123-45-6789"));
+        assertTrue(detector.containsPii("jane@example.com"));
+        assertNull(JsonShieldConfiguration.useBlackListStrategy().build().getPiiDetector());
+    }
+
+    @Test
+    @DisplayName("Scans share the budget of a document")
+    void testBudget() {
+        PiiDetector detector = JsonShieldConfiguration.useBlackListStrategy().withPiiDetection(PiiType.PAYMENT_CARD)
+                .withPiiDetectionBudget(40).build().getPiiDetector();
+        assertEquals(40, detector.getBudget());
+        PiiDetector.Scan scan = detector.newScan();
+        assertTrue(scan.containsPii("4111111111111111"));
+        // 24 characters left, so the card number beyond them is not seen
+        assertFalse(scan.containsPii("nothing to see here at all, 4111111111111111"));
+        assertFalse(scan.containsPii("4111111111111111"));
+        assertTrue(detector.newScan().containsPii("4111111111111111"));
+        assertThrows(IllegalArgumentException.class, () -> JsonShieldConfiguration.useBlackListStrategy().withPiiDetectionBudget(0));
+    }
+
+    @Test
+    @DisplayName("Detection disables the blacklist prescan")
+    void testPrescan() {
+        JsonShieldConfiguration configuration = JsonShieldConfiguration.useBlackListStrategy().addField("secret")
+                .withPiiDetection(PiiType.EMAIL).build();
+        assertTrue(configuration.requiresMasking("{\"mail\":\"jane@example.com\"}"));
+    }
+}
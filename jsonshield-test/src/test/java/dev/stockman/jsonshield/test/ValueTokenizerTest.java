@@ -0,0 +1,119 @@
+package dev.stockman.jsonshield.test;
+
+import dev.stockman.jsonshield.core.JsonShieldConfiguration;
+import dev.stockman.jsonshield.core.ValueTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Value tokenizer unit tests")
+public class ValueTokenizerTest {
+
+    private static ValueTokenizer tokenizer(byte[] key, int cacheCapacity) {
+        return JsonShieldConfiguration.useBlackListStrategy().withStringTokenization(key, cacheCapacity).build().getTokenizer();
+    }
+
+    private static String expectedToken(byte[] key, String value) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        byte[] digest = mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        return "tok_" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+    }
+
+    @Test
+    @DisplayName("Tokens are the truncated HMAC-SHA256 of the value")
+    void testHmac() throws Exception {
+        byte[][] keys = {"k".getBytes(StandardCharsets.UTF_8), new byte[64], new byte[100]};
+        Arrays.fill(keys[2], (byte) 7);
+        for (byte[] key : keys) {
+            ValueTokenizer tokenizer = tokenizer(key, 0);
+            for (String value : new String[] {"", "jane@example.com", "Zürich 😀", "x".repeat(1000)}) {
+                assertEquals(expectedToken(key, value), tokenizer.tokenize(value), value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Tokens are deterministic, with or without the cache")
+    void testDeterministic() {
+        byte[] key = "secret".getBytes(StandardCharsets.UTF_8);
+        ValueTokenizer cached = tokenizer(key, 100);
+        ValueTokenizer uncached = tokenizer(key, 0);
+        assertEquals(0, uncached.getCacheCapacity());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(uncached.tokenize("value" + i), cached.tokenize("value" + i));
+            assertEquals(cached.tokenize("value" + i), cached.tokenize("value" + i));
+        }
+        assertNotEquals(cached.tokenize("a"), tokenizer("other".getBytes(StandardCharsets.UTF_8), 0).tokenize("a"));
+    }
+
+    @Test
+    @DisplayName("The key is copied")
+    void testKeyCopied() {
+        byte[] key = "secret".getBytes(StandardCharsets.UTF_8);
+        JsonShieldConfiguration.Builder builder = JsonShieldConfiguration.useBlackListStrategy().withStringTokenization(key);
+        String expected = tokenizer("secret".getBytes(StandardCharsets.UTF_8), 0).tokenize("a");
+        key[0] = 'x';
+        assertEquals(expected, builder.build().getTokenizer().tokenize("a"));
+    }
+
+    @Test
+    @DisplayName("Cache capacity")
+    void testCapacity() {
+        byte[] key = {1};
+        assertEquals(16384, tokenizer(key, 10_000).getCacheCapacity());
+        assertEquals(8, tokenizer(key, 1).getCacheCapacity());
+        assertEquals(1024, tokenizer(key, 1024).getCacheCapacity());
+        assertThrows(IllegalArgumentException.class, () -> tokenizer(key, (1 << 24) + 1));
+    }
+
+    @Test
+    @DisplayName("Hot values stay cached while one-off values pass through")
+    void testHotValues() {
+        ValueTokenizer tokenizer = tokenizer("secret".getBytes(StandardCharsets.UTF_8), 1024);
+        List<String> hot = IntStream.range(0, 100).mapToObj(i -> "hot" + i).toList();
+        for (int round = 0; round < 10; round++) {
+            hot.forEach(tokenizer::tokenize);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            tokenizer.tokenize("cold" + i);
+            if (i % 200 == 0) {
+                hot.forEach(tokenizer::tokenize);
+            }
+        }
+        for (String value : hot) {
+            assertSame(tokenizer.tokenize(value), tokenizer.tokenize(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent tokenization")
+    void testConcurrent() throws Exception {
+        byte[] key = "secret".getBytes(StandardCharsets.UTF_8);
+        ValueTokenizer tokenizer = tokenizer(key, 64);
+        ValueTokenizer reference = tokenizer(key, 0);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = IntStream.range(0, 8).<Future<?>>mapToObj(t -> executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    String value = "v" + (i * (t + 1)) % 500;
+                    assertEquals(reference.tokenize(value), tokenizer.tokenize(value));
+                }
+            })).toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+}